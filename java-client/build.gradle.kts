@@ -38,6 +38,82 @@ java {
     withSourcesJar()
 }
 
+// Classes that need a more recent JDK (e.g. the java.net.http based transport) live in their own source set
+// and are packaged in the multi-release section of the jar, so that the library still runs on Java 8.
+val java11: SourceSet by sourceSets.creating {
+    java.setSrcDirs(listOf("src/main/java11"))
+    compileClasspath += sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath
+}
+
+tasks.named<JavaCompile>(java11.compileJavaTaskName) {
+    options.release.set(11)
+}
+
+// Tests cover both the Java 8 classes and the multi-release section
+sourceSets.test {
+    compileClasspath = java11.output + compileClasspath
+    runtimeClasspath = java11.output + runtimeClasspath
+}
+
+tasks.compileTestJava {
+    options.release.set(11)
+}
+
+// JMH benchmarks. Run with `./gradlew :java-client:jmh`, passing JMH options with e.g. -Pjmh.args="DecodeBenchmark -f 2"
+val jmh: SourceSet by sourceSets.creating {
+    java.setSrcDirs(listOf("src/jmh/java"))
+    resources.setSrcDirs(listOf("src/jmh/resources"))
+    compileClasspath += java11.output + sourceSets.main.get().output + sourceSets.main.get().compileClasspath
+    runtimeClasspath += java11.output + sourceSets.main.get().output + sourceSets.main.get().runtimeClasspath
+}
+
+tasks.named<JavaCompile>(jmh.compileJavaTaskName) {
+    options.release.set(11)
+}
+
+tasks.register<JavaExec>("jmh") {
+    description = "Runs the JMH benchmarks, with allocation rates from the GC profiler."
+    group = "verification"
+    classpath = jmh.runtimeClasspath
+    mainClass.set("org.openjdk.jmh.Main")
+
+    val results = File(buildDir, "reports/jmh/results.json")
+    args("-prof", "gc", "-rf", "json", "-rff", results.path)
+    if (project.hasProperty("jmh.args")) {
+        args(project.property("jmh.args").toString().split(" ").filter { it.isNotEmpty() })
+    }
+
+    doFirst {
+        results.parentFile.mkdirs()
+    }
+}
+
+// End-to-end transport benchmarks against a fake server, at several concurrency levels
+tasks.register<JavaExec>("transportBenchmark") {
+    description = "Runs the transport benchmarks at several concurrency levels."
+    group = "verification"
+    classpath = jmh.runtimeClasspath
+    mainClass.set("co.elastic.clients.benchmarks.TransportBenchmark")
+
+    if (project.hasProperty("jmh.args")) {
+        args(project.property("jmh.args").toString().split(" ").filter { it.isNotEmpty() })
+    }
+}
+
+tasks.jar {
+    into("META-INF/versions/11") {
+        from(java11.output)
+    }
+    manifest {
+        attributes["Multi-Release"] = "true"
+    }
+}
+
+tasks.named<Jar>("sourcesJar") {
+    from(java11.allSource)
+}
+
 forbiddenApis {
     signaturesFiles = files(File(rootProject.projectDir, "config/forbidden-apis.txt"))
     suppressAnnotations = setOf("co.elastic.clients.util.AllowForbiddenApis")
@@ -47,6 +123,10 @@ tasks.forbiddenApisMain {
     bundledSignatures = setOf("jdk-system-out")
 }
 
+tasks.named<de.thetaphi.forbiddenapis.gradle.CheckForbiddenApis>("forbiddenApisJava11") {
+    bundledSignatures = setOf("jdk-system-out")
+}
+
 tasks.getByName<ProcessResources>("processResources") {
     // Only process main source-set resources (test files are large)
     expand(
@@ -206,6 +286,8 @@ dependencies {
     compileOnly("com.fasterxml.jackson.core", "jackson-databind", jacksonVersion)
     testImplementation("com.fasterxml.jackson.core", "jackson-core", jacksonVersion)
     testImplementation("com.fasterxml.jackson.core", "jackson-databind", jacksonVersion)
+    testImplementation("com.fasterxml.jackson.dataformat", "jackson-dataformat-smile", jacksonVersion)
+    testImplementation("com.fasterxml.jackson.dataformat", "jackson-dataformat-cbor", jacksonVersion)
 
     // EPL-2.0 OR BSD-3-Clause
     // https://eclipse-ee4j.github.io/yasson/
@@ -223,6 +305,17 @@ dependencies {
     // https://github.com/classgraph/classgraph
     testImplementation("io.github.classgraph:classgraph:4.8.147")
 
+    // GPL-2.0 WITH Classpath-exception-2.0
+    // https://github.com/openjdk/jmh
+    "jmhImplementation"("org.openjdk.jmh:jmh-core:1.35")
+    "jmhAnnotationProcessor"("org.openjdk.jmh:jmh-generator-annprocess:1.35")
+    "jmhImplementation"("jakarta.json.bind", "jakarta.json.bind-api", "2.0.0")
+    "jmhImplementation"("com.fasterxml.jackson.core", "jackson-core", jacksonVersion)
+    "jmhImplementation"("com.fasterxml.jackson.core", "jackson-databind", jacksonVersion)
+    "jmhImplementation"("org.eclipse", "yasson", "2.0.4") {
+        exclude(group = "org.glassfish", module = "jakarta.json")
+    }
+
     // MIT
     // https://www.testcontainers.org/
     testImplementation("org.testcontainers", "testcontainers", "1.17.3")
@@ -0,0 +1,81 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.benchmarks;
+
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.SimpleJsonpMapper;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.json.jsonb.JsonbJsonpMapper;
+
+/**
+ * The mappers that benchmarks are run with, used as a JMH {@code @Param}.
+ */
+public enum BenchmarkMapper {
+    JACKSON {
+        @Override
+        public JsonpMapper create() {
+            return new JacksonJsonpMapper();
+        }
+    },
+
+    JSONB {
+        @Override
+        public JsonpMapper create() {
+            return new JsonbJsonpMapper();
+        }
+    },
+
+    SIMPLE {
+        @Override
+        public JsonpMapper create() {
+            return new SimpleJsonpMapper();
+        }
+
+        @Override
+        public JsonpDeserializer<?> documentDeserializer() {
+            // The simple mapper doesn't handle application classes
+            return JsonData._DESERIALIZER;
+        }
+
+        @Override
+        public Object document(Product product) {
+            // Converted to a JSON value, as the simple mapper doesn't handle application classes
+            return JsonData.of(product, JACKSON.create()).toJson();
+        }
+    };
+
+    public abstract JsonpMapper create();
+
+    /**
+     * The deserializer for documents in search responses.
+     */
+    public JsonpDeserializer<?> documentDeserializer() {
+        return JsonpDeserializer.of(Product.class);
+    }
+
+    /**
+     * A document to be serialized by this mapper.
+     */
+    public Object document(Product product) {
+        return product;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.benchmarks;
+
+import co.elastic.clients.elasticsearch._helpers.ColumnarAggregations;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of a date histogram with many buckets and two metric sub-aggregations, as API types and with
+ * {@link ColumnarAggregations}. Run with {@code -prof gc} to compare allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnarDecodeBenchmark {
+
+    @Param({"JACKSON"})
+    public BenchmarkMapper mapper;
+
+    @Param({"20000"})
+    public int buckets;
+
+    private JsonpMapper jsonpMapper;
+    private JsonpDeserializer<SearchResponse<JsonData>> searchDeserializer;
+    private byte[] response;
+
+    @Setup
+    public void setup() {
+        jsonpMapper = mapper.create();
+        searchDeserializer = SearchResponse.createSearchResponseDeserializer(JsonData._DESERIALIZER);
+
+        StringBuilder sb = new StringBuilder("{\"took\":12,\"timed_out\":false,")
+            .append("\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},")
+            .append("\"hits\":{\"total\":{\"value\":10000,\"relation\":\"gte\"},\"max_score\":null,\"hits\":[]},")
+            .append("\"aggregations\":{\"date_histogram#per_hour\":{\"buckets\":[");
+        long start = 1_600_000_000_000L;
+        for (int i = 0; i < buckets; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"key_as_string\":\"").append(start + i * 3_600_000L).append("\",")
+                .append("\"key\":").append(start + i * 3_600_000L).append(",\"doc_count\":").append(i % 1000).append(',')
+                .append("\"avg#avg_price\":{\"value\":").append(i * 0.25).append("},")
+                .append("\"sum#revenue\":{\"value\":").append(i * 12.5).append("}}");
+        }
+        sb.append("]}}}");
+        response = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public SearchResponse<JsonData> apiTypes() {
+        return Fixtures.decode(response, searchDeserializer, jsonpMapper);
+    }
+
+    @Benchmark
+    public ColumnarAggregations columnar() {
+        return Fixtures.decode(response, ColumnarAggregations._DESERIALIZER, jsonpMapper);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.benchmarks;
+
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.indices.GetMappingResponse;
+import co.elastic.clients.elasticsearch.nodes.NodesStatsResponse;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response decoding throughput. Run with the GC profiler ({@code -prof gc}) to also get allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+
+    @Param({"JACKSON", "JSONB", "SIMPLE"})
+    public BenchmarkMapper mapper;
+
+    private JsonpMapper jsonpMapper;
+    private JsonpDeserializer<? extends SearchResponse<?>> searchDeserializer;
+
+    private byte[] searchResponse;
+    private byte[] bulkResponse;
+    private byte[] getMappingResponse;
+    private byte[] nodesStatsResponse;
+
+    @Setup
+    public void setup() {
+        jsonpMapper = mapper.create();
+        searchDeserializer = SearchResponse.createSearchResponseDeserializer(mapper.documentDeserializer());
+
+        searchResponse = Fixtures.load(Fixtures.SEARCH_RESPONSE);
+        bulkResponse = Fixtures.load(Fixtures.BULK_RESPONSE);
+        getMappingResponse = Fixtures.load(Fixtures.GET_MAPPING_RESPONSE);
+        nodesStatsResponse = Fixtures.load(Fixtures.NODES_STATS_RESPONSE);
+    }
+
+    /**
+     * 50 hits with their source documents, and typed-keys terms, date histogram, range and metric aggregations.
+     */
+    @Benchmark
+    public SearchResponse<?> searchResponse() {
+        return Fixtures.decode(searchResponse, searchDeserializer, jsonpMapper);
+    }
+
+    /**
+     * 1000 index, create and update items, some of them with errors.
+     */
+    @Benchmark
+    public BulkResponse bulkResponse() {
+        return Fixtures.decode(bulkResponse, BulkResponse._DESERIALIZER, jsonpMapper);
+    }
+
+    /**
+     * 20 indices with nested object mappings and multi-fields.
+     */
+    @Benchmark
+    public GetMappingResponse getMappingResponse() {
+        return Fixtures.decode(getMappingResponse, GetMappingResponse._DESERIALIZER, jsonpMapper);
+    }
+
+    /**
+     * 3 nodes with indices, OS, process, JVM, thread pool, file system, transport and circuit breaker stats.
+     */
+    @Benchmark
+    public NodesStatsResponse nodesStatsResponse() {
+        return Fixtures.decode(nodesStatsResponse, NodesStatsResponse._DESERIALIZER, jsonpMapper);
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.benchmarks;
+
+import co.elastic.clients.elasticsearch._helpers.SearchRequestTemplate;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch._types.aggregations.CalendarInterval;
+import co.elastic.clients.elasticsearch._types.query_dsl.Operator;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkOperation;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static co.elastic.clients.elasticsearch._helpers.SearchRequestTemplate.param;
+
+/**
+ * Request encoding throughput. Run with the GC profiler ({@code -prof gc}) to also get allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EncodeBenchmark {
+
+    @Param({"JACKSON", "JSONB", "SIMPLE"})
+    public BenchmarkMapper mapper;
+
+    @Param({"1000"})
+    public int bulkSize;
+
+    private JsonpMapper jsonpMapper;
+    private BulkRequest bulkRequest;
+    private SearchRequest searchRequest;
+    private SearchRequestTemplate searchTemplate;
+
+    // Reused, as transports would ideally do
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1024 * 1024);
+
+    @Setup
+    public void setup() {
+        jsonpMapper = mapper.create();
+
+        // Documents are the sources of the search response fixture
+        SearchResponse<Product> response = Fixtures.decode(
+            Fixtures.load(Fixtures.SEARCH_RESPONSE),
+            SearchResponse.createSearchResponseDeserializer(JsonpDeserializer.of(Product.class)),
+            BenchmarkMapper.JACKSON.create()
+        );
+        List<Hit<Product>> hits = response.hits().hits();
+
+        List<BulkOperation> operations = new ArrayList<>(bulkSize);
+        for (int i = 0; i < bulkSize; i++) {
+            Product product = hits.get(i % hits.size()).source();
+            Object document = mapper.document(product);
+            String id = product.getId() + "-" + i;
+            if (i % 5 == 4) {
+                operations.add(BulkOperation.of(o -> o.update(u -> u
+                    .index("products")
+                    .id(id)
+                    .action(a -> a.doc(document).docAsUpsert(true))
+                )));
+            } else {
+                operations.add(BulkOperation.of(o -> o.index(x -> x
+                    .index("products")
+                    .id(id)
+                    .document(document)
+                )));
+            }
+        }
+        bulkRequest = BulkRequest.of(b -> b.operations(operations));
+
+        searchRequest = searchRequest("lorem ipsum", 10, 400);
+        searchTemplate = SearchRequestTemplate.compile(
+            searchRequest(param("query"), param("minPrice"), param("maxPrice")), jsonpMapper
+        );
+    }
+
+    private static SearchRequest searchRequest(String query, Object minPrice, Object maxPrice) {
+        return SearchRequest.of(s -> s
+            .index("products-*")
+            .size(50)
+            .query(q -> q.bool(b -> b
+                .must(m -> m.multiMatch(mm -> mm
+                    .query(query)
+                    .fields("name^3", "description")
+                    .operator(Operator.And)
+                ))
+                .filter(f -> f.term(t -> t.field("inStock").value(true)))
+                .filter(f -> f.range(r -> r.field("price").gte(JsonData.of(minPrice)).lt(JsonData.of(maxPrice))))
+                .filter(f -> f.terms(t -> t.field("category").terms(v -> v.value(
+                    Arrays.asList(FieldValue.of("books"), FieldValue.of("music"))
+                ))))
+                .should(sh -> sh.match(m -> m.field("tags").query("dolor")))
+            ))
+            .sort(so -> so.field(f -> f.field("_score").order(SortOrder.Desc)))
+            .sort(so -> so.field(f -> f.field("created").order(SortOrder.Desc)))
+            .source(src -> src.filter(f -> f.includes("id", "name", "price", "category")))
+            .highlight(h -> h.fields("description", f -> f.numberOfFragments(2)))
+            .aggregations("categories", a -> a
+                .terms(t -> t.field("category").size(10))
+                .aggregations("avg_price", sub -> sub.avg(avg -> avg.field("price")))
+            )
+            .aggregations("per_month", a -> a
+                .dateHistogram(d -> d.field("created").calendarInterval(CalendarInterval.Month))
+                .aggregations("revenue", sub -> sub.sum(sum -> sum.field("price")))
+            )
+            .aggregations("price_stats", a -> a.stats(st -> st.field("price")))
+        );
+    }
+
+    @Benchmark
+    public int bulkRequest() {
+        out.reset();
+        Fixtures.encode(bulkRequest, jsonpMapper, out);
+        return out.size();
+    }
+
+    @Benchmark
+    public int searchRequest() {
+        out.reset();
+        Fixtures.encode(searchRequest, jsonpMapper, out);
+        return out.size();
+    }
+
+    /**
+     * Builds and encodes a search request, as is done when only parameter values change between requests.
+     */
+    @Benchmark
+    public int searchRequestBuilt() {
+        out.reset();
+        Fixtures.encode(searchRequest("lorem ipsum", 10, 400), jsonpMapper, out);
+        return out.size();
+    }
+
+    /**
+     * Same request as {@link #searchRequestBuilt()}, from a compiled template.
+     */
+    @Benchmark
+    public int searchRequestTemplate() {
+        return searchTemplate.body("lorem ipsum", 10, 400).length;
+    }
+}
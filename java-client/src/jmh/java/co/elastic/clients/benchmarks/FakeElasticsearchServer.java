@@ -0,0 +1,139 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.benchmarks;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An in-process HTTP server that mimics Elasticsearch with canned responses, to measure client overhead without a cluster.
+ * <p>
+ * The root path returns an info response, and all other paths return a search response whose body has approximately the
+ * configured size. Responses are sent after the configured latency, without blocking a server thread in the meantime so
+ * that latency doesn't limit concurrency.
+ */
+public class FakeElasticsearchServer implements AutoCloseable {
+
+    private static final String INFO = "{\"cluster_name\":\"benchmark\",\"cluster_uuid\":\"bar\",\"name\":\"node\",\"tagline\":"
+        + "\"You Know, for Search\",\"version\":{\"build_date\":\"2022-05-18T00:00:00Z\",\"build_flavor\":\"default\","
+        + "\"build_hash\":\"abc\",\"build_snapshot\":false,\"build_type\":\"docker\",\"lucene_version\":\"9.2.0\","
+        + "\"minimum_index_compatibility_version\":\"7.0.0\",\"minimum_wire_compatibility_version\":\"7.17.0\",\"number\":\"8.6.0\"}}";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService scheduler;
+    private final long latencyMillis;
+    private final byte[] info;
+    private final byte[] search;
+
+    /**
+     * @param latencyMillis the delay before responses are sent.
+     * @param responseBytes the approximate size of search responses.
+     */
+    public FakeElasticsearchServer(long latencyMillis, int responseBytes) throws IOException {
+        this.latencyMillis = latencyMillis;
+        this.info = INFO.getBytes(StandardCharsets.UTF_8);
+        this.search = searchResponse(responseBytes).getBytes(StandardCharsets.UTF_8);
+
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1000);
+        this.server.setExecutor(executor);
+        this.server.createContext("/", exchange -> {
+            // Consume the request body
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = exchange.getRequestURI().getPath().equals("/") ? info : search;
+            if (latencyMillis > 0) {
+                scheduler.schedule(() -> executor.execute(() -> respond(exchange, body)), latencyMillis, TimeUnit.MILLISECONDS);
+            } else {
+                respond(exchange, body);
+            }
+        });
+        this.server.start();
+    }
+
+    public String url() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    public long latencyMillis() {
+        return latencyMillis;
+    }
+
+    public int searchResponseBytes() {
+        return search.length;
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) {
+        try {
+            exchange.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (IOException e) {
+            // Client went away
+            exchange.close();
+        }
+    }
+
+    /**
+     * A search response with as many hits as needed to reach the requested size.
+     */
+    static String searchResponse(int responseBytes) {
+        StringBuilder hits = new StringBuilder();
+        int count = 0;
+        do {
+            if (count > 0) {
+                hits.append(',');
+            }
+            hits.append("{\"_index\":\"products\",\"_id\":\"p-").append(count).append("\",\"_score\":1.0,\"_source\":{")
+                .append("\"id\":\"p-").append(count).append("\",\"name\":\"Product ").append(count).append("\",")
+                .append("\"description\":\"Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor ")
+                .append("incididunt ut labore et dolore magna aliqua.\",\"price\":").append(10 + count % 90).append(".99,")
+                .append("\"category\":\"books\",\"tags\":[\"lorem\",\"ipsum\"],\"created\":\"2022-10-01T12:00:00Z\",")
+                .append("\"inStock\":true,\"rating\":4.5}}");
+            count++;
+        } while (hits.length() < responseBytes - 200);
+
+        return "{\"took\":1,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},"
+            + "\"hits\":{\"total\":{\"value\":" + count + ",\"relation\":\"eq\"},\"max_score\":1.0,\"hits\":[" + hits + "]}}";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+}
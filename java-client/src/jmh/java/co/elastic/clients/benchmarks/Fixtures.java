@@ -0,0 +1,101 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.benchmarks;
+
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.JsonpSerializable;
+import co.elastic.clients.json.NdJsonpSerializable;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonParser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+
+/**
+ * Loads the JSON fixtures of benchmarks, and reads and writes them the same way as transports do.
+ */
+public class Fixtures {
+
+    public static final String SEARCH_RESPONSE = "search-response.json";
+    public static final String BULK_RESPONSE = "bulk-response.json";
+    public static final String GET_MAPPING_RESPONSE = "get-mapping-response.json";
+    public static final String NODES_STATS_RESPONSE = "nodes-stats-response.json";
+
+    private Fixtures() {
+    }
+
+    public static byte[] load(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream(name)) {
+            if (in == null) {
+                throw new IllegalArgumentException("No fixture named '" + name + "'");
+            }
+            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int len;
+            while ((len = in.read(buffer)) > 0) {
+                baos.write(buffer, 0, len);
+            }
+            return baos.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static <T> T decode(byte[] json, JsonpDeserializer<T> deserializer, JsonpMapper mapper) {
+        try (JsonParser parser = mapper.jsonProvider().createParser(new ByteArrayInputStream(json))) {
+            return deserializer.deserialize(parser, mapper);
+        }
+    }
+
+    /**
+     * Encodes a request body, as done by {@code RestClientTransport}.
+     */
+    public static void encode(Object value, JsonpMapper mapper, ByteArrayOutputStream out) {
+        if (value instanceof NdJsonpSerializable) {
+            Iterator<?> values = ((NdJsonpSerializable) value)._serializables();
+            while (values.hasNext()) {
+                Object item = values.next();
+                if (item instanceof NdJsonpSerializable && item != value) {
+                    encode(item, mapper, out);
+                } else {
+                    writeJson(item, mapper, out);
+                    out.write('\n');
+                }
+            }
+        } else {
+            writeJson(value, mapper, out);
+        }
+    }
+
+    private static void writeJson(Object value, JsonpMapper mapper, ByteArrayOutputStream out) {
+        JsonGenerator generator = mapper.jsonProvider().createGenerator(out);
+        if (value instanceof JsonpSerializable) {
+            ((JsonpSerializable) value).serialize(generator, mapper);
+        } else {
+            mapper.serialize(value, generator);
+        }
+        generator.close();
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.benchmarks;
+
+import co.elastic.clients.elasticsearch._helpers.LazyAggregations;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of a dashboard-like search response with many terms aggregations, of which only a few are read, with eager and
+ * {@link LazyAggregations lazy} deserialization of aggregations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LazyAggregationsBenchmark {
+
+    @Param({"JACKSON"})
+    public BenchmarkMapper mapper;
+
+    @Param({"32"})
+    public int aggregations;
+
+    // Number of aggregations that are read
+    @Param({"3"})
+    public int read;
+
+    private JsonpMapper eagerMapper;
+    private JsonpMapper lazyMapper;
+    private JsonpDeserializer<SearchResponse<JsonData>> searchDeserializer;
+    private byte[] response;
+
+    @Setup
+    public void setup() {
+        eagerMapper = mapper.create();
+        lazyMapper = LazyAggregations.enable(eagerMapper);
+        searchDeserializer = SearchResponse.createSearchResponseDeserializer(JsonData._DESERIALIZER);
+
+        StringBuilder sb = new StringBuilder("{\"took\":12,\"timed_out\":false,")
+            .append("\"_shards\":{\"total\":1,\"successful\":1,\"skipped\":0,\"failed\":0},")
+            .append("\"hits\":{\"total\":{\"value\":10000,\"relation\":\"gte\"},\"max_score\":null,\"hits\":[]},")
+            .append("\"aggregations\":{");
+        for (int i = 0; i < aggregations; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("\"sterms#agg_").append(i).append("\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,")
+                .append("\"buckets\":[");
+            for (int j = 0; j < 50; j++) {
+                if (j > 0) {
+                    sb.append(',');
+                }
+                sb.append("{\"key\":\"term-").append(j).append("\",\"doc_count\":").append(1000 - j)
+                    .append(",\"avg#avg_price\":{\"value\":").append(j * 0.25).append("}}");
+            }
+            sb.append("]}");
+        }
+        sb.append("}}");
+        response = sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private long readAggregations(SearchResponse<JsonData> response) {
+        long result = 0;
+        for (int i = 0; i < read; i++) {
+            result += response.aggregations().get("agg_" + i).sterms().buckets().array().size();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public long eager() {
+        return readAggregations(Fixtures.decode(response, searchDeserializer, eagerMapper));
+    }
+
+    @Benchmark
+    public long lazy() {
+        return readAggregations(Fixtures.decode(response, searchDeserializer, lazyMapper));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.benchmarks;
+
+import co.elastic.clients.elasticsearch._helpers.SpecializedDeserializers;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of search and bulk responses with and without {@link SpecializedDeserializers}. Each parameter combination
+ * runs in its own fork, as specialized deserializers cannot be uninstalled.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecializedDecodeBenchmark {
+
+    @Param({"JACKSON"})
+    public BenchmarkMapper mapper;
+
+    @Param({"false", "true"})
+    public boolean specialized;
+
+    private JsonpMapper jsonpMapper;
+    private JsonpDeserializer<? extends SearchResponse<?>> searchDeserializer;
+
+    private byte[] searchResponse;
+    private byte[] bulkResponse;
+
+    @Setup
+    public void setup() {
+        // Must be done before deserializers are initialized
+        if (specialized) {
+            SpecializedDeserializers.install();
+        }
+
+        jsonpMapper = mapper.create();
+        searchDeserializer = SearchResponse.createSearchResponseDeserializer(mapper.documentDeserializer());
+
+        searchResponse = Fixtures.load(Fixtures.SEARCH_RESPONSE);
+        bulkResponse = Fixtures.load(Fixtures.BULK_RESPONSE);
+    }
+
+    @Benchmark
+    public SearchResponse<?> searchResponse() {
+        return Fixtures.decode(searchResponse, searchDeserializer, jsonpMapper);
+    }
+
+    @Benchmark
+    public BulkResponse bulkResponse() {
+        return Fixtures.decode(bulkResponse, BulkResponse._DESERIALIZER, jsonpMapper);
+    }
+}
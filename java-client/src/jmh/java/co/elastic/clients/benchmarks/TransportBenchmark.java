@@ -0,0 +1,127 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.benchmarks;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end requests through {@link RestClientTransport}, against a {@link FakeElasticsearchServer}. This measures the
+ * overhead of the client, from building the request to decoding the response.
+ * <p>
+ * Concurrency is the number of JMH threads, each one waiting for its response before sending the next request. Throughput
+ * mode gives requests per second, and sample time mode gives latency percentiles. {@link #main(String[])} runs the
+ * benchmarks at several concurrency levels.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class TransportBenchmark {
+
+    private static final int[] CONCURRENCY = {1, 16, 64};
+
+    @Param({"0", "5"})
+    public long latencyMillis;
+
+    @Param({"1024", "65536"})
+    public int responseBytes;
+
+    private FakeElasticsearchServer server;
+    private RestClient restClient;
+    private ElasticsearchClient client;
+    private ElasticsearchAsyncClient asyncClient;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        server = new FakeElasticsearchServer(latencyMillis, responseBytes);
+
+        // Don't let the connection pool limit concurrency
+        int maxConnections = CONCURRENCY[CONCURRENCY.length - 1] * 2;
+        restClient = RestClient.builder(HttpHost.create(server.url()))
+            .setHttpClientConfigCallback(hc -> hc.setMaxConnTotal(maxConnections).setMaxConnPerRoute(maxConnections))
+            .build();
+
+        RestClientTransport transport = new RestClientTransport(restClient, new JacksonJsonpMapper());
+        client = new ElasticsearchClient(transport);
+        asyncClient = new ElasticsearchAsyncClient(transport);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        restClient.close();
+        server.close();
+    }
+
+    @Benchmark
+    public SearchResponse<Product> sync() throws IOException {
+        return client.search(s -> s.index("products").size(100), Product.class);
+    }
+
+    @Benchmark
+    public SearchResponse<Product> async() throws Exception {
+        return asyncClient.search(s -> s.index("products").size(100), Product.class).get();
+    }
+
+    /**
+     * Runs the benchmarks with each concurrency level. Other JMH command line options are accepted, except for the
+     * number of threads.
+     */
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        for (int concurrency: CONCURRENCY) {
+            Options options = new OptionsBuilder()
+                .parent(commandLine)
+                .include(TransportBenchmark.class.getName())
+                .threads(concurrency)
+                .build();
+            new Runner(options).run();
+        }
+    }
+}
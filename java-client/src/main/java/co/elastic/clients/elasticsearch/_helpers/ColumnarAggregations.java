@@ -0,0 +1,482 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.elasticsearch._helpers;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ErrorResponse;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpDeserializerBase;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.JsonpMappingException;
+import co.elastic.clients.json.JsonpUtils;
+import co.elastic.clients.json.UnexpectedJsonEventException;
+import co.elastic.clients.transport.Endpoint;
+import co.elastic.clients.util.ObjectBuilder;
+import jakarta.json.stream.JsonParser;
+import jakarta.json.stream.JsonParser.Event;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * The aggregations of a search response, where bucket aggregations are decoded in columnar form.
+ * <p>
+ * Bucket aggregations with many buckets are costly to decode as API types, with an object per bucket and a map of
+ * sub-aggregations per bucket. The {@code lterms}, {@code dterms}, {@code sterms}, {@code histogram} and
+ * {@code date_histogram} aggregations are instead decoded here into arrays of keys, document counts and metric values,
+ * with one array element per bucket. Their sub-aggregations must be single-value metrics such as {@code avg},
+ * {@code sum}, {@code min}, {@code max}, {@code value_count} or {@code cardinality}.
+ * <p>
+ * Other aggregations are decoded as regular {@link Aggregate}s. Search hits are not decoded, and searches are therefore
+ * typically sent with a {@code size} of zero.
+ */
+public class ColumnarAggregations {
+
+    private static final Map<String, Aggregate.Kind> BUCKET_KINDS = new HashMap<>();
+
+    static {
+        for (Aggregate.Kind kind : EnumSet.of(
+            Aggregate.Kind.Lterms, Aggregate.Kind.Dterms, Aggregate.Kind.Sterms, Aggregate.Kind.Histogram, Aggregate.Kind.DateHistogram
+        )) {
+            BUCKET_KINDS.put(kind.jsonValue(), kind);
+        }
+    }
+
+    private final long took;
+    private final boolean timedOut;
+    private final Map<String, Buckets> buckets;
+    private final Map<String, Aggregate> aggregations;
+
+    private ColumnarAggregations(long took, boolean timedOut, Map<String, Buckets> buckets, Map<String, Aggregate> aggregations) {
+        this.took = took;
+        this.timedOut = timedOut;
+        this.buckets = Collections.unmodifiableMap(buckets);
+        this.aggregations = Collections.unmodifiableMap(aggregations);
+    }
+
+    /**
+     * Sends a search request and decodes its aggregations in columnar form.
+     */
+    public static ColumnarAggregations search(ElasticsearchClient client, SearchRequest request) throws IOException {
+        return client._transport().performRequest(request, ENDPOINT, client._transportOptions());
+    }
+
+    /**
+     * Sends a search request and decodes its aggregations in columnar form.
+     */
+    public static ColumnarAggregations search(
+        ElasticsearchClient client, Function<SearchRequest.Builder, ObjectBuilder<SearchRequest>> fn
+    ) throws IOException {
+        return search(client, fn.apply(new SearchRequest.Builder()).build());
+    }
+
+    /**
+     * Sends a search request and decodes its aggregations in columnar form.
+     */
+    public static CompletableFuture<ColumnarAggregations> search(ElasticsearchAsyncClient client, SearchRequest request) {
+        return client._transport().performRequestAsync(request, ENDPOINT, client._transportOptions());
+    }
+
+    /**
+     * Sends a search request and decodes its aggregations in columnar form.
+     */
+    public static CompletableFuture<ColumnarAggregations> search(
+        ElasticsearchAsyncClient client, Function<SearchRequest.Builder, ObjectBuilder<SearchRequest>> fn
+    ) {
+        return search(client, fn.apply(new SearchRequest.Builder()).build());
+    }
+
+    public long took() {
+        return took;
+    }
+
+    public boolean timedOut() {
+        return timedOut;
+    }
+
+    /**
+     * The bucket aggregations decoded in columnar form, by name.
+     */
+    public Map<String, Buckets> buckets() {
+        return buckets;
+    }
+
+    /**
+     * Get a bucket aggregation by name.
+     *
+     * @return the aggregation, or {@code null} if there is no bucket aggregation with this name.
+     */
+    @Nullable
+    public Buckets buckets(String name) {
+        return buckets.get(name);
+    }
+
+    /**
+     * The other aggregations, by name.
+     */
+    public Map<String, Aggregate> aggregations() {
+        return aggregations;
+    }
+
+    //----- Buckets
+
+    /**
+     * The buckets of an aggregation, in columns. All arrays have one element per bucket, in the order of the response.
+     */
+    public static class Buckets {
+        private final Aggregate.Kind kind;
+        private final int size;
+        private final long[] longKeys;
+        private final double[] doubleKeys;
+        private final String[] stringKeys;
+        private final long[] docCounts;
+        private final Map<String, double[]> metrics;
+
+        private Buckets(BucketsBuilder builder) {
+            int size = builder.size;
+            this.kind = builder.kind;
+            this.size = size;
+            this.longKeys = builder.longKeys == null ? null : Arrays.copyOf(builder.longKeys, size);
+            this.doubleKeys = builder.doubleKeys == null ? null : Arrays.copyOf(builder.doubleKeys, size);
+            this.stringKeys = builder.stringKeys == null ? null : Arrays.copyOf(builder.stringKeys, size);
+            this.docCounts = Arrays.copyOf(builder.docCounts, size);
+
+            Map<String, double[]> metrics = new LinkedHashMap<>();
+            for (Map.Entry<String, double[]> entry : builder.metrics.entrySet()) {
+                metrics.put(entry.getKey(), Arrays.copyOf(entry.getValue(), size));
+            }
+            this.metrics = Collections.unmodifiableMap(metrics);
+        }
+
+        /**
+         * The kind of this aggregation, e.g. {@link Aggregate.Kind#DateHistogram}.
+         */
+        public Aggregate.Kind kind() {
+            return kind;
+        }
+
+        /**
+         * The number of buckets.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * The bucket keys of {@code lterms} and {@code date_histogram} aggregations, or {@code null} for other kinds.
+         * Date histogram keys are milliseconds since the epoch.
+         */
+        @Nullable
+        public long[] longKeys() {
+            return longKeys;
+        }
+
+        /**
+         * The bucket keys of {@code dterms} and {@code histogram} aggregations, or {@code null} for other kinds.
+         */
+        @Nullable
+        public double[] doubleKeys() {
+            return doubleKeys;
+        }
+
+        /**
+         * The bucket keys of {@code sterms} aggregations, or {@code null} for other kinds.
+         */
+        @Nullable
+        public String[] stringKeys() {
+            return stringKeys;
+        }
+
+        /**
+         * The document count of each bucket.
+         */
+        public long[] docCounts() {
+            return docCounts;
+        }
+
+        /**
+         * The values of the single-value metric sub-aggregations, by name. Missing values are {@code NaN}.
+         */
+        public Map<String, double[]> metrics() {
+            return metrics;
+        }
+
+        /**
+         * Get the values of a metric sub-aggregation by name.
+         *
+         * @return the values, or {@code null} if there is no sub-aggregation with this name.
+         */
+        @Nullable
+        public double[] metric(String name) {
+            return metrics.get(name);
+        }
+    }
+
+    private static class BucketsBuilder {
+        final Aggregate.Kind kind;
+        int size = 0;
+        long[] longKeys;
+        double[] doubleKeys;
+        String[] stringKeys;
+        long[] docCounts = new long[16];
+        final Map<String, double[]> metrics = new LinkedHashMap<>();
+
+        BucketsBuilder(Aggregate.Kind kind) {
+            this.kind = kind;
+            switch (kind) {
+                case Lterms:
+                case DateHistogram:
+                    longKeys = new long[16];
+                    break;
+                case Dterms:
+                case Histogram:
+                    doubleKeys = new double[16];
+                    break;
+                default:
+                    stringKeys = new String[16];
+                    break;
+            }
+        }
+
+        /**
+         * Adds a bucket, growing arrays if needed.
+         */
+        void addBucket() {
+            if (size == docCounts.length) {
+                int capacity = size * 2;
+                docCounts = Arrays.copyOf(docCounts, capacity);
+                if (longKeys != null) {
+                    longKeys = Arrays.copyOf(longKeys, capacity);
+                }
+                if (doubleKeys != null) {
+                    doubleKeys = Arrays.copyOf(doubleKeys, capacity);
+                }
+                if (stringKeys != null) {
+                    stringKeys = Arrays.copyOf(stringKeys, capacity);
+                }
+                for (Map.Entry<String, double[]> entry : metrics.entrySet()) {
+                    entry.setValue(grow(entry.getValue(), capacity));
+                }
+            }
+            size++;
+        }
+
+        /**
+         * The values of a metric, created on first use with {@code NaN} for the previous buckets.
+         */
+        double[] metric(String name) {
+            double[] values = metrics.get(name);
+            if (values == null) {
+                values = new double[docCounts.length];
+                Arrays.fill(values, Double.NaN);
+                metrics.put(name, values);
+            }
+            return values;
+        }
+
+        private static double[] grow(double[] values, int capacity) {
+            int length = values.length;
+            double[] result = Arrays.copyOf(values, capacity);
+            Arrays.fill(result, length, capacity, Double.NaN);
+            return result;
+        }
+    }
+
+    //----- Deserialization
+
+    /**
+     * Search endpoint that decodes aggregations in columnar form.
+     */
+    static final Endpoint<SearchRequest, ColumnarAggregations, ErrorResponse> ENDPOINT;
+
+    public static final JsonpDeserializer<ColumnarAggregations> _DESERIALIZER = new JsonpDeserializerBase<ColumnarAggregations>(
+        EnumSet.of(Event.START_OBJECT)
+    ) {
+        @Override
+        public ColumnarAggregations deserialize(JsonParser parser, JsonpMapper mapper, Event event) {
+            long took = 0;
+            boolean timedOut = false;
+            Map<String, Buckets> buckets = new LinkedHashMap<>();
+            Map<String, Aggregate> aggregations = new HashMap<>();
+
+            while ((event = parser.next()) != Event.END_OBJECT) {
+                String key = JsonpUtils.expectKeyName(parser, event);
+                switch (key) {
+                    case "took":
+                        JsonpUtils.expectNextEvent(parser, Event.VALUE_NUMBER);
+                        took = parser.getLong();
+                        break;
+                    case "timed_out":
+                        timedOut = parser.next() == Event.VALUE_TRUE;
+                        break;
+                    case "aggregations":
+                        JsonpUtils.expectNextEvent(parser, Event.START_OBJECT);
+                        deserializeAggregations(parser, mapper, buckets, aggregations);
+                        break;
+                    default:
+                        JsonpUtils.skipValue(parser);
+                        break;
+                }
+            }
+
+            return new ColumnarAggregations(took, timedOut, buckets, aggregations);
+        }
+    };
+
+    static {
+        ENDPOINT = SearchRequest._ENDPOINT.withResponseDeserializer(_DESERIALIZER);
+    }
+
+    private static void deserializeAggregations(
+        JsonParser parser, JsonpMapper mapper, Map<String, Buckets> buckets, Map<String, Aggregate> aggregations
+    ) {
+        Event event;
+        while ((event = parser.next()) != Event.END_OBJECT) {
+            String key = JsonpUtils.expectKeyName(parser, event);
+            int hashPos = key.indexOf('#');
+            Aggregate.Kind kind = hashPos == -1 ? null : BUCKET_KINDS.get(key.substring(0, hashPos));
+            if (kind == null) {
+                // Also fails with a meaningful message if typed keys are missing
+                Aggregate._TYPED_KEYS_DESERIALIZER.deserializeEntry(key, parser, mapper, aggregations);
+                continue;
+            }
+
+            String name = key.substring(hashPos + 1);
+            try {
+                buckets.put(name, deserializeBuckets(kind, parser));
+            } catch (Exception e) {
+                throw JsonpMappingException.from(e, null, name, parser);
+            }
+        }
+    }
+
+    private static Buckets deserializeBuckets(Aggregate.Kind kind, JsonParser parser) {
+        BucketsBuilder builder = new BucketsBuilder(kind);
+
+        JsonpUtils.expectNextEvent(parser, Event.START_OBJECT);
+        Event event;
+        while ((event = parser.next()) != Event.END_OBJECT) {
+            String key = JsonpUtils.expectKeyName(parser, event);
+            if (!key.equals("buckets")) {
+                JsonpUtils.skipValue(parser);
+                continue;
+            }
+
+            event = parser.next();
+            if (event == Event.START_ARRAY) {
+                while ((event = parser.next()) != Event.END_ARRAY) {
+                    JsonpUtils.expectEvent(parser, Event.START_OBJECT, event);
+                    deserializeBucket(builder, parser);
+                }
+            } else if (event == Event.START_OBJECT) {
+                // Keyed buckets: bucket objects also contain their key
+                while ((event = parser.next()) != Event.END_OBJECT) {
+                    JsonpUtils.expectKeyName(parser, event);
+                    JsonpUtils.expectNextEvent(parser, Event.START_OBJECT);
+                    deserializeBucket(builder, parser);
+                }
+            } else {
+                throw new UnexpectedJsonEventException(parser, event, EnumSet.of(Event.START_ARRAY, Event.START_OBJECT));
+            }
+        }
+
+        return new Buckets(builder);
+    }
+
+    private static void deserializeBucket(BucketsBuilder builder, JsonParser parser) {
+        builder.addBucket();
+        int idx = builder.size - 1;
+
+        Event event;
+        while ((event = parser.next()) != Event.END_OBJECT) {
+            String key = JsonpUtils.expectKeyName(parser, event);
+            switch (key) {
+                case "key":
+                    event = parser.next();
+                    if (builder.longKeys != null) {
+                        JsonpUtils.expectEvent(parser, Event.VALUE_NUMBER, event);
+                        builder.longKeys[idx] = parser.getLong();
+                    } else if (builder.doubleKeys != null) {
+                        JsonpUtils.expectEvent(parser, Event.VALUE_NUMBER, event);
+                        builder.doubleKeys[idx] = parser.getBigDecimal().doubleValue();
+                    } else {
+                        builder.stringKeys[idx] = parser.getString();
+                    }
+                    break;
+                case "doc_count":
+                    JsonpUtils.expectNextEvent(parser, Event.VALUE_NUMBER);
+                    builder.docCounts[idx] = parser.getLong();
+                    break;
+                default:
+                    int hashPos = key.indexOf('#');
+                    if (hashPos == -1) {
+                        // key_as_string, doc_count_error_upper_bound, etc.
+                        JsonpUtils.skipValue(parser);
+                    } else {
+                        String name = key.substring(hashPos + 1);
+                        builder.metric(name)[idx] = deserializeMetric(name, parser);
+                    }
+                    break;
+            }
+        }
+    }
+
+    private static double deserializeMetric(String name, JsonParser parser) {
+        JsonpUtils.expectNextEvent(parser, Event.START_OBJECT);
+
+        boolean found = false;
+        double value = Double.NaN;
+        Event event;
+        while ((event = parser.next()) != Event.END_OBJECT) {
+            String key = JsonpUtils.expectKeyName(parser, event);
+            if (!key.equals("value")) {
+                JsonpUtils.skipValue(parser);
+                continue;
+            }
+
+            event = parser.next();
+            if (event == Event.VALUE_NUMBER) {
+                value = parser.getBigDecimal().doubleValue();
+            } else if (event != Event.VALUE_NULL) {
+                throw new UnexpectedJsonEventException(parser, event, EnumSet.of(Event.VALUE_NUMBER, Event.VALUE_NULL));
+            }
+            found = true;
+        }
+
+        if (!found) {
+            throw new JsonpMappingException(
+                "Sub-aggregation '" + name + "' is not a single-value metric and cannot be decoded in columnar form",
+                parser.getLocation()
+            );
+        }
+        return value;
+    }
+}
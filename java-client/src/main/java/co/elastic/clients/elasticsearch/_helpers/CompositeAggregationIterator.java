@@ -0,0 +1,315 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.elasticsearch._helpers;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ErrorResponse;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregation;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeBucket;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.JsonpUtils;
+import co.elastic.clients.transport.ElasticsearchTransport;
+import co.elastic.clients.transport.JsonEndpoint;
+import co.elastic.clients.transport.TransportOptions;
+import co.elastic.clients.transport.endpoints.DelegatingJsonEndpoint;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.stream.JsonParser;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Iterates on all the buckets of a composite aggregation, across pages.
+ * <p>
+ * Each page is requested with the {@code after_key} of the previous page. The request for the next page is sent as soon as
+ * a page is received, so that the network round trip overlaps with the consumption of the current page. Pages are
+ * requested with a {@code size} of zero, as search hits are not needed, and without the other aggregations of the request.
+ * <p>
+ * Errors are thrown by {@link #hasNext()}: {@link IOException}s are wrapped in an {@link UncheckedIOException}, and
+ * other failures, such as {@link co.elastic.clients.elasticsearch._types.ElasticsearchException}, are rethrown as is.
+ * Iterators that are not consumed until the end should be closed to cancel the pending request, if any.
+ */
+public class CompositeAggregationIterator implements Iterator<CompositeBucket>, AutoCloseable {
+
+    private final ElasticsearchTransport transport;
+    @Nullable
+    private final TransportOptions transportOptions;
+    private final JsonEndpoint<SearchRequest, SearchResponse<JsonData>, ErrorResponse> endpoint;
+    private final String aggregationName;
+    private final Aggregation aggregation;
+    private final CompositeAggregation composite;
+    // Replays the original request body, without its aggregations
+    private final Supplier<JsonParser> base;
+
+    private Iterator<CompositeBucket> buckets = Collections.emptyIterator();
+    @Nullable
+    private CompletableFuture<SearchResponse<JsonData>> nextPage;
+    @Nullable
+    private Map<String, FieldValue> afterKey;
+    private int pages = 0;
+
+    private CompositeAggregationIterator(
+        ElasticsearchTransport transport, @Nullable TransportOptions transportOptions, SearchRequest request, String aggregationName
+    ) {
+        Aggregation aggregation = request.aggregations().get(aggregationName);
+        if (aggregation == null) {
+            throw new IllegalArgumentException("Search request has no aggregation named '" + aggregationName + "'");
+        }
+        if (!aggregation.isComposite()) {
+            throw new IllegalArgumentException(
+                "Aggregation '" + aggregationName + "' is a '" + aggregation._kind().jsonValue() + "' aggregation, not a composite one"
+            );
+        }
+
+        this.transport = transport;
+        this.transportOptions = transportOptions;
+        this.endpoint = new PageEndpoint(request);
+        this.aggregationName = aggregationName;
+        this.aggregation = aggregation;
+        this.composite = aggregation.composite();
+        this.base = base(request, transport.jsonpMapper());
+        this.afterKey = composite.after().isEmpty() ? null : composite.after();
+
+        this.nextPage = fetch(afterKey);
+    }
+
+    /**
+     * Iterates on all the buckets of the composite aggregation {@code aggregationName} of a search request. The first page
+     * is requested immediately.
+     */
+    public static CompositeAggregationIterator of(ElasticsearchAsyncClient client, SearchRequest request, String aggregationName) {
+        return new CompositeAggregationIterator(client._transport(), client._transportOptions(), request, aggregationName);
+    }
+
+    /**
+     * Iterates on all the buckets of the composite aggregation {@code aggregationName} of a search request. The first page
+     * is requested immediately.
+     */
+    public static CompositeAggregationIterator of(ElasticsearchClient client, SearchRequest request, String aggregationName) {
+        return new CompositeAggregationIterator(client._transport(), client._transportOptions(), request, aggregationName);
+    }
+
+    /**
+     * A stream of all the buckets of the composite aggregation {@code aggregationName} of a search request. Closing the
+     * stream cancels the pending request, if any.
+     */
+    public static Stream<CompositeBucket> stream(ElasticsearchAsyncClient client, SearchRequest request, String aggregationName) {
+        return stream(of(client, request, aggregationName));
+    }
+
+    /**
+     * A stream of all the buckets of the composite aggregation {@code aggregationName} of a search request. Closing the
+     * stream cancels the pending request, if any.
+     */
+    public static Stream<CompositeBucket> stream(ElasticsearchClient client, SearchRequest request, String aggregationName) {
+        return stream(of(client, request, aggregationName));
+    }
+
+    private static Stream<CompositeBucket> stream(CompositeAggregationIterator iterator) {
+        Spliterator<CompositeBucket> spliterator = Spliterators.spliteratorUnknownSize(
+            iterator, Spliterator.ORDERED | Spliterator.NONNULL
+        );
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!buckets.hasNext()) {
+            if (nextPage == null) {
+                return false;
+            }
+
+            SearchResponse<JsonData> response = join(nextPage);
+            pages++;
+
+            Aggregate aggregate = response.aggregations().get(aggregationName);
+            CompositeAggregate page = aggregate == null ? null : aggregate.composite();
+            if (page == null || page.buckets().array().isEmpty() || page.afterKey().isEmpty()) {
+                // Last page
+                nextPage = null;
+            } else {
+                afterKey = page.afterKey();
+                nextPage = fetch(afterKey);
+            }
+
+            if (page != null) {
+                buckets = page.buckets().array().iterator();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public CompositeBucket next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return buckets.next();
+    }
+
+    /**
+     * The number of pages received so far.
+     */
+    public int pages() {
+        return pages;
+    }
+
+    /**
+     * The {@code after_key} of the last page received, where the next page starts. Resuming from it later skips the
+     * buckets of that page that have not been consumed yet.
+     */
+    @Nullable
+    public Map<String, FieldValue> afterKey() {
+        return afterKey;
+    }
+
+    /**
+     * Cancels the pending request, if any, and ends the iteration.
+     */
+    @Override
+    public void close() {
+        if (nextPage != null) {
+            nextPage.cancel(false);
+            nextPage = null;
+        }
+        buckets = Collections.emptyIterator();
+    }
+
+    //----- Pages
+
+    /**
+     * The body of the original request without its aggregations, parsed once and replayed for each page. The other
+     * aggregations of the request are computed on the same documents for every page, and their results are not used.
+     */
+    private static Supplier<JsonParser> base(SearchRequest request, JsonpMapper mapper) {
+        JsonObject body;
+        try (JsonReader reader = JsonpUtils.provider().createReader(new StringReader(JsonpUtils.toJsonString(request, mapper)))) {
+            body = reader.readObject();
+        }
+        String json = JsonpUtils.provider().createObjectBuilder(body).remove("aggregations").build().toString();
+
+        try (JsonParser parser = mapper.jsonProvider().createParser(new StringReader(json))) {
+            return JsonpUtils.bufferValue(parser, mapper);
+        }
+    }
+
+    private CompletableFuture<SearchResponse<JsonData>> fetch(@Nullable Map<String, FieldValue> after) {
+        JsonpMapper mapper = transport.jsonpMapper();
+        SearchRequest.Builder builder = new SearchRequest.Builder();
+        try (JsonParser parser = base.get()) {
+            builder.withJson(parser, mapper);
+        }
+
+        SearchRequest page = builder
+            .size(0)
+            .aggregations(aggregationName, a -> a
+                .aggregations(aggregation.aggregations())
+                .meta(aggregation.meta())
+                .composite(c -> {
+                    c.sources(composite.sources()).size(composite.size());
+                    if (after != null) {
+                        c.after(after);
+                    }
+                    return c;
+                })
+            )
+            .build();
+
+        try {
+            return transport.performRequestAsync(page, endpoint, transportOptions);
+        } catch (Exception e) {
+            CompletableFuture<SearchResponse<JsonData>> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException) cause);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * The search endpoint, with the path and query parameters of the original request, as they are not part of the body
+     * that page requests are created from.
+     */
+    private static class PageEndpoint extends DelegatingJsonEndpoint<SearchRequest, SearchResponse<JsonData>, ErrorResponse> {
+        private final SearchRequest request;
+
+        @SuppressWarnings("unchecked")
+        PageEndpoint(SearchRequest request) {
+            super((JsonEndpoint<SearchRequest, SearchResponse<JsonData>, ErrorResponse>)
+                SearchRequest.createSearchEndpoint(JsonData._DESERIALIZER));
+            this.request = request;
+        }
+
+        @Override
+        public String method(SearchRequest page) {
+            return endpoint.method(request);
+        }
+
+        @Override
+        public String requestUrl(SearchRequest page) {
+            return endpoint.requestUrl(request);
+        }
+
+        @Override
+        public Map<String, String> queryParameters(SearchRequest page) {
+            return endpoint.queryParameters(request);
+        }
+
+        @Override
+        public Map<String, String> headers(SearchRequest page) {
+            return endpoint.headers(request);
+        }
+    }
+}
@@ -0,0 +1,430 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.elasticsearch._helpers;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.ErrorResponse;
+import co.elastic.clients.elasticsearch.core.GetResponse;
+import co.elastic.clients.elasticsearch.core.MgetRequest;
+import co.elastic.clients.elasticsearch.core.MgetResponse;
+import co.elastic.clients.elasticsearch.core.get.GetResult;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetError;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetOperation;
+import co.elastic.clients.elasticsearch.core.mget.MultiGetResponseItem;
+import co.elastic.clients.transport.TransportException;
+import co.elastic.clients.transport.TransportScheduler;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Loads documents by id, grouping the lookups that happen within a short time window into multi-get requests.
+ * <p>
+ * This allows application code to load documents one at a time from many places, e.g. while resolving the references of
+ * a graph of objects, and still fetch them with a few {@code _mget} requests instead of one {@code get} request per
+ * document. Lookups for the same document within a batch are sent once, and share the same future.
+ * <p>
+ * Documents that are not found complete with a response where {@link GetResponse#found()} is {@code false}. Errors
+ * reported for a document complete its future with an {@link ElasticsearchException}.
+ * <p>
+ * If caching is enabled, the responses of successful lookups are kept for the lifetime of the loader, which should then
+ * be short, e.g. the processing of an application request.
+ */
+public class DocumentLoader<TDocument> implements AutoCloseable {
+
+    private static final String ENDPOINT_ID = "es/mget";
+
+    private final ElasticsearchAsyncClient client;
+    private final Class<TDocument> tDocumentClass;
+    private final int maxBatchSize;
+    private final long maxDelayNanos;
+    private final boolean cache;
+    @Nullable
+    private final Executor executor;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<DocumentId, CompletableFuture<GetResponse<TDocument>>> cached = new HashMap<>();
+    private Batch<TDocument> batch;
+    private boolean closed = false;
+
+    private DocumentLoader(Builder<TDocument> builder) {
+        if (builder.client == null) {
+            throw new IllegalArgumentException("A client is required");
+        }
+        if (builder.documentClass == null) {
+            throw new IllegalArgumentException("A document class is required");
+        }
+        if (builder.maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be greater than zero");
+        }
+        if (builder.maxDelay.isNegative()) {
+            throw new IllegalArgumentException("Max delay must be positive");
+        }
+        this.client = builder.client;
+        this.tDocumentClass = builder.documentClass;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.maxDelayNanos = builder.maxDelay.toNanos();
+        this.cache = builder.cache;
+        this.executor = builder.executor;
+    }
+
+    /**
+     * Adds a document to the current batch, unless it is already part of it or is in the cache.
+     *
+     * @throws IllegalStateException if this loader is closed.
+     */
+    public CompletableFuture<GetResponse<TDocument>> get(String index, String id) {
+        DocumentId key = new DocumentId(Objects.requireNonNull(index, "index"), Objects.requireNonNull(id, "id"));
+        Batch<TDocument> full = null;
+        CompletableFuture<GetResponse<TDocument>> future;
+
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Document loader is closed");
+            }
+
+            future = cached.get(key);
+            if (future != null) {
+                return future;
+            }
+
+            if (batch == null) {
+                Batch<TDocument> newBatch = new Batch<>();
+                batch = newBatch;
+                batch.timer = schedule(() -> flush(newBatch));
+            }
+
+            future = batch.futures.get(key);
+            if (future != null) {
+                return future;
+            }
+
+            future = new CompletableFuture<>();
+            batch.futures.put(key, future);
+            if (cache) {
+                cached.put(key, future);
+            }
+
+            if (batch.futures.size() >= maxBatchSize) {
+                batch.timer.cancel(false);
+                full = batch;
+                batch = null;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (full != null) {
+            send(full);
+        }
+
+        return future;
+    }
+
+    /**
+     * Sends the current batch without waiting for its time window to expire.
+     */
+    public void flush() {
+        Batch<TDocument> pending;
+        lock.lock();
+        try {
+            pending = batch;
+            batch = null;
+        } finally {
+            lock.unlock();
+        }
+
+        if (pending != null) {
+            pending.timer.cancel(false);
+            send(pending);
+        }
+    }
+
+    /**
+     * Removes a document from the cache, so that it is fetched again by the next lookup.
+     */
+    public void forget(String index, String id) {
+        lock.lock();
+        try {
+            cached.remove(new DocumentId(index, id));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes all documents from the cache.
+     */
+    public void forgetAll() {
+        lock.lock();
+        try {
+            cached.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the current batch and clears the cache. Lookups performed after this loader is closed are rejected.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+            cached.clear();
+        } finally {
+            lock.unlock();
+        }
+        flush();
+    }
+
+    //----- Batches
+
+    private static final class DocumentId {
+        final String index;
+        final String id;
+
+        DocumentId(String index, String id) {
+            this.index = index;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof DocumentId)) return false;
+            DocumentId that = (DocumentId) o;
+            return index.equals(that.index) && id.equals(that.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * index.hashCode() + id.hashCode();
+        }
+    }
+
+    private static class Batch<TDocument> {
+        // Insertion-ordered, as mget responses are in the same order as the requested documents
+        final LinkedHashMap<DocumentId, CompletableFuture<GetResponse<TDocument>>> futures = new LinkedHashMap<>();
+        ScheduledFuture<?> timer;
+    }
+
+    private ScheduledFuture<?> schedule(Runnable task) {
+        // Batches are sent from the executor, never from the scheduler thread that is shared by all timers
+        if (executor == null) {
+            return TransportScheduler.schedule(task, maxDelayNanos, TimeUnit.NANOSECONDS);
+        }
+        return TransportScheduler.schedule(task, maxDelayNanos, TimeUnit.NANOSECONDS, executor);
+    }
+
+    private void flush(Batch<TDocument> expired) {
+        lock.lock();
+        try {
+            // May have been sent in the meantime because it was full
+            if (batch != expired) {
+                return;
+            }
+            batch = null;
+        } finally {
+            lock.unlock();
+        }
+        send(expired);
+    }
+
+    private void send(Batch<TDocument> batch) {
+        List<DocumentId> keys = new ArrayList<>(batch.futures.keySet());
+        List<MultiGetOperation> docs = new ArrayList<>(keys.size());
+        for (DocumentId key : keys) {
+            docs.add(MultiGetOperation.of(d -> d.index(key.index).id(key.id)));
+        }
+
+        CompletableFuture<MgetResponse<TDocument>> mget;
+        try {
+            mget = client.mget(MgetRequest.of(m -> m.docs(docs)), tDocumentClass);
+        } catch (Exception e) {
+            keys.forEach(key -> fail(key, batch.futures.get(key), e));
+            return;
+        }
+
+        mget.whenComplete((response, failure) -> {
+            if (failure != null) {
+                keys.forEach(key -> fail(key, batch.futures.get(key), failure));
+                return;
+            }
+
+            List<MultiGetResponseItem<TDocument>> items = response.docs();
+            for (int i = 0; i < keys.size(); i++) {
+                DocumentId key = keys.get(i);
+                CompletableFuture<GetResponse<TDocument>> future = batch.futures.get(key);
+                if (i >= items.size()) {
+                    fail(key, future, new TransportException(
+                        "Multi-get returned " + items.size() + " documents for " + keys.size() + " requested",
+                        ENDPOINT_ID
+                    ));
+                    continue;
+                }
+
+                MultiGetResponseItem<TDocument> item = items.get(i);
+                if (item.isFailure()) {
+                    fail(key, future, toException(item.failure()));
+                } else {
+                    future.complete(toGetResponse(item.result()));
+                }
+            }
+        });
+    }
+
+    private void fail(DocumentId key, CompletableFuture<GetResponse<TDocument>> future, Throwable failure) {
+        // Don't cache failures, so that the next lookup can retry
+        lock.lock();
+        try {
+            cached.remove(key, future);
+        } finally {
+            lock.unlock();
+        }
+        future.completeExceptionally(failure);
+    }
+
+    //----- Conversions between get and multi-get
+
+    static ElasticsearchException toException(MultiGetError error) {
+        return new ElasticsearchException(ENDPOINT_ID, ErrorResponse.of(r -> r.error(error.error()).status(status(error))));
+    }
+
+    /**
+     * Multi-get errors have no status code: use the status Elasticsearch returns for this error type on a single get request,
+     * and 500 for unknown types.
+     */
+    private static int status(MultiGetError error) {
+        switch (error.error().type()) {
+            case "action_request_validation_exception":
+            case "illegal_argument_exception":
+            case "routing_missing_exception":
+                return 400;
+            case "security_exception":
+                return 403;
+            case "index_not_found_exception":
+                return 404;
+            case "version_conflict_engine_exception":
+                return 409;
+            case "circuit_breaking_exception":
+            case "es_rejected_execution_exception":
+                return 429;
+            case "no_shard_available_action_exception":
+            case "unavailable_shards_exception":
+                return 503;
+            default:
+                return 500;
+        }
+    }
+
+    static <TDocument> GetResponse<TDocument> toGetResponse(GetResult<TDocument> result) {
+        return GetResponse.of(r -> r
+            .index(result.index())
+            .fields(result.fields())
+            .found(result.found())
+            .id(result.id())
+            .primaryTerm(result.primaryTerm())
+            .routing(result.routing())
+            .seqNo(result.seqNo())
+            .source(result.source())
+            .version(result.version())
+        );
+    }
+
+    //----- Builder
+
+    public static class Builder<TDocument> {
+        private ElasticsearchAsyncClient client;
+        private Class<TDocument> documentClass;
+        private int maxBatchSize = 100;
+        private Duration maxDelay = Duration.ofMillis(1);
+        private boolean cache = false;
+        private Executor executor;
+
+        /**
+         * The client used to send requests. Required.
+         */
+        public Builder<TDocument> client(ElasticsearchAsyncClient client) {
+            this.client = client;
+            return this;
+        }
+
+        /**
+         * The class documents are deserialized to. Required.
+         */
+        public Builder<TDocument> documentClass(Class<TDocument> documentClass) {
+            this.documentClass = documentClass;
+            return this;
+        }
+
+        /**
+         * The maximum number of documents in a batch. A batch is sent as soon as it is full. Defaults to 100.
+         */
+        public Builder<TDocument> maxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * The time window during which lookups are collected, starting with the first lookup of a batch. A zero duration
+         * sends a batch as soon as its timer fires. Defaults to 1 millisecond.
+         */
+        public Builder<TDocument> maxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * Should the responses of successful lookups be cached by the loader? Defaults to {@code false}.
+         */
+        public Builder<TDocument> cache(boolean cache) {
+            this.cache = cache;
+            return this;
+        }
+
+        /**
+         * The executor used to send batches when their time window expires. Full batches are sent by the thread that
+         * adds their last lookup. Defaults to the default asynchronous executor of {@link CompletableFuture}.
+         */
+        public Builder<TDocument> executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public DocumentLoader<TDocument> build() {
+            return new DocumentLoader<>(this);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.elasticsearch._helpers;
+
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch.async_search.AsyncSearch;
+import co.elastic.clients.elasticsearch.core.ScrollResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.SearchTemplateResponse;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchItem;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.ObjectDeserializer;
+import jakarta.json.stream.JsonParser;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lazy deserialization of the aggregations of search responses.
+ * <p>
+ * Aggregation results are usually the largest part of the responses of dashboard-like searches, where each widget only
+ * reads a few of them. With lazy deserialization, the {@code aggregations} of search, scroll, multi-search, search template
+ * and async search responses are buffered when the response is parsed, and each aggregation is deserialized when it is
+ * first read from the {@code aggregations} map. Aggregations are buffered in the event representation of the streaming
+ * library when using a {@link co.elastic.clients.json.jackson.JacksonJsonpMapper}, and as JSON text otherwise.
+ * <p>
+ * Lazy deserialization is enabled for the mappers returned by {@link #enable(JsonpMapper)}, that should be used to create
+ * the client's transport. Note that errors in aggregation results are then thrown when they are read rather than when the
+ * response is parsed, and that buffers are kept as long as the response is referenced.
+ */
+public class LazyAggregations {
+
+    /**
+     * Name of the mapper attribute that enables lazy deserialization of aggregations.
+     */
+    public static final String ENABLED = LazyAggregations.class.getName() + ":ENABLED";
+
+    private static final AtomicBoolean installed = new AtomicBoolean();
+
+    private static final JsonpDeserializer<Map<String, Aggregate>> AGGREGATIONS = Aggregate._TYPED_KEYS_DESERIALIZER.lazy();
+
+    private LazyAggregations() {
+    }
+
+    /**
+     * Returns a mapper that deserializes aggregations lazily.
+     */
+    public static JsonpMapper enable(JsonpMapper mapper) {
+        install();
+        return mapper.withAttribute(ENABLED, true);
+    }
+
+    /**
+     * Installs the field switches that deserialize aggregations lazily for mappers where the {@link #ENABLED} attribute is
+     * {@code true}. Subsequent calls have no effect.
+     */
+    public static void install() {
+        if (!installed.compareAndSet(false, true)) {
+            return;
+        }
+
+        ObjectDeserializer.registerFieldSwitch(SearchResponse.Builder.class, LazyAggregations::searchResponse);
+        ObjectDeserializer.registerFieldSwitch(ScrollResponse.Builder.class, LazyAggregations::scrollResponse);
+        ObjectDeserializer.registerFieldSwitch(MultiSearchItem.Builder.class, LazyAggregations::multiSearchItem);
+        ObjectDeserializer.registerFieldSwitch(SearchTemplateResponse.Builder.class, LazyAggregations::searchTemplateResponse);
+        ObjectDeserializer.registerFieldSwitch(AsyncSearch.Builder.class, LazyAggregations::asyncSearch);
+    }
+
+    private static boolean isLazy(String name, JsonpMapper mapper) {
+        return "aggregations".equals(name) && mapper.attribute(ENABLED, false);
+    }
+
+    private static boolean searchResponse(String name, SearchResponse.Builder<?> b, JsonParser parser, JsonpMapper mapper) {
+        if (isLazy(name, mapper)) {
+            b.aggregations(AGGREGATIONS.deserialize(parser, mapper));
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean scrollResponse(String name, ScrollResponse.Builder<?> b, JsonParser parser, JsonpMapper mapper) {
+        if (isLazy(name, mapper)) {
+            b.aggregations(AGGREGATIONS.deserialize(parser, mapper));
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean multiSearchItem(String name, MultiSearchItem.Builder<?> b, JsonParser parser, JsonpMapper mapper) {
+        if (isLazy(name, mapper)) {
+            b.aggregations(AGGREGATIONS.deserialize(parser, mapper));
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean searchTemplateResponse(
+        String name, SearchTemplateResponse.Builder<?> b, JsonParser parser, JsonpMapper mapper
+    ) {
+        if (isLazy(name, mapper)) {
+            b.aggregations(AGGREGATIONS.deserialize(parser, mapper));
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean asyncSearch(String name, AsyncSearch.Builder<?> b, JsonParser parser, JsonpMapper mapper) {
+        if (isLazy(name, mapper)) {
+            b.aggregations(AGGREGATIONS.deserialize(parser, mapper));
+            return true;
+        }
+        return false;
+    }
+}
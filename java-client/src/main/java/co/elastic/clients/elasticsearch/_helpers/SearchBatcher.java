@@ -0,0 +1,428 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.elasticsearch._helpers;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch.core.MsearchRequest;
+import co.elastic.clients.elasticsearch.core.MsearchResponse;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchItem;
+import co.elastic.clients.elasticsearch.core.msearch.MultiSearchResponseItem;
+import co.elastic.clients.elasticsearch.core.msearch.MultisearchBody;
+import co.elastic.clients.elasticsearch.core.msearch.MultisearchHeader;
+import co.elastic.clients.elasticsearch.core.msearch.RequestItem;
+import co.elastic.clients.transport.TransportException;
+import co.elastic.clients.transport.TransportScheduler;
+import co.elastic.clients.util.ObjectBuilder;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Groups concurrent search requests into multi-search requests.
+ * <p>
+ * Searches are collected for a short time window, or until a maximum number of searches is reached, and are then sent
+ * together in a single {@code _msearch} request. Each search response is then dispatched to the future that was returned
+ * for its request. This reduces the per-request overhead, both in the client and in the cluster, for applications that
+ * send many small searches concurrently.
+ * <p>
+ * Searches are grouped by document class. Searches that use parameters that cannot be expressed in a multi-search
+ * request (e.g. {@code scroll}, {@code q} or {@code slice}) are sent immediately as regular search requests, as are
+ * batches that contain a single search.
+ * <p>
+ * Batching adds up to {@link Builder#maxDelay(Duration)} to the latency of each search, and the response of a batch is
+ * available only when all of its searches have completed.
+ */
+public class SearchBatcher implements AutoCloseable {
+
+    private static final String ENDPOINT_ID = "es/search";
+
+    private final ElasticsearchAsyncClient client;
+    private final int maxRequests;
+    private final long maxDelayNanos;
+    @Nullable
+    private final Executor executor;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<Class<?>, Batch<?>> batches = new HashMap<>();
+    private boolean closed = false;
+
+    private SearchBatcher(Builder builder) {
+        if (builder.client == null) {
+            throw new IllegalArgumentException("A client is required");
+        }
+        if (builder.maxRequests <= 0) {
+            throw new IllegalArgumentException("Max requests must be greater than zero");
+        }
+        if (builder.maxDelay.isNegative()) {
+            throw new IllegalArgumentException("Max delay must be positive");
+        }
+        this.client = builder.client;
+        this.maxRequests = builder.maxRequests;
+        this.maxDelayNanos = builder.maxDelay.toNanos();
+        this.executor = builder.executor;
+    }
+
+    /**
+     * Adds a search request to the current batch for its document class.
+     *
+     * @throws IllegalStateException if this batcher is closed.
+     */
+    public <TDocument> CompletableFuture<SearchResponse<TDocument>> search(SearchRequest request, Class<TDocument> tDocumentClass) {
+        if (!isBatchable(request)) {
+            return client.search(request, tDocumentClass);
+        }
+
+        CompletableFuture<SearchResponse<TDocument>> future = new CompletableFuture<>();
+        Batch<TDocument> full = null;
+
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Search batcher is closed");
+            }
+
+            @SuppressWarnings("unchecked")
+            Batch<TDocument> batch = (Batch<TDocument>) batches.get(tDocumentClass);
+            if (batch == null) {
+                Batch<TDocument> newBatch = new Batch<>(tDocumentClass);
+                batch = newBatch;
+                batches.put(tDocumentClass, batch);
+                batch.timer = schedule(() -> flush(newBatch));
+            }
+
+            batch.requests.add(request);
+            batch.futures.add(future);
+
+            if (batch.requests.size() >= maxRequests) {
+                batches.remove(tDocumentClass);
+                batch.timer.cancel(false);
+                full = batch;
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (full != null) {
+            send(full);
+        }
+
+        return future;
+    }
+
+    /**
+     * Adds a search request to the current batch for its document class.
+     *
+     * @throws IllegalStateException if this batcher is closed.
+     */
+    public final <TDocument> CompletableFuture<SearchResponse<TDocument>> search(
+        Function<SearchRequest.Builder, ObjectBuilder<SearchRequest>> fn, Class<TDocument> tDocumentClass) {
+        return search(fn.apply(new SearchRequest.Builder()).build(), tDocumentClass);
+    }
+
+    /**
+     * Sends all pending batches without waiting for their time window to expire.
+     */
+    public void flush() {
+        List<Batch<?>> pending;
+        lock.lock();
+        try {
+            pending = new ArrayList<>(batches.values());
+            batches.clear();
+        } finally {
+            lock.unlock();
+        }
+
+        for (Batch<?> batch : pending) {
+            batch.timer.cancel(false);
+            send(batch);
+        }
+    }
+
+    /**
+     * Sends all pending batches. Searches added after this batcher is closed are rejected.
+     */
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            closed = true;
+        } finally {
+            lock.unlock();
+        }
+        flush();
+    }
+
+    /**
+     * The maximum number of searches in a batch.
+     */
+    public int maxRequests() {
+        return maxRequests;
+    }
+
+    /**
+     * The time window during which searches are collected.
+     */
+    public Duration maxDelay() {
+        return Duration.ofNanos(maxDelayNanos);
+    }
+
+    //----- Batches
+
+    private static class Batch<TDocument> {
+        final Class<TDocument> tDocumentClass;
+        final List<SearchRequest> requests = new ArrayList<>();
+        final List<CompletableFuture<SearchResponse<TDocument>>> futures = new ArrayList<>();
+        ScheduledFuture<?> timer;
+
+        Batch(Class<TDocument> tDocumentClass) {
+            this.tDocumentClass = tDocumentClass;
+        }
+    }
+
+    private ScheduledFuture<?> schedule(Runnable task) {
+        // Batches are sent from the executor, never from the scheduler thread that is shared by all timers
+        if (executor == null) {
+            return TransportScheduler.schedule(task, maxDelayNanos, TimeUnit.NANOSECONDS);
+        }
+        return TransportScheduler.schedule(task, maxDelayNanos, TimeUnit.NANOSECONDS, executor);
+    }
+
+    private <TDocument> void flush(Batch<TDocument> batch) {
+        lock.lock();
+        try {
+            // May have been sent in the meantime because it was full
+            if (!batches.remove(batch.tDocumentClass, batch)) {
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        send(batch);
+    }
+
+    private <TDocument> void send(Batch<TDocument> batch) {
+        if (batch.requests.size() == 1) {
+            CompletableFuture<SearchResponse<TDocument>> future = batch.futures.get(0);
+            try {
+                client.search(batch.requests.get(0), batch.tDocumentClass).whenComplete((response, failure) -> {
+                    if (failure != null) {
+                        future.completeExceptionally(failure);
+                    } else {
+                        future.complete(response);
+                    }
+                });
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+            return;
+        }
+
+        List<RequestItem> items = new ArrayList<>(batch.requests.size());
+        for (SearchRequest request : batch.requests) {
+            items.add(RequestItem.of(i -> i.header(header(request)).body(body(request))));
+        }
+
+        CompletableFuture<MsearchResponse<TDocument>> msearch;
+        try {
+            msearch = client.msearch(MsearchRequest.of(m -> m.searches(items)), batch.tDocumentClass);
+        } catch (Exception e) {
+            batch.futures.forEach(f -> f.completeExceptionally(e));
+            return;
+        }
+
+        msearch.whenComplete((response, failure) -> {
+            if (failure != null) {
+                batch.futures.forEach(f -> f.completeExceptionally(failure));
+                return;
+            }
+
+            List<MultiSearchResponseItem<TDocument>> responses = response.responses();
+            for (int i = 0; i < batch.futures.size(); i++) {
+                CompletableFuture<SearchResponse<TDocument>> future = batch.futures.get(i);
+                if (i >= responses.size()) {
+                    future.completeExceptionally(new TransportException(
+                        "Multi-search returned " + responses.size() + " responses for " + batch.futures.size() + " searches",
+                        ENDPOINT_ID
+                    ));
+                    continue;
+                }
+
+                MultiSearchResponseItem<TDocument> item = responses.get(i);
+                if (item.isFailure()) {
+                    future.completeExceptionally(new ElasticsearchException(ENDPOINT_ID, item.failure()));
+                } else {
+                    future.complete(toSearchResponse(item.result()));
+                }
+            }
+        });
+    }
+
+    //----- Conversions between search and multi-search
+
+    /**
+     * Can this request be sent as part of a multi-search request? Query parameters that don't exist in multi-search
+     * headers, and body properties that don't exist in multi-search bodies, would be lost.
+     */
+    static boolean isBatchable(SearchRequest request) {
+        return request.df() == null &&
+            request.preFilterShardSize() == null &&
+            request.minCompatibleShardNode() == null &&
+            request.lenient() == null &&
+            request.analyzer() == null &&
+            request.maxConcurrentShardRequests() == null &&
+            request.analyzeWildcard() == null &&
+            request.scroll() == null &&
+            request.q() == null &&
+            request.defaultOperator() == null &&
+            request.batchedReduceSize() == null &&
+            request.slice() == null;
+    }
+
+    static MultisearchHeader header(SearchRequest request) {
+        return MultisearchHeader.of(h -> h
+            .allowNoIndices(request.allowNoIndices())
+            .expandWildcards(request.expandWildcards())
+            .ignoreUnavailable(request.ignoreUnavailable())
+            .index(request.index())
+            .preference(request.preference())
+            .requestCache(request.requestCache())
+            .routing(request.routing())
+            .searchType(request.searchType())
+            .ccsMinimizeRoundtrips(request.ccsMinimizeRoundtrips())
+            .allowPartialSearchResults(request.allowPartialSearchResults())
+            .ignoreThrottled(request.ignoreThrottled())
+        );
+    }
+
+    static MultisearchBody body(SearchRequest request) {
+        return MultisearchBody.of(b -> b
+            .aggregations(request.aggregations())
+            .collapse(request.collapse())
+            .query(request.query())
+            .explain(request.explain())
+            .ext(request.ext())
+            .storedFields(request.storedFields())
+            .docvalueFields(request.docvalueFields())
+            .knn(request.knn())
+            .from(request.from())
+            .highlight(request.highlight())
+            .indicesBoost(request.indicesBoost())
+            .minScore(request.minScore())
+            .postFilter(request.postFilter())
+            .profile(request.profile())
+            .rescore(request.rescore())
+            .scriptFields(request.scriptFields())
+            .searchAfter(request.searchAfter())
+            .size(request.size())
+            .sort(request.sort())
+            .source(request.source())
+            .fields(request.fields())
+            .terminateAfter(request.terminateAfter())
+            .stats(request.stats())
+            .timeout(request.timeout())
+            .trackScores(request.trackScores())
+            .trackTotalHits(request.trackTotalHits())
+            .version(request.version())
+            .runtimeMappings(request.runtimeMappings())
+            .seqNoPrimaryTerm(request.seqNoPrimaryTerm())
+            .pit(request.pit())
+            .suggest(request.suggest())
+        );
+    }
+
+    static <TDocument> SearchResponse<TDocument> toSearchResponse(MultiSearchItem<TDocument> item) {
+        return SearchResponse.of(r -> r
+            .took(item.took())
+            .timedOut(item.timedOut())
+            .shards(item.shards())
+            .hits(item.hits())
+            .aggregations(item.aggregations())
+            .clusters(item.clusters())
+            .fields(item.fields())
+            .maxScore(item.maxScore())
+            .numReducePhases(item.numReducePhases())
+            .profile(item.profile())
+            .pitId(item.pitId())
+            .scrollId(item.scrollId())
+            .suggest(item.suggest())
+            .terminatedEarly(item.terminatedEarly())
+        );
+    }
+
+    //----- Builder
+
+    public static class Builder {
+        private ElasticsearchAsyncClient client;
+        private int maxRequests = 32;
+        private Duration maxDelay = Duration.ofMillis(5);
+        private Executor executor;
+
+        /**
+         * The client used to send requests. Required.
+         */
+        public Builder client(ElasticsearchAsyncClient client) {
+            this.client = client;
+            return this;
+        }
+
+        /**
+         * The maximum number of searches in a batch. A batch is sent as soon as it is full. Defaults to 32.
+         */
+        public Builder maxRequests(int maxRequests) {
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * The time window during which searches are collected, starting with the first search of a batch.
+         * Defaults to 5 milliseconds.
+         */
+        public Builder maxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * The executor used to send batches when their time window expires. Full batches are sent by the thread that
+         * adds their last search. Defaults to the default asynchronous executor of {@link CompletableFuture}.
+         */
+        public Builder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public SearchBatcher build() {
+            return new SearchBatcher(this);
+        }
+    }
+}
@@ -0,0 +1,488 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.elasticsearch._helpers;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ErrorResponse;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.json.JsonEnum;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.JsonpSerializable;
+import co.elastic.clients.json.JsonpUtils;
+import co.elastic.clients.json.RawJsonWriter;
+import co.elastic.clients.transport.JsonEndpoint;
+import co.elastic.clients.transport.endpoints.EndpointWithResponseMapperAttr;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonParser;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A search request compiled once and then sent many times with different parameter values.
+ * <p>
+ * Parameters are placeholders of the form <code>{{name}}</code> in string properties of the request body, usually created
+ * with {@link #param(String)}. Compiling the template serializes the request once and keeps the JSON between placeholders
+ * as byte segments. Sending a request then only encodes the parameter values, which are spliced between these segments.
+ * <pre>{@code
+ * SearchRequestTemplate template = SearchRequestTemplate.compile(SearchRequest.of(s -> s
+ *     .index("products")
+ *     .query(q -> q.bool(b -> b
+ *         .filter(f -> f.term(t -> t.field("category").value(param("category"))))
+ *         .filter(f -> f.range(r -> r.field("price").lte(JsonData.of(param("maxPrice")))))
+ *     ))
+ * ), client._jsonpMapper());
+ *
+ * SearchResponse<Product> response = template.search(client, Product.class, "shoes", 50);
+ * }</pre>
+ * A parameter can replace any JSON value: the value bound to a string placeholder can be a number, a boolean, or any object
+ * that the mapper can serialize. Placeholders used as property names can only be bound to strings.
+ * <p>
+ * Only the request body is a template: the request's path and query parameters, such as the target index, are the same for
+ * all requests. Templates are immutable and can be shared between threads.
+ * <p>
+ * The compiled body is JSON text, which is sent as is by transports whose mapper writes JSON text. Transports using a
+ * binary format such as SMILE or CBOR cannot splice it: the body is then parsed into a JSON value for each request and
+ * re-encoded by the transport's mapper, which costs more than serializing the request directly.
+ */
+public class SearchRequestTemplate {
+
+    private static final String DOCUMENT_DESERIALIZER_ATTR = "co.elastic.clients:Deserializer:_global.search.TDocument";
+
+    private final SearchRequest request;
+    private final JsonpMapper mapper;
+    private final List<String> parameters;
+
+    // JSON around the placeholders: segments[i] is followed by the value of parameter slots[i]
+    private final byte[][] segments;
+    private final int[] slots;
+    private final boolean[] slotIsKey;
+    private final int staticLength;
+
+    private SearchRequestTemplate(
+        SearchRequest request, JsonpMapper mapper, List<String> parameters,
+        byte[][] segments, int[] slots, boolean[] slotIsKey
+    ) {
+        this.request = request;
+        this.mapper = mapper;
+        this.parameters = Collections.unmodifiableList(parameters);
+        this.segments = segments;
+        this.slots = slots;
+        this.slotIsKey = slotIsKey;
+
+        int length = 0;
+        for (byte[] segment: segments) {
+            length += segment.length;
+        }
+        this.staticLength = length;
+    }
+
+    /**
+     * A placeholder for a parameter, to be used in string properties of the request.
+     *
+     * @param name the parameter name, made of letters, digits, and {@code _}, {@code -} or {@code .}
+     */
+    public static String param(String name) {
+        if (name.isEmpty() || !isParamName(name, 0, name.length())) {
+            throw new IllegalArgumentException("Invalid parameter name '" + name + "'");
+        }
+        return "{{" + name + "}}";
+    }
+
+    /**
+     * Compiles a search request containing parameter placeholders.
+     *
+     * @param request the request
+     * @param mapper the mapper used to serialize the request, and parameter values other than strings, numbers and booleans.
+     *        It must produce JSON text.
+     */
+    public static SearchRequestTemplate compile(SearchRequest request, JsonpMapper mapper) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        JsonGenerator generator = mapper.jsonProvider().createGenerator(baos);
+        mapper.serialize(request, generator);
+        generator.close();
+        byte[] json = baos.toByteArray();
+
+        List<String> parameters = new ArrayList<>();
+        Map<String, Integer> parameterIndex = new HashMap<>();
+        List<byte[]> segments = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        List<Boolean> slotIsKey = new ArrayList<>();
+
+        int segmentStart = 0;
+        int i = 0;
+        while (i < json.length) {
+            if (json[i] != '"') {
+                i++;
+                continue;
+            }
+
+            // Find the end of this string
+            int start = i;
+            i++;
+            while (json[i] != '"') {
+                i += json[i] == '\\' ? 2 : 1;
+            }
+            int end = i + 1;
+            i = end;
+
+            // Placeholder strings are "{{name}}"
+            if (end - start > 6 && json[start + 1] == '{' && json[start + 2] == '{' &&
+                json[end - 3] == '}' && json[end - 2] == '}' && isParamName(json, start + 3, end - 3)
+            ) {
+                String name = new String(json, start + 3, end - start - 6, StandardCharsets.UTF_8);
+                Integer index = parameterIndex.get(name);
+                if (index == null) {
+                    index = parameters.size();
+                    parameters.add(name);
+                    parameterIndex.put(name, index);
+                }
+
+                segments.add(Arrays.copyOfRange(json, segmentStart, start));
+                slots.add(index);
+                slotIsKey.add(isKey(json, end));
+                segmentStart = end;
+            }
+        }
+        segments.add(Arrays.copyOfRange(json, segmentStart, json.length));
+
+        int[] slotArray = new int[slots.size()];
+        boolean[] keyArray = new boolean[slots.size()];
+        for (int j = 0; j < slotArray.length; j++) {
+            slotArray[j] = slots.get(j);
+            keyArray[j] = slotIsKey.get(j);
+        }
+
+        return new SearchRequestTemplate(request, mapper, parameters, segments.toArray(new byte[0][]), slotArray, keyArray);
+    }
+
+    /**
+     * The parameter names, in the order of their first appearance in the request. This is the order of the values given
+     * to {@link #body(Object...)} and {@code search} methods.
+     */
+    public List<String> parameters() {
+        return parameters;
+    }
+
+    /**
+     * The request this template was compiled from.
+     */
+    public SearchRequest request() {
+        return request;
+    }
+
+    /**
+     * Returns parameter values, ordered as {@link #parameters()}, from a map of values by parameter name.
+     */
+    public Object[] values(Map<String, ?> values) {
+        Object[] result = new Object[parameters.size()];
+        for (int i = 0; i < result.length; i++) {
+            String name = parameters.get(i);
+            if (!values.containsKey(name)) {
+                throw new IllegalArgumentException("Missing value for parameter '" + name + "'");
+            }
+            result[i] = values.get(name);
+        }
+        if (values.size() != result.length) {
+            for (String name: values.keySet()) {
+                if (!parameters.contains(name)) {
+                    throw new IllegalArgumentException("Unknown parameter '" + name + "'");
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the JSON request body with these parameter values.
+     *
+     * @param values the parameter values, ordered as {@link #parameters()}.
+     */
+    public byte[] body(Object... values) {
+        if (values.length != parameters.size()) {
+            throw new IllegalArgumentException(
+                "Expecting " + parameters.size() + " parameter values " + parameters + " but got " + values.length
+            );
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(staticLength + 16 * slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            out.write(segments[i], 0, segments[i].length);
+            Object value = values[slots[i]];
+            if (slotIsKey[i]) {
+                if (!(value instanceof CharSequence)) {
+                    throw new IllegalArgumentException(
+                        "Parameter '" + parameters.get(slots[i]) + "' is a property name and must be a string"
+                    );
+                }
+                writeString(out, (CharSequence) value);
+            } else {
+                writeValue(out, value);
+            }
+        }
+        byte[] last = segments[segments.length - 1];
+        out.write(last, 0, last.length);
+
+        return out.toByteArray();
+    }
+
+    /**
+     * Sends a search request with these parameter values.
+     *
+     * @param values the parameter values, ordered as {@link #parameters()}.
+     */
+    public <TDocument> SearchResponse<TDocument> search(
+        ElasticsearchClient client, Class<TDocument> documentClass, Object... values
+    ) throws IOException {
+        return client._transport().performRequest(
+            new Body(body(values)), endpoint(documentClass), client._transportOptions()
+        );
+    }
+
+    /**
+     * Sends a search request with these parameter values.
+     *
+     * @param values the parameter values, ordered as {@link #parameters()}.
+     */
+    public <TDocument> CompletableFuture<SearchResponse<TDocument>> search(
+        ElasticsearchAsyncClient client, Class<TDocument> documentClass, Object... values
+    ) {
+        return client._transport().performRequestAsync(
+            new Body(body(values)), endpoint(documentClass), client._transportOptions()
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private <TDocument> JsonEndpoint<Body, SearchResponse<TDocument>, ErrorResponse> endpoint(Class<TDocument> documentClass) {
+        JsonEndpoint<SearchRequest, SearchResponse<TDocument>, ErrorResponse> endpoint =
+            (JsonEndpoint<SearchRequest, SearchResponse<TDocument>, ErrorResponse>) SearchRequest._ENDPOINT;
+        endpoint = new EndpointWithResponseMapperAttr<>(endpoint, DOCUMENT_DESERIALIZER_ATTR, JsonpDeserializer.of(documentClass));
+        return new TemplateEndpoint<>(endpoint, request);
+    }
+
+    //---------------------------------------------------------------------------------------------
+    // Value encoding
+
+    private void writeValue(ByteArrayOutputStream out, Object value) {
+        if (value == null) {
+            writeAscii(out, "null");
+        } else if (value instanceof CharSequence) {
+            writeString(out, (CharSequence) value);
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte ||
+            value instanceof BigInteger || value instanceof BigDecimal) {
+            writeAscii(out, value.toString());
+        } else if (value instanceof Double || value instanceof Float) {
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                throw new IllegalArgumentException("Cannot write a non-finite number: " + value);
+            }
+            writeAscii(out, value.toString());
+        } else if (value instanceof Boolean) {
+            writeAscii(out, value.toString());
+        } else if (value instanceof JsonEnum) {
+            writeString(out, ((JsonEnum) value).jsonValue());
+        } else {
+            JsonGenerator generator = mapper.jsonProvider().createGenerator(out);
+            mapper.serialize(value, generator);
+            generator.close();
+        }
+    }
+
+    private static void writeAscii(ByteArrayOutputStream out, String str) {
+        for (int i = 0; i < str.length(); i++) {
+            out.write(str.charAt(i));
+        }
+    }
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private static void writeString(ByteArrayOutputStream out, CharSequence str) {
+        out.write('"');
+        int len = str.length();
+        for (int i = 0; i < len; i++) {
+            char c = str.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write('\\');
+                out.write('u');
+                out.write('0');
+                out.write('0');
+                out.write(HEX[c >> 4]);
+                out.write(HEX[c & 0xF]);
+            } else if (c < 0x80) {
+                out.write(c);
+            } else if (c < 0x800) {
+                out.write(0xC0 | (c >> 6));
+                out.write(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(str.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, str.charAt(++i));
+                out.write(0xF0 | (cp >> 18));
+                out.write(0x80 | ((cp >> 12) & 0x3F));
+                out.write(0x80 | ((cp >> 6) & 0x3F));
+                out.write(0x80 | (cp & 0x3F));
+            } else {
+                // Unpaired surrogates can't be encoded in UTF-8: replace them with '?', like String.getBytes() does
+                out.write('?');
+            }
+        }
+        out.write('"');
+    }
+
+    //---------------------------------------------------------------------------------------------
+    // Compilation
+
+    private static boolean isParamName(CharSequence chars, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isParamChar(chars.charAt(i))) {
+                return false;
+            }
+        }
+        return start < end;
+    }
+
+    private static boolean isParamName(byte[] bytes, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isParamChar((char) bytes[i])) {
+                return false;
+            }
+        }
+        return start < end;
+    }
+
+    private static boolean isParamChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-' || c == '.';
+    }
+
+    /**
+     * Is the string ending at {@code end} a property name, i.e. followed by a colon?
+     */
+    private static boolean isKey(byte[] json, int end) {
+        for (int i = end; i < json.length; i++) {
+            byte b = json[i];
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                return b == ':';
+            }
+        }
+        return false;
+    }
+
+    //---------------------------------------------------------------------------------------------
+    // Sending
+
+    /**
+     * An encoded request body.
+     */
+    private static class Body implements JsonpSerializable {
+        private final byte[] json;
+
+        Body(byte[] json) {
+            this.json = json;
+        }
+
+        @Override
+        public void serialize(JsonGenerator generator, JsonpMapper mapper) {
+            if (generator instanceof RawJsonWriter && ((RawJsonWriter) generator).writeRawJson(json, 0, json.length)) {
+                return;
+            }
+
+            // Generator doesn't accept raw JSON, e.g. binary formats: re-encode the body from a parsed JSON value
+            try (JsonParser parser = JsonpUtils.provider().createParser(new ByteArrayInputStream(json))) {
+                parser.next();
+                generator.write(parser.getValue());
+            }
+        }
+    }
+
+    /**
+     * The search endpoint, for the request the template was compiled from.
+     */
+    private static class TemplateEndpoint<TDocument> implements JsonEndpoint<Body, SearchResponse<TDocument>, ErrorResponse> {
+        private final JsonEndpoint<SearchRequest, SearchResponse<TDocument>, ErrorResponse> endpoint;
+        private final SearchRequest request;
+
+        TemplateEndpoint(JsonEndpoint<SearchRequest, SearchResponse<TDocument>, ErrorResponse> endpoint, SearchRequest request) {
+            this.endpoint = endpoint;
+            this.request = request;
+        }
+
+        @Override
+        public String id() {
+            return endpoint.id();
+        }
+
+        @Override
+        public String method(Body body) {
+            return endpoint.method(request);
+        }
+
+        @Override
+        public String requestUrl(Body body) {
+            return endpoint.requestUrl(request);
+        }
+
+        @Override
+        public Map<String, String> queryParameters(Body body) {
+            return endpoint.queryParameters(request);
+        }
+
+        @Override
+        public Map<String, String> headers(Body body) {
+            return endpoint.headers(request);
+        }
+
+        @Override
+        public boolean hasRequestBody() {
+            return true;
+        }
+
+        @Override
+        public JsonpDeserializer<SearchResponse<TDocument>> responseDeserializer() {
+            return endpoint.responseDeserializer();
+        }
+
+        @Override
+        public boolean isError(int statusCode) {
+            return endpoint.isError(statusCode);
+        }
+
+        @Override
+        @Nullable
+        public JsonpDeserializer<ErrorResponse> errorDeserializer(int statusCode) {
+            return endpoint.errorDeserializer(statusCode);
+        }
+    }
+}
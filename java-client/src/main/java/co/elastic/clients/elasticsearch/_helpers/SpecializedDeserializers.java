@@ -0,0 +1,310 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.elasticsearch._helpers;
+
+import co.elastic.clients.elasticsearch._types.ErrorCause;
+import co.elastic.clients.elasticsearch._types.FieldValue;
+import co.elastic.clients.elasticsearch._types.ShardStatistics;
+import co.elastic.clients.elasticsearch._types.aggregations.AvgAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.DateHistogramBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.DoubleTermsBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.HistogramBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.LongTermsBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.MaxAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.MinAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.StatsAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.SumAggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.ValueCountAggregate;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.core.search.HitsMetadata;
+import co.elastic.clients.elasticsearch.core.search.TotalHits;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.ObjectDeserializer;
+import jakarta.json.stream.JsonParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Specialized deserializers for the API types that are decoded the most: search responses and hits, bulk response items,
+ * aggregation buckets and metrics.
+ * <p>
+ * API types are deserialized by a generic {@link ObjectDeserializer} that calls a field deserializer and a setter for
+ * each property. These call sites are shared by all API types, which prevents the JIT compiler from inlining them.
+ * The field switches installed here handle the most common properties of these types with direct calls, and leave
+ * other properties to the generic path.
+ * <p>
+ * Field switches apply to all deserializers of these types once {@link #install()} is called, including those that were
+ * already used, until {@link #uninstall()} is called. Responses that are being deserialized at that time may use either
+ * path.
+ */
+public class SpecializedDeserializers {
+
+    private static final ReentrantLock lock = new ReentrantLock();
+    // Removes the registered field switches. Not empty when installed.
+    private static final List<Runnable> uninstallers = new ArrayList<>();
+
+    private static final JsonpDeserializer<String> STRING = JsonpDeserializer.stringDeserializer();
+    private static final JsonpDeserializer<Integer> INTEGER = JsonpDeserializer.integerDeserializer();
+    private static final JsonpDeserializer<Long> LONG = JsonpDeserializer.longDeserializer();
+    private static final JsonpDeserializer<Double> DOUBLE = JsonpDeserializer.doubleDeserializer();
+    private static final JsonpDeserializer<Boolean> BOOLEAN = JsonpDeserializer.booleanDeserializer();
+    private static final JsonpDeserializer<Number> NUMBER = JsonpDeserializer.numberDeserializer();
+    private static final JsonpDeserializer<List<String>> STRING_LIST =
+        JsonpDeserializer.arrayDeserializer(JsonpDeserializer.stringDeserializer());
+
+    // Same defaults as in the API types
+    private static final JsonpDeserializer<Double> SCORE = JsonpDeserializer.doubleOrNullDeserializer(Double.NaN);
+    private static final JsonpDeserializer<Double> METRIC_VALUE = JsonpDeserializer.doubleOrNullDeserializer(0);
+    private static final JsonpDeserializer<Double> MIN = JsonpDeserializer.doubleOrNullDeserializer(Double.POSITIVE_INFINITY);
+    private static final JsonpDeserializer<Double> MAX = JsonpDeserializer.doubleOrNullDeserializer(Double.NEGATIVE_INFINITY);
+
+    private SpecializedDeserializers() {
+    }
+
+    /**
+     * Installs the specialized deserializers. Subsequent calls have no effect.
+     */
+    public static void install() {
+        lock.lock();
+        try {
+            if (!uninstallers.isEmpty()) {
+                return;
+            }
+
+            register(SearchResponse.Builder.class, SpecializedDeserializers::searchResponse);
+            register(HitsMetadata.Builder.class, SpecializedDeserializers::hitsMetadata);
+            register(Hit.Builder.class, SpecializedDeserializers::hit);
+            register(BulkResponseItem.Builder.class, SpecializedDeserializers::bulkResponseItem);
+            register(ShardStatistics.Builder.class, SpecializedDeserializers::shardStatistics);
+
+            register(StringTermsBucket.Builder.class, SpecializedDeserializers::stringTermsBucket);
+            register(LongTermsBucket.Builder.class, SpecializedDeserializers::longTermsBucket);
+            register(DoubleTermsBucket.Builder.class, SpecializedDeserializers::doubleTermsBucket);
+            register(DateHistogramBucket.Builder.class, SpecializedDeserializers::dateHistogramBucket);
+            register(HistogramBucket.Builder.class, SpecializedDeserializers::histogramBucket);
+
+            register(StatsAggregate.Builder.class, SpecializedDeserializers::statsAggregate);
+            register(AvgAggregate.Builder.class, SpecializedDeserializers::avgAggregate);
+            register(SumAggregate.Builder.class, SpecializedDeserializers::sumAggregate);
+            register(MinAggregate.Builder.class, SpecializedDeserializers::minAggregate);
+            register(MaxAggregate.Builder.class, SpecializedDeserializers::maxAggregate);
+            register(ValueCountAggregate.Builder.class, SpecializedDeserializers::valueCountAggregate);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the specialized deserializers, so that all properties are deserialized by the generic path again. This is
+     * mostly useful for tests that compare both paths.
+     */
+    public static void uninstall() {
+        lock.lock();
+        try {
+            uninstallers.forEach(Runnable::run);
+            uninstallers.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static <T> void register(Class<T> clazz, ObjectDeserializer.FieldSwitch<? super T> fieldSwitch) {
+        ObjectDeserializer.registerFieldSwitch(clazz, fieldSwitch);
+        uninstallers.add(() -> ObjectDeserializer.unregisterFieldSwitch(clazz, fieldSwitch));
+    }
+
+    //----- Search and bulk
+
+    // Hits, aggregations and suggestions are handled by the generic path: their deserializers depend on the document
+    // type, and aggregations may be deserialized lazily by LazyAggregations.
+    private static boolean searchResponse(String name, SearchResponse.Builder<?> b, JsonParser parser, JsonpMapper mapper) {
+        switch (name) {
+            case "took": b.took(LONG.deserialize(parser, mapper)); return true;
+            case "timed_out": b.timedOut(BOOLEAN.deserialize(parser, mapper)); return true;
+            case "_shards": b.shards(ShardStatistics._DESERIALIZER.deserialize(parser, mapper)); return true;
+            case "max_score": b.maxScore(DOUBLE.deserialize(parser, mapper)); return true;
+            case "num_reduce_phases": b.numReducePhases(LONG.deserialize(parser, mapper)); return true;
+            case "terminated_early": b.terminatedEarly(BOOLEAN.deserialize(parser, mapper)); return true;
+            case "pit_id": b.pitId(STRING.deserialize(parser, mapper)); return true;
+            case "_scroll_id": b.scrollId(STRING.deserialize(parser, mapper)); return true;
+            default: return false;
+        }
+    }
+
+    // The hits array is handled by the generic path, as its deserializer depends on the document type.
+    private static boolean hitsMetadata(String name, HitsMetadata.Builder<?> b, JsonParser parser, JsonpMapper mapper) {
+        switch (name) {
+            case "total": b.total(TotalHits._DESERIALIZER.deserialize(parser, mapper)); return true;
+            case "max_score": b.maxScore(SCORE.deserialize(parser, mapper)); return true;
+            default: return false;
+        }
+    }
+
+    private static boolean hit(String name, Hit.Builder<?> b, JsonParser parser, JsonpMapper mapper) {
+        switch (name) {
+            case "_index": b.index(STRING.deserialize(parser, mapper)); return true;
+            case "_id": b.id(STRING.deserialize(parser, mapper)); return true;
+            case "_score": b.score(SCORE.deserialize(parser, mapper)); return true;
+            case "_shard": b.shard(STRING.deserialize(parser, mapper)); return true;
+            case "_node": b.node(STRING.deserialize(parser, mapper)); return true;
+            case "_routing": b.routing(STRING.deserialize(parser, mapper)); return true;
+            case "_seq_no": b.seqNo(LONG.deserialize(parser, mapper)); return true;
+            case "_primary_term": b.primaryTerm(LONG.deserialize(parser, mapper)); return true;
+            case "_version": b.version(LONG.deserialize(parser, mapper)); return true;
+            case "matched_queries": b.matchedQueries(STRING_LIST.deserialize(parser, mapper)); return true;
+            // _source, fields, highlight, sort, etc.
+            default: return false;
+        }
+    }
+
+    private static boolean bulkResponseItem(String name, BulkResponseItem.Builder b, JsonParser parser, JsonpMapper mapper) {
+        switch (name) {
+            case "_index": b.index(STRING.deserialize(parser, mapper)); return true;
+            case "_id": b.id(STRING.deserialize(parser, mapper)); return true;
+            case "_version": b.version(LONG.deserialize(parser, mapper)); return true;
+            case "result": b.result(STRING.deserialize(parser, mapper)); return true;
+            case "_shards": b.shards(ShardStatistics._DESERIALIZER.deserialize(parser, mapper)); return true;
+            case "_seq_no": b.seqNo(LONG.deserialize(parser, mapper)); return true;
+            case "_primary_term": b.primaryTerm(LONG.deserialize(parser, mapper)); return true;
+            case "status": b.status(INTEGER.deserialize(parser, mapper)); return true;
+            case "error": b.error(ErrorCause._DESERIALIZER.deserialize(parser, mapper)); return true;
+            case "forced_refresh": b.forcedRefresh(BOOLEAN.deserialize(parser, mapper)); return true;
+            default: return false;
+        }
+    }
+
+    private static boolean shardStatistics(String name, ShardStatistics.Builder b, JsonParser parser, JsonpMapper mapper) {
+        switch (name) {
+            case "total": b.total(NUMBER.deserialize(parser, mapper)); return true;
+            case "successful": b.successful(NUMBER.deserialize(parser, mapper)); return true;
+            case "skipped": b.skipped(NUMBER.deserialize(parser, mapper)); return true;
+            case "failed": b.failed(NUMBER.deserialize(parser, mapper)); return true;
+            default: return false;
+        }
+    }
+
+    //----- Buckets. Sub-aggregations are handled by the generic path.
+
+    private static boolean stringTermsBucket(String name, StringTermsBucket.Builder b, JsonParser parser, JsonpMapper mapper) {
+        switch (name) {
+            case "key": b.key(FieldValue._DESERIALIZER.deserialize(parser, mapper)); return true;
+            case "doc_count": b.docCount(LONG.deserialize(parser, mapper)); return true;
+            case "doc_count_error": b.docCountError(LONG.deserialize(parser, mapper)); return true;
+            default: return false;
+        }
+    }
+
+    private static boolean longTermsBucket(String name, LongTermsBucket.Builder b, JsonParser parser, JsonpMapper mapper) {
+        switch (name) {
+            case "key": b.key(LONG.deserialize(parser, mapper)); return true;
+            case "key_as_string": b.keyAsString(STRING.deserialize(parser, mapper)); return true;
+            case "doc_count": b.docCount(LONG.deserialize(parser, mapper)); return true;
+            case "doc_count_error": b.docCountError(LONG.deserialize(parser, mapper)); return true;
+            default: return false;
+        }
+    }
+
+    private static boolean doubleTermsBucket(String name, DoubleTermsBucket.Builder b, JsonParser parser, JsonpMapper mapper) {
+        switch (name) {
+            case "key": b.key(DOUBLE.deserialize(parser, mapper)); return true;
+            case "key_as_string": b.keyAsString(STRING.deserialize(parser, mapper)); return true;
+            case "doc_count": b.docCount(LONG.deserialize(parser, mapper)); return true;
+            case "doc_count_error": b.docCountError(LONG.deserialize(parser, mapper)); return true;
+            default: return false;
+        }
+    }
+
+    private static boolean dateHistogramBucket(String name, DateHistogramBucket.Builder b, JsonParser parser, JsonpMapper mapper) {
+        switch (name) {
+            case "key": b.key(LONG.deserialize(parser, mapper)); return true;
+            case "key_as_string": b.keyAsString(STRING.deserialize(parser, mapper)); return true;
+            case "doc_count": b.docCount(LONG.deserialize(parser, mapper)); return true;
+            default: return false;
+        }
+    }
+
+    private static boolean histogramBucket(String name, HistogramBucket.Builder b, JsonParser parser, JsonpMapper mapper) {
+        switch (name) {
+            case "key": b.key(DOUBLE.deserialize(parser, mapper)); return true;
+            case "key_as_string": b.keyAsString(STRING.deserialize(parser, mapper)); return true;
+            case "doc_count": b.docCount(LONG.deserialize(parser, mapper)); return true;
+            default: return false;
+        }
+    }
+
+    //----- Metrics
+
+    private static boolean statsAggregate(String name, StatsAggregate.Builder b, JsonParser parser, JsonpMapper mapper) {
+        switch (name) {
+            case "count": b.count(LONG.deserialize(parser, mapper)); return true;
+            case "min": b.min(MIN.deserialize(parser, mapper)); return true;
+            case "max": b.max(MAX.deserialize(parser, mapper)); return true;
+            case "avg": b.avg(METRIC_VALUE.deserialize(parser, mapper)); return true;
+            case "sum": b.sum(DOUBLE.deserialize(parser, mapper)); return true;
+            default: return false;
+        }
+    }
+
+    private static boolean avgAggregate(String name, AvgAggregate.Builder b, JsonParser parser, JsonpMapper mapper) {
+        switch (name) {
+            case "value": b.value(METRIC_VALUE.deserialize(parser, mapper)); return true;
+            case "value_as_string": b.valueAsString(STRING.deserialize(parser, mapper)); return true;
+            default: return false;
+        }
+    }
+
+    private static boolean sumAggregate(String name, SumAggregate.Builder b, JsonParser parser, JsonpMapper mapper) {
+        switch (name) {
+            case "value": b.value(METRIC_VALUE.deserialize(parser, mapper)); return true;
+            case "value_as_string": b.valueAsString(STRING.deserialize(parser, mapper)); return true;
+            default: return false;
+        }
+    }
+
+    private static boolean minAggregate(String name, MinAggregate.Builder b, JsonParser parser, JsonpMapper mapper) {
+        switch (name) {
+            case "value": b.value(METRIC_VALUE.deserialize(parser, mapper)); return true;
+            case "value_as_string": b.valueAsString(STRING.deserialize(parser, mapper)); return true;
+            default: return false;
+        }
+    }
+
+    private static boolean maxAggregate(String name, MaxAggregate.Builder b, JsonParser parser, JsonpMapper mapper) {
+        switch (name) {
+            case "value": b.value(METRIC_VALUE.deserialize(parser, mapper)); return true;
+            case "value_as_string": b.valueAsString(STRING.deserialize(parser, mapper)); return true;
+            default: return false;
+        }
+    }
+
+    private static boolean valueCountAggregate(String name, ValueCountAggregate.Builder b, JsonParser parser, JsonpMapper mapper) {
+        switch (name) {
+            case "value": b.value(METRIC_VALUE.deserialize(parser, mapper)); return true;
+            case "value_as_string": b.valueAsString(STRING.deserialize(parser, mapper)); return true;
+            default: return false;
+        }
+    }
+}
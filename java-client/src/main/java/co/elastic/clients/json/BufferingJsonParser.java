@@ -0,0 +1,42 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.json;
+
+import jakarta.json.stream.JsonParser;
+
+import java.util.function.Supplier;
+
+/**
+ * A parser on top of a streaming library that can buffer a value in that library's own event representation, so that
+ * it can be parsed later without going through a JSON-P value tree.
+ *
+ * @see JsonpUtils#bufferValue(JsonParser, JsonpMapper)
+ * @see co.elastic.clients.json.jackson.JacksonJsonpParser
+ */
+public interface BufferingJsonParser extends JsonParser {
+
+    /**
+     * Consumes the next value, that can be a scalar, an object or an array, and buffers its events.
+     *
+     * @return a supplier of parsers that replay the buffered value. Each call returns a new parser, positioned before
+     *         the first event of the value.
+     */
+    Supplier<JsonParser> bufferValue();
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.json;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Traverses the graph of deserializers reachable from a root deserializer, initializing all the {@link LazyDeserializer}s
+ * that are found. This moves the cost of class loading and of building deserializers from the first request that needs them
+ * to application startup.
+ * <p>
+ * Deserializers are composed in many ways (object fields, unions, containers, lambdas capturing other deserializers),
+ * so the graph is discovered by inspecting the fields of deserializers and of the classes of this package that they
+ * reference. Deserializers that are only known at runtime, like {@link NamedDeserializer}, are not traversed.
+ */
+public class DeserializerGraph {
+
+    private static final String PACKAGE_PREFIX = "co.elastic.clients.json.";
+    private static final String API_PREFIX = "co.elastic.clients.";
+
+    // Fields holding references to other deserializers, by class
+    private static final Map<Class<?>, List<Field>> FIELDS = new ConcurrentHashMap<>();
+
+    private DeserializerGraph() {
+    }
+
+    /**
+     * Initializes all deserializers reachable from {@code root}.
+     *
+     * @return the lazy deserializers that were found, which are those of the API types in the graph.
+     */
+    public static Set<LazyDeserializer<?>> initialize(JsonpDeserializer<?> root) {
+        Set<LazyDeserializer<?>> result = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Object> queue = new ArrayDeque<>();
+        queue.add(root);
+
+        Object node;
+        while ((node = queue.poll()) != null) {
+            if (!visited.add(node)) {
+                continue;
+            }
+
+            if (node instanceof Map<?, ?>) {
+                enqueue(((Map<?, ?>) node).values(), queue);
+                continue;
+            }
+
+            if (node instanceof Collection<?>) {
+                enqueue((Collection<?>) node, queue);
+                continue;
+            }
+
+            if (node instanceof LazyDeserializer<?>) {
+                result.add((LazyDeserializer<?>) node);
+                // Forces initialization. Its supplier is not traversed.
+                queue.add(((LazyDeserializer<?>) node).unwrap());
+                continue;
+            }
+
+            if (node instanceof DelegatingDeserializer<?, ?>) {
+                queue.add(((DelegatingDeserializer<?, ?>) node).unwrap());
+            }
+
+            for (Field field: fields(node.getClass())) {
+                Object value;
+                try {
+                    value = field.get(node);
+                } catch (IllegalAccessException e) {
+                    continue;
+                }
+                if (value != null && isTraversable(value)) {
+                    queue.add(value);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static void enqueue(Collection<?> values, Deque<Object> queue) {
+        for (Object value: values) {
+            if (value != null && isTraversable(value)) {
+                queue.add(value);
+            }
+        }
+    }
+
+    /**
+     * Deserializers, containers, and objects that can hold deserializers: internal classes of this package and lambdas
+     * defined by API types.
+     */
+    private static boolean isTraversable(Object value) {
+        if (value instanceof JsonpDeserializer<?> || value instanceof Map<?, ?> || value instanceof Collection<?>) {
+            return true;
+        }
+        Class<?> clazz = value.getClass();
+        String name = clazz.getName();
+        return name.startsWith(PACKAGE_PREFIX) || (clazz.isSynthetic() && name.startsWith(API_PREFIX));
+    }
+
+    private static List<Field> fields(Class<?> clazz) {
+        return FIELDS.computeIfAbsent(clazz, c -> {
+            List<Field> result = new ArrayList<>();
+            for (; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field: c.getDeclaredFields()) {
+                    Class<?> type = field.getType();
+                    if (Modifier.isStatic(field.getModifiers()) || type.isPrimitive() || type == String.class || type.isEnum()) {
+                        continue;
+                    }
+                    try {
+                        field.setAccessible(true);
+                        result.add(field);
+                    } catch (RuntimeException e) {
+                        // Inaccessible (e.g. in another module): ignore
+                    }
+                }
+            }
+            return result;
+        });
+    }
+}
@@ -25,13 +25,21 @@ import jakarta.json.stream.JsonGenerator;
 import jakarta.json.stream.JsonParser;
 
 import javax.annotation.Nullable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static jakarta.json.stream.JsonParser.Event;
 
@@ -129,6 +137,120 @@ public class ExternallyTaggedUnion {
 
             targetMap.put(name, deserializer.deserialize(type, parser, mapper, parser.next()));
         }
+
+        /**
+         * A deserializer that buffers the value of each typed key, and deserializes it when its entry in the resulting map is
+         * first accessed. Only the format of property names is checked when parsing: other deserialization errors are thrown
+         * by the map's accessors.
+         * <p>
+         * The resulting map is unmodifiable, can be read concurrently, and keeps the buffered values for its whole life.
+         *
+         * @see JsonpUtils#bufferValue(JsonParser, JsonpMapper)
+         */
+        public JsonpDeserializer<Map<String, Union>> lazy() {
+            return new JsonpDeserializerBase<Map<String, Union>>(EnumSet.of(Event.START_OBJECT)) {
+                @Override
+                public Map<String, Union> deserialize(JsonParser parser, JsonpMapper mapper, Event event) {
+                    Map<String, Map.Entry<String, Supplier<JsonParser>>> values = new LinkedHashMap<>();
+                    while ((event = parser.next()) != Event.END_OBJECT) {
+                        JsonpUtils.expectEvent(parser, event, Event.KEY_NAME);
+                        String key = parser.getString();
+                        int hashPos = key.indexOf('#');
+                        if (hashPos == -1) {
+                            throw new JsonpMappingException(
+                                "Property name '" + key + "' is not in the 'type#name' format. Make sure the request has 'typed_keys' set.",
+                                parser.getLocation()
+                            );
+                        }
+
+                        String type = key.substring(0, hashPos);
+                        String name = key.substring(hashPos + 1);
+                        values.put(name, new AbstractMap.SimpleImmutableEntry<>(type, JsonpUtils.bufferValue(parser, mapper)));
+                    }
+                    return new LazyTypedKeysMap<>(deserializer, values, mapper);
+                }
+            };
+        }
+    }
+
+    /**
+     * A map of typed keys values that are deserialized when they are first accessed.
+     */
+    private static class LazyTypedKeysMap<Union extends TaggedUnion<?, ?>> extends AbstractMap<String, Union> {
+        private final Deserializer<Union, ?> deserializer;
+        // Type and buffered value, by name
+        private final Map<String, Map.Entry<String, Supplier<JsonParser>>> values;
+        private final JsonpMapper mapper;
+        private final ConcurrentHashMap<String, Union> deserialized = new ConcurrentHashMap<>();
+
+        LazyTypedKeysMap(
+            Deserializer<Union, ?> deserializer, Map<String, Map.Entry<String, Supplier<JsonParser>>> values, JsonpMapper mapper
+        ) {
+            this.deserializer = deserializer;
+            this.values = values;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public int size() {
+            return values.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return values.containsKey(key);
+        }
+
+        @Override
+        public Union get(Object key) {
+            if (!values.containsKey(key)) {
+                return null;
+            }
+            return deserialized.computeIfAbsent((String) key, this::deserialize);
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return Collections.unmodifiableSet(values.keySet());
+        }
+
+        @Override
+        public Set<Entry<String, Union>> entrySet() {
+            return new AbstractSet<Entry<String, Union>>() {
+                @Override
+                public int size() {
+                    return values.size();
+                }
+
+                @Override
+                public Iterator<Entry<String, Union>> iterator() {
+                    Iterator<String> names = values.keySet().iterator();
+                    return new Iterator<Entry<String, Union>>() {
+                        @Override
+                        public boolean hasNext() {
+                            return names.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Union> next() {
+                            String name = names.next();
+                            return new AbstractMap.SimpleImmutableEntry<>(name, get(name));
+                        }
+                    };
+                }
+            };
+        }
+
+        private Union deserialize(String name) {
+            Map.Entry<String, Supplier<JsonParser>> value = values.get(name);
+            try (JsonParser parser = value.getValue().get()) {
+                try {
+                    return deserializer.deserialize(value.getKey(), parser, mapper, parser.next());
+                } catch (Exception e) {
+                    throw JsonpMappingException.from(e, null, name, parser);
+                }
+            }
+        }
     }
 
     public static <T extends TaggedUnion<?, ?>> JsonpDeserializer<Map<String, List<T>>> arrayMapDeserializer(
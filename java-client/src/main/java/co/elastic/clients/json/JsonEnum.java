@@ -54,6 +54,9 @@ public interface JsonEnum extends JsonpSerializable {
         private static final EnumSet<Event> nativeEvents = EnumSet.of(Event.VALUE_STRING);
 
         private final Map<String, T> lookupTable;
+        // Values and aliases grouped by length, for allocation-free lookups from a parser's text buffer
+        private final char[][][] charsByLength;
+        private final Object[][] membersByLength;
 
         public Deserializer(T[] values) {
             this(values, acceptedEvents);
@@ -76,12 +79,91 @@ public interface JsonEnum extends JsonpSerializable {
                     }
                 }
             }
+
+            int maxLength = 0;
+            for (String key: lookupTable.keySet()) {
+                maxLength = Math.max(maxLength, key.length());
+            }
+
+            int[] counts = new int[maxLength + 1];
+            for (String key: lookupTable.keySet()) {
+                counts[key.length()]++;
+            }
+
+            this.charsByLength = new char[maxLength + 1][][];
+            this.membersByLength = new Object[maxLength + 1][];
+            for (int i = 0; i <= maxLength; i++) {
+                if (counts[i] > 0) {
+                    charsByLength[i] = new char[counts[i]][];
+                    membersByLength[i] = new Object[counts[i]];
+                    counts[i] = 0;
+                }
+            }
+
+            for (Map.Entry<String, T> entry: lookupTable.entrySet()) {
+                int length = entry.getKey().length();
+                int idx = counts[length]++;
+                charsByLength[length][idx] = entry.getKey().toCharArray();
+                membersByLength[length][idx] = entry.getValue();
+            }
         }
 
         @Override
         public T deserialize(JsonParser parser, JsonpMapper mapper, Event event) {
-            String value = parser.getString();
-            return deserialize(value, parser);
+            T result = lookup(parser, event);
+            if (result == null) {
+                throw new JsonpMappingException("Invalid enum '" + parser.getString() + "'", parser.getLocation());
+            }
+            return result;
+        }
+
+        /**
+         * Get the enum member for the current value of a parser, without throwing an exception if it doesn't exist.
+         *
+         * @param parser the parser, positioned on {@code event}
+         * @param event the current event
+         * @return the enum member, or {@code null} if no matching enum was found
+         */
+        @Nullable
+        public T lookup(JsonParser parser, Event event) {
+            // Key names are interned by parsers, but string values are created for each call to getString()
+            if (event == Event.VALUE_STRING && parser instanceof TextBufferJsonParser) {
+                TextBufferJsonParser textParser = (TextBufferJsonParser) parser;
+                return lookup(textParser.getTextCharacters(), textParser.getTextOffset(), textParser.getTextLength());
+            }
+
+            return lookupTable.get(parser.getString());
+        }
+
+        @Nullable
+        @SuppressWarnings("unchecked")
+        private T lookup(char[] chars, int offset, int length) {
+            if (length >= charsByLength.length) {
+                return null;
+            }
+
+            char[][] candidates = charsByLength[length];
+            if (candidates == null) {
+                return null;
+            }
+
+            candidates:
+            for (int i = 0; i < candidates.length; i++) {
+                char[] candidate = candidates[i];
+                for (int j = 0; j < length; j++) {
+                    if (candidate[j] != chars[offset + j]) {
+                        continue candidates;
+                    }
+                }
+                return (T) membersByLength[length][i];
+            }
+
+            return null;
+        }
+
+        @Nullable
+        private T lookup(String value) {
+            return lookupTable.get(value);
         }
 
         /**
@@ -93,7 +175,7 @@ public interface JsonEnum extends JsonpSerializable {
          * @throws JsonParsingException if no matching enum was found
          */
         public T deserialize(String value, JsonParser parser) {
-            T result = this.lookupTable.get(value);
+            T result = lookup(value);
             if (result == null) {
                 throw new JsonpMappingException("Invalid enum '" + value + "'", parser.getLocation());
             }
@@ -130,16 +212,24 @@ public interface JsonEnum extends JsonpSerializable {
 
             @Override
             public T deserialize(JsonParser parser, JsonpMapper mapper, Event event) {
-                String value;
                 if (event == Event.VALUE_TRUE) {
-                    value = "true";
+                    return deserialize("true", parser);
                 } else if (event == Event.VALUE_FALSE) {
-                    value = "false";
+                    return deserialize("false", parser);
                 } else {
-                    value = parser.getString();
+                    return super.deserialize(parser, mapper, event);
                 }
+            }
 
-                return deserialize(value, parser);
+            @Override
+            public T lookup(JsonParser parser, Event event) {
+                if (event == Event.VALUE_TRUE) {
+                    return super.lookup("true");
+                } else if (event == Event.VALUE_FALSE) {
+                    return super.lookup("false");
+                } else {
+                    return super.lookup(parser, event);
+                }
             }
         }
     }
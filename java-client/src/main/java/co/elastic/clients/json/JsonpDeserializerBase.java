@@ -343,11 +343,19 @@ public abstract class JsonpDeserializerBase<V> implements JsonpDeserializer<V> {
             Map<String, T> result = new HashMap<>();
             String key = null;
             try {
-                while ((event = parser.next()) != Event.END_OBJECT) {
-                    JsonpUtils.expectEvent(parser, Event.KEY_NAME, event);
-                    key = parser.getString();
-                    T value = itemDeserializer.deserialize(parser, mapper);
-                    result.put(key, value);
+                if (parser instanceof StreamingJsonParser) {
+                    StreamingJsonParser streamingParser = (StreamingJsonParser) parser;
+                    while ((key = streamingParser.nextKey()) != null) {
+                        T value = itemDeserializer.deserialize(parser, mapper);
+                        result.put(key, value);
+                    }
+                } else {
+                    while ((event = parser.next()) != Event.END_OBJECT) {
+                        JsonpUtils.expectEvent(parser, Event.KEY_NAME, event);
+                        key = parser.getString();
+                        T value = itemDeserializer.deserialize(parser, mapper);
+                        result.put(key, value);
+                    }
                 }
             } catch (Exception e) {
                 throw JsonpMappingException.from(e, null, key, parser);
@@ -28,6 +28,7 @@ import java.lang.reflect.Field;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 public abstract class JsonpMapperBase implements JsonpMapper {
 
@@ -73,22 +74,45 @@ public abstract class JsonpMapperBase implements JsonpMapper {
     @Nullable
     @SuppressWarnings("unchecked")
     public static <T> JsonpDeserializer<T> findDeserializer(Class<T> clazz) {
-        JsonpDeserializable annotation = clazz.getAnnotation(JsonpDeserializable.class);
-        if (annotation != null) {
-            try {
-                Field field = clazz.getDeclaredField(annotation.field());
-                return (JsonpDeserializer<T>)field.get(null);
-            } catch (Exception e) {
-                throw new RuntimeException("No deserializer found in '" + clazz.getName() + "." + annotation.field() + "'");
+        return (JsonpDeserializer<T>) DESERIALIZERS.get(clazz).orElse(null);
+    }
+
+    // Resolved once per class, as this is called for every value decoded with JsonpMapper.deserialize(parser, clazz)
+    private static final ClassValue<Optional<JsonpDeserializer<?>>> DESERIALIZERS = new ClassValue<Optional<JsonpDeserializer<?>>>() {
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        protected Optional<JsonpDeserializer<?>> computeValue(Class<?> clazz) {
+            JsonpDeserializable annotation = clazz.getAnnotation(JsonpDeserializable.class);
+            if (annotation != null) {
+                Field field;
+                JsonpDeserializer<?> deserializer;
+                try {
+                    field = clazz.getDeclaredField(annotation.field());
+                    deserializer = (JsonpDeserializer<?>) field.get(null);
+                } catch (Exception e) {
+                    throw new RuntimeException("No deserializer found in '" + clazz.getName() + "." + annotation.field() + "'");
+                }
+                if (deserializer == null) {
+                    // Called while the class is being initialized: read the field on first use
+                    Field f = field;
+                    deserializer = new LazyDeserializer(() -> {
+                        try {
+                            return f.get(null);
+                        } catch (IllegalAccessException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    });
+                }
+                return Optional.of(deserializer);
             }
-        }
 
-        if (clazz == Void.class) {
-            return (JsonpDeserializer<T>)JsonpDeserializerBase.VOID;
-        }
+            if (clazz == Void.class) {
+                return Optional.of(JsonpDeserializerBase.VOID);
+            }
 
-        return null;
-    }
+            return Optional.empty();
+        }
+    };
 
     @Nullable
     @SuppressWarnings("unchecked")
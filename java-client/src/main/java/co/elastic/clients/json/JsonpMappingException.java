@@ -23,16 +23,27 @@ import jakarta.json.stream.JsonLocation;
 import jakarta.json.stream.JsonParser;
 import jakarta.json.stream.JsonParsingException;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 
 /**
  * A mapping exception. The exception message contains the JSON path and location where the problem happened.
+ * <p>
+ * The path is collected as the exception propagates up the JSON hierarchy, and the message is built only when it is
+ * requested. Capturing stack traces can be disabled with {@link #captureStackTraces(boolean)}, and is always skipped
+ * for exceptions that deserializers use internally to try alternatives.
  */
 public class JsonpMappingException extends JsonParsingException {
-    private final LinkedList<Object> path = new LinkedList<>();
+    // Path items, from the deepest to the outermost one
+    private final ArrayList<Object> path = new ArrayList<>(4);
     private Object ref;
 
+    private static volatile boolean captureStackTraces = true;
+
+    // Nesting depth of deserializations whose failure will be caught to try an alternative
+    private static final ThreadLocal<int[]> probingDepth = ThreadLocal.withInitial(() -> new int[1]);
+
     public JsonpMappingException(String message, JsonLocation location) {
         super(message, location);
     }
@@ -42,7 +53,47 @@ public class JsonpMappingException extends JsonParsingException {
     }
 
     public JsonpMappingException(Throwable cause, JsonLocation location) {
-        super(cause.toString(), cause, location);
+        // Message is built from the cause when needed
+        super(null, cause, location);
+    }
+
+    /**
+     * Should mapping exceptions capture stack traces? Defaults to {@code true}.
+     * <p>
+     * The stack trace of mapping exceptions is rarely useful, as the exception message has the JSON path and location of
+     * the error. Disabling it reduces the cost of deserialization errors, in particular with deeply nested objects.
+     */
+    public static void captureStackTraces(boolean value) {
+        captureStackTraces = value;
+    }
+
+    /**
+     * Do mapping exceptions capture stack traces?
+     */
+    public static boolean captureStackTraces() {
+        return captureStackTraces;
+    }
+
+    /**
+     * Runs a deserialization whose failure will be caught to try an alternative. Mapping exceptions it throws are only
+     * used for control flow, and don't capture a stack trace.
+     */
+    static <T> T probe(Supplier<T> fn) {
+        int[] depth = probingDepth.get();
+        depth[0]++;
+        try {
+            return fn.get();
+        } finally {
+            depth[0]--;
+        }
+    }
+
+    @Override
+    public Throwable fillInStackTrace() {
+        if (!captureStackTraces || probingDepth.get()[0] > 0) {
+            return this;
+        }
+        return super.fillInStackTrace();
     }
 
     private static final Pattern identifier = Pattern.compile("[_a-zA-Z][_a-zA-Z0-9]*");
@@ -59,7 +110,8 @@ public class JsonpMappingException extends JsonParsingException {
                 sb.append(className);
             }
         }
-        sb.append(": ").append(super.getMessage());
+        String message = super.getMessage();
+        sb.append(": ").append(message == null && getCause() != null ? getCause().toString() : message);
 
         if (!path.isEmpty()) {
             sb.append(" (JSON path: ");
@@ -83,7 +135,8 @@ public class JsonpMappingException extends JsonParsingException {
     // Package-visible for testing
     void path(StringBuilder sb) {
         String sep = "";
-        for (Object item : path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Object item = path.get(i);
             if (item instanceof Integer) {
                 sb.append("[").append(((Integer) item).intValue()).append("]");
             } else {
@@ -108,7 +161,7 @@ public class JsonpMappingException extends JsonParsingException {
 
     private JsonpMappingException prepend0 (Object ref, Object pathItem) {
         if (pathItem != null) {
-            this.path.addFirst(pathItem);
+            this.path.add(pathItem);
         }
         // Keep the deepest object reference in the JSON hierarchy
         if (this.ref == null) {
@@ -38,6 +38,7 @@ import java.io.Writer;
 import java.util.AbstractMap;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 public class JsonpUtils {
@@ -202,6 +203,23 @@ public class JsonpUtils {
         return mapper.jsonProvider().createParser(new StringReader(strObject));
     }
 
+    /**
+     * Consumes the next value of a parser, and returns a supplier of parsers that replay it. Each call to the supplier
+     * returns a new parser, positioned before the first event of the value.
+     * <p>
+     * If the parser is a {@link BufferingJsonParser}, the value is buffered by the underlying streaming library.
+     * Otherwise it is read as a JSON-P value, and replayed by parsing its serialized form.
+     */
+    public static Supplier<JsonParser> bufferValue(JsonParser parser, JsonpMapper mapper) {
+        if (parser instanceof BufferingJsonParser) {
+            return ((BufferingJsonParser) parser).bufferValue();
+        }
+
+        parser.next();
+        String json = parser.getValue().toString();
+        return () -> mapper.jsonProvider().createParser(new StringReader(json));
+    }
+
     public static String toString(JsonValue value) {
         switch(value.getValueType()) {
             case OBJECT:
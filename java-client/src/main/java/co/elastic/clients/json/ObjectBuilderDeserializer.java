@@ -28,6 +28,9 @@ import java.util.function.Supplier;
 
 /**
  * An object deserializer based on an {@link ObjectBuilder}.
+ * <p>
+ * Deserializers created by the factory methods use the {@link ObjectDeserializer.FieldSwitch} registered for their
+ * builder class, if any.
  */
 public class ObjectBuilderDeserializer<T, B extends ObjectBuilder<T>> extends DelegatingDeserializer<T, B> {
 
@@ -40,6 +43,7 @@ public class ObjectBuilderDeserializer<T, B extends ObjectBuilder<T>> extends De
         return new LazyDeserializer<>(() -> {
             ObjectDeserializer<B> builderDeser = new ObjectDeserializer<B>(builderCtor);
             builderDeserializerSetup.accept(builderDeser);
+            builderDeser.useRegisteredFieldSwitch();
             return new ObjectBuilderDeserializer<>(builderDeser);
         });
     }
@@ -52,6 +56,7 @@ public class ObjectBuilderDeserializer<T, B extends ObjectBuilder<T>> extends De
         return new LazyDeserializer<>(() -> {
                 ObjectDeserializer<B> builderDeser = new ObjectDeserializer<B>(builderCtor);
                 builderDeserializerSetup.accept(builderDeser);
+                builderDeser.useRegisteredFieldSwitch();
                 return new BuildFunctionDeserializer<>(builderDeser, buildFn);
             });
     }
@@ -62,6 +67,7 @@ public class ObjectBuilderDeserializer<T, B extends ObjectBuilder<T>> extends De
     ) {
         ObjectDeserializer<B> op = new ObjectDeserializer<>(ctor);
         configurer.accept(op);
+        op.useRegisteredFieldSwitch();
         return new ObjectBuilderDeserializer<>(op);
     }
 
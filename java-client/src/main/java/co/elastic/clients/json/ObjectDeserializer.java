@@ -27,9 +27,13 @@ import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiConsumer;
 import java.util.function.ObjIntConsumer;
 import java.util.function.Supplier;
@@ -86,6 +90,88 @@ public class ObjectDeserializer<ObjectType> implements JsonpDeserializer<ObjectT
         }
     }
 
+    /**
+     * Deserializes the fields of an object with straight-line code. Each field has its own call sites to its value
+     * deserializer and setter, which the JIT compiler can inline, unlike the shared call sites of the generic field
+     * deserializers.
+     */
+    @FunctionalInterface
+    public interface FieldSwitch<ObjectType> {
+        /**
+         * Deserializes a field. The parser is positioned on the field's key name.
+         *
+         * @return {@code true} if the field was deserialized, {@code false} if it should be deserialized by the generic
+         *         field deserializers.
+         */
+        boolean deserialize(String fieldName, ObjectType object, JsonParser parser, JsonpMapper mapper);
+    }
+
+    // Field switches by class of deserialized object, in registration order
+    private static final ConcurrentHashMap<Class<?>, List<FieldSwitch<?>>> fieldSwitches = new ConcurrentHashMap<>();
+    // Incremented on each registration change, so that deserializers look up their field switch again
+    private static final AtomicInteger fieldSwitchesVersion = new AtomicInteger();
+
+    /**
+     * Registers a field switch for objects of a given class. It is used by all object builder deserializers for that class,
+     * including those that were created or used before this call.
+     * <p>
+     * If a switch is already registered for this class, both are used: fields are first given to the switch that was
+     * registered first.
+     *
+     * @see ObjectBuilderDeserializer
+     */
+    public static <T> void registerFieldSwitch(Class<T> clazz, FieldSwitch<? super T> fieldSwitch) {
+        fieldSwitches.computeIfAbsent(clazz, c -> new CopyOnWriteArrayList<>()).add(fieldSwitch);
+        fieldSwitchesVersion.incrementAndGet();
+    }
+
+    /**
+     * Removes a field switch that was registered with {@link #registerFieldSwitch(Class, FieldSwitch)}. Deserializers
+     * stop using it, including those that were already used.
+     *
+     * @return {@code true} if the field switch was registered for this class.
+     */
+    public static <T> boolean unregisterFieldSwitch(Class<T> clazz, FieldSwitch<? super T> fieldSwitch) {
+        List<FieldSwitch<?>> switches = fieldSwitches.get(clazz);
+        if (switches == null || !switches.remove(fieldSwitch)) {
+            return false;
+        }
+        fieldSwitchesVersion.incrementAndGet();
+        return true;
+    }
+
+    // Composes the field switches registered for a class
+    @SuppressWarnings("unchecked")
+    private static @Nullable <ObjectType> FieldSwitch<ObjectType> registeredFieldSwitch(Class<?> clazz) {
+        List<FieldSwitch<?>> switches = fieldSwitches.get(clazz);
+        if (switches == null) {
+            return null;
+        }
+
+        FieldSwitch<ObjectType> result = null;
+        for (FieldSwitch<?> fieldSwitch : switches) {
+            FieldSwitch<ObjectType> first = result;
+            FieldSwitch<ObjectType> second = (FieldSwitch<ObjectType>) fieldSwitch;
+            result = first == null ? second : (name, object, parser, mapper) -> first.deserialize(name, object, parser, mapper) ||
+                second.deserialize(name, object, parser, mapper);
+        }
+        return result;
+    }
+
+    // The registered field switch of a deserializer, for a version of the registrations
+    private static final class RegisteredFieldSwitch<ObjectType> {
+        final int version;
+        @Nullable
+        final FieldSwitch<ObjectType> fieldSwitch;
+
+        RegisteredFieldSwitch(int version, @Nullable FieldSwitch<ObjectType> fieldSwitch) {
+            this.version = version;
+            this.fieldSwitch = fieldSwitch;
+        }
+    }
+
+    private static final RegisteredFieldSwitch<?> NO_FIELD_SWITCH = new RegisteredFieldSwitch<>(0, null);
+
     private static final FieldDeserializer<?> IGNORED_FIELD = new FieldDeserializer<Object>("-") {
 
         @Override
@@ -116,6 +202,10 @@ public class ObjectDeserializer<ObjectType> implements JsonpDeserializer<ObjectT
     private String defaultType;
     private FieldDeserializer<ObjectType> shortcutProperty;
     private QuadConsumer<ObjectType, String, JsonParser, JsonpMapper> unknownFieldHandler;
+    private FieldSwitch<ObjectType> fieldSwitch;
+    private boolean useRegisteredFieldSwitch;
+    @SuppressWarnings("unchecked")
+    private RegisteredFieldSwitch<ObjectType> registeredFieldSwitch = (RegisteredFieldSwitch<ObjectType>) NO_FIELD_SWITCH;
 
     public ObjectDeserializer(Supplier<ObjectType> constructor) {
         this.constructor = constructor;
@@ -153,7 +243,6 @@ public class ObjectDeserializer<ObjectType> implements JsonpDeserializer<ObjectT
             return null;
         }
 
-        String keyName = null;
         String fieldName = null;
 
         try {
@@ -177,23 +266,28 @@ public class ObjectDeserializer<ObjectType> implements JsonpDeserializer<ObjectT
                     JsonpUtils.expectEvent(parser, Event.START_OBJECT, event);
                 }
 
-                if (event == Event.START_OBJECT) {
-                    event = parser.next();
-                }
-                // Regular object: read all properties until we reach the end of the object
-                while (event != Event.END_OBJECT) {
-                    JsonpUtils.expectEvent(parser, Event.KEY_NAME, event);
-                    fieldName = parser.getString();
-
-                    FieldDeserializer<ObjectType> fieldDeserializer = fieldDeserializers.get(fieldName);
-                    if (fieldDeserializer == null) {
-                        parseUnknownField(parser, mapper, fieldName, value);
-                    } else {
-                        fieldDeserializer.deserialize(parser, mapper, fieldName, value);
+                FieldSwitch<ObjectType> fieldSwitch = fieldSwitch(value);
+                if (parser instanceof StreamingJsonParser) {
+                    // Read property names directly from the underlying parser
+                    StreamingJsonParser streamingParser = (StreamingJsonParser) parser;
+                    fieldName = event == Event.START_OBJECT ? streamingParser.nextKey() : parser.getString();
+                    while (fieldName != null) {
+                        deserializeField(fieldName, value, parser, mapper, fieldSwitch);
+                        fieldName = streamingParser.nextKey();
                     }
-                    event = parser.next();
+                } else {
+                    if (event == Event.START_OBJECT) {
+                        event = parser.next();
+                    }
+                    // Regular object: read all properties until we reach the end of the object
+                    while (event != Event.END_OBJECT) {
+                        JsonpUtils.expectEvent(parser, Event.KEY_NAME, event);
+                        fieldName = parser.getString();
+                        deserializeField(fieldName, value, parser, mapper, fieldSwitch);
+                        event = parser.next();
+                    }
+                    fieldName = null;
                 }
-                fieldName = null;
             } else {
                 // Union variant: find the property to find the proper deserializer
                 // We cannot start with a key name here.
@@ -214,13 +308,26 @@ public class ObjectDeserializer<ObjectType> implements JsonpDeserializer<ObjectT
                 JsonpUtils.expectNextEvent(parser, Event.END_OBJECT);
             }
         } catch (Exception e) {
-            // Add key name (for single key dicts) and field name if present
-            throw JsonpMappingException.from(e, value, fieldName, parser).prepend(value, keyName);
+            // Add field name if present
+            throw JsonpMappingException.from(e, value, fieldName, parser);
         }
 
         return value;
     }
 
+    private void deserializeField(
+        String fieldName, ObjectType value, JsonParser parser, JsonpMapper mapper, @Nullable FieldSwitch<ObjectType> fieldSwitch
+    ) {
+        if (fieldSwitch == null || !fieldSwitch.deserialize(fieldName, value, parser, mapper)) {
+            FieldDeserializer<ObjectType> fieldDeserializer = fieldDeserializers.get(fieldName);
+            if (fieldDeserializer == null) {
+                parseUnknownField(parser, mapper, fieldName, value);
+            } else {
+                fieldDeserializer.deserialize(parser, mapper, fieldName, value);
+            }
+        }
+    }
+
     protected void parseUnknownField(JsonParser parser, JsonpMapper mapper, String fieldName, ObjectType object) {
         if (this.unknownFieldHandler != null) {
             this.unknownFieldHandler.accept(object, fieldName, parser, mapper);
@@ -243,6 +350,38 @@ public class ObjectDeserializer<ObjectType> implements JsonpDeserializer<ObjectT
         this.unknownFieldHandler = unknownFieldHandler;
     }
 
+    /**
+     * Sets a field switch that is tried before the field deserializers.
+     */
+    public void setFieldSwitch(FieldSwitch<ObjectType> fieldSwitch) {
+        this.fieldSwitch = fieldSwitch;
+    }
+
+    /**
+     * Uses the field switch registered for the class of the deserialized objects, if any and if no field switch was set
+     * with {@link #setFieldSwitch(FieldSwitch)}.
+     */
+    void useRegisteredFieldSwitch() {
+        this.useRegisteredFieldSwitch = true;
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private FieldSwitch<ObjectType> fieldSwitch(ObjectType value) {
+        if (this.fieldSwitch != null || !useRegisteredFieldSwitch) {
+            return this.fieldSwitch;
+        }
+
+        // Look up the registered switch with the class of the object being deserialized, and again after registration changes
+        int version = fieldSwitchesVersion.get();
+        RegisteredFieldSwitch<ObjectType> registered = this.registeredFieldSwitch;
+        if (registered.version != version) {
+            registered = new RegisteredFieldSwitch<>(version, registeredFieldSwitch(value.getClass()));
+            this.registeredFieldSwitch = registered;
+        }
+        return registered.fieldSwitch;
+    }
+
     @SuppressWarnings("unchecked")
     public void ignore(String name) {
         this.fieldDeserializers.put(name, (FieldDeserializer<ObjectType>) IGNORED_FIELD);
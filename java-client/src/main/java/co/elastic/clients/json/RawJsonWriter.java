@@ -0,0 +1,33 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.clients.json;
+
+/**
+ * A generator that can write pre-encoded JSON as is, without parsing it.
+ */
+public interface RawJsonWriter {
+
+    /**
+     * Writes a complete JSON value, encoded in UTF-8, in a value position.
+     *
+     * @return {@code false} if this generator doesn't produce JSON text (e.g. a binary format), in which case nothing
+     *         was written and the value has to be written event by event.
+     */
+    boolean writeRawJson(byte[] json, int offset, int length);
+}
@@ -0,0 +1,238 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.json;
+
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonValue;
+import jakarta.json.stream.JsonLocation;
+import jakarta.json.stream.JsonParser;
+
+import javax.annotation.Nullable;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * A parser used after looking ahead in an object. It replays the properties that were read while looking ahead,
+ * then the current event of the original parser, and then continues with the original parser.
+ * <p>
+ * The replay parser must be positioned after the {@code START_OBJECT} of an object containing the properties that
+ * were read. Its {@code END_OBJECT} is not returned.
+ */
+class ReplayingJsonParser implements JsonParser {
+
+    @Nullable
+    private JsonParser replay;
+    private final JsonParser parser;
+    private Event pendingEvent;
+    // Depth in the replayed object, and last event returned by the replay parser
+    private int depth = 0;
+    private Event replayEvent;
+
+    private ReplayingJsonParser(@Nullable JsonParser replay, JsonParser parser, Event currentEvent) {
+        this.replay = replay;
+        this.parser = parser;
+        this.pendingEvent = currentEvent;
+    }
+
+    /**
+     * Creates a parser that replays {@code replay} (if not null), then {@code currentEvent}, which is the current
+     * event of {@code parser}, and then the rest of {@code parser}.
+     */
+    static JsonParser of(@Nullable JsonParser replay, JsonParser parser, Event currentEvent) {
+        return parser instanceof TextBufferJsonParser ?
+            new WithTextBuffer(replay, parser, currentEvent) :
+            new ReplayingJsonParser(replay, parser, currentEvent);
+    }
+
+    JsonParser current() {
+        return replay != null ? replay : parser;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return replay != null || pendingEvent != null || parser.hasNext();
+    }
+
+    @Override
+    public Event next() {
+        if (replay != null) {
+            Event event = replay.next();
+            switch (event) {
+                case START_OBJECT:
+                case START_ARRAY:
+                    depth++;
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    depth--;
+                    break;
+                default:
+                    break;
+            }
+
+            if (depth >= 0) {
+                replayEvent = event;
+                return event;
+            }
+
+            // End of the replayed object
+            replay = null;
+        }
+
+        if (pendingEvent != null) {
+            Event event = pendingEvent;
+            pendingEvent = null;
+            return event;
+        }
+
+        return parser.next();
+    }
+
+    // The replay parser consumed a whole object or array
+    private void structureConsumed() {
+        if (replay != null && (replayEvent == Event.START_OBJECT || replayEvent == Event.START_ARRAY)) {
+            depth--;
+            replayEvent = null;
+        }
+    }
+
+    @Override
+    public String getString() {
+        return current().getString();
+    }
+
+    @Override
+    public boolean isIntegralNumber() {
+        return current().isIntegralNumber();
+    }
+
+    @Override
+    public int getInt() {
+        return current().getInt();
+    }
+
+    @Override
+    public long getLong() {
+        return current().getLong();
+    }
+
+    @Override
+    public BigDecimal getBigDecimal() {
+        return current().getBigDecimal();
+    }
+
+    @Override
+    public JsonLocation getLocation() {
+        // Locations of the replay parser are in its own buffer
+        return parser.getLocation();
+    }
+
+    @Override
+    public JsonObject getObject() {
+        JsonObject result = current().getObject();
+        structureConsumed();
+        return result;
+    }
+
+    @Override
+    public JsonValue getValue() {
+        JsonValue result = current().getValue();
+        structureConsumed();
+        return result;
+    }
+
+    @Override
+    public JsonArray getArray() {
+        JsonArray result = current().getArray();
+        structureConsumed();
+        return result;
+    }
+
+    @Override
+    public Stream<JsonValue> getArrayStream() {
+        return getArray().stream();
+    }
+
+    @Override
+    public Stream<Map.Entry<String, JsonValue>> getObjectStream() {
+        return getObject().entrySet().stream();
+    }
+
+    @Override
+    public Stream<JsonValue> getValueStream() {
+        if (replay != null) {
+            throw new IllegalStateException("getValueStream() cannot be called while replaying");
+        }
+        return parser.getValueStream();
+    }
+
+    @Override
+    public void skipArray() {
+        current().skipArray();
+        structureConsumed();
+    }
+
+    @Override
+    public void skipObject() {
+        current().skipObject();
+        structureConsumed();
+    }
+
+    @Override
+    public void close() {
+        if (replay != null) {
+            replay.close();
+        }
+        parser.close();
+    }
+
+    private static class WithTextBuffer extends ReplayingJsonParser implements TextBufferJsonParser {
+
+        WithTextBuffer(@Nullable JsonParser replay, JsonParser parser, Event currentEvent) {
+            super(replay, parser, currentEvent);
+        }
+
+        @Override
+        public char[] getTextCharacters() {
+            JsonParser current = current();
+            if (current instanceof TextBufferJsonParser) {
+                return ((TextBufferJsonParser) current).getTextCharacters();
+            }
+            return current.getString().toCharArray();
+        }
+
+        @Override
+        public int getTextOffset() {
+            JsonParser current = current();
+            return current instanceof TextBufferJsonParser ? ((TextBufferJsonParser) current).getTextOffset() : 0;
+        }
+
+        @Override
+        public int getTextLength() {
+            JsonParser current = current();
+            if (current instanceof TextBufferJsonParser) {
+                return ((TextBufferJsonParser) current).getTextLength();
+            }
+            return current.getString().length();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.clients.json;
+
+import jakarta.json.stream.JsonParser;
+
+import javax.annotation.Nullable;
+
+/**
+ * A parser on top of a streaming library that can read property names directly from that library, without going
+ * through JSON-P events. Object deserializers use it to iterate on properties with one call per property.
+ *
+ * @see co.elastic.clients.json.jackson.JacksonJsonpParser
+ */
+public interface StreamingJsonParser extends JsonParser {
+
+    /**
+     * Moves to the next event, that must be either a {@link Event#KEY_NAME} or an {@link Event#END_OBJECT}.
+     *
+     * @return the key name, or {@code null} if the end of the object was reached.
+     * @throws UnexpectedJsonEventException if the next event is neither a key name nor the end of an object.
+     */
+    @Nullable
+    String nextKey();
+}
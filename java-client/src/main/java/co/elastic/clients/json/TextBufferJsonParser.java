@@ -0,0 +1,46 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.json;
+
+import jakarta.json.stream.JsonParser;
+
+/**
+ * A parser that gives access to the characters of the current string value without creating a {@code String}. This
+ * allows deserializers to match values against a known set of strings without allocating.
+ * <p>
+ * The returned buffer is owned by the parser and is only valid until the parser is moved to the next event.
+ */
+public interface TextBufferJsonParser extends JsonParser {
+
+    /**
+     * The buffer containing the characters of the current string value or key name.
+     */
+    char[] getTextCharacters();
+
+    /**
+     * The offset of the current value's first character in {@link #getTextCharacters()}.
+     */
+    int getTextOffset();
+
+    /**
+     * The number of characters of the current value in {@link #getTextCharacters()}.
+     */
+    int getTextLength();
+}
@@ -21,12 +21,16 @@ package co.elastic.clients.json;
 
 import co.elastic.clients.util.ObjectBuilder;
 import jakarta.json.JsonObject;
+import jakarta.json.JsonObjectBuilder;
+import jakarta.json.JsonValue;
 import jakarta.json.stream.JsonParser;
 import jakarta.json.stream.JsonParser.Event;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -34,6 +38,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
 
 public class UnionDeserializer<Union, Kind, Member> implements JsonpDeserializer<Union> {
 
@@ -53,6 +58,9 @@ public class UnionDeserializer<Union, Kind, Member> implements JsonpDeserializer
         private final Kind tag;
         // ObjectDeserializers provide the list of fields they know about
         private final Set<String> fields;
+        // Checks if a value can be deserialized by this member, if this can be known before deserializing it
+        @Nullable
+        private final BiPredicate<JsonParser, Event> matcher;
 
         SingleMemberHandler(Kind tag, JsonpDeserializer<? extends Member> deserializer) {
             this(tag, deserializer, null);
@@ -62,6 +70,7 @@ public class UnionDeserializer<Union, Kind, Member> implements JsonpDeserializer
             this.deserializer = deserializer;
             this.tag = tag;
             this.fields = fields;
+            this.matcher = fields == null ? valueMatcher(DelegatingDeserializer.unwrap(deserializer)) : null;
         }
 
         @Override
@@ -94,9 +103,20 @@ public class UnionDeserializer<Union, Kind, Member> implements JsonpDeserializer
         @Override
         Union deserialize(JsonParser parser, JsonpMapper mapper, Event event, BiFunction<Kind, Member, Union> buildFn) {
             RuntimeException exception = null;
-            for (EventHandler<Union, Kind, Member> d: handlers) {
+            int last = handlers.size() - 1;
+            for (int i = 0; i <= last; i++) {
+                SingleMemberHandler<Union, Kind, Member> handler = handlers.get(i);
+                if (i < last && handler.matcher != null && !handler.matcher.test(parser, event)) {
+                    // Skip members that cannot deserialize this value without trying and failing
+                    continue;
+                }
                 try {
-                    return d.deserialize(parser, mapper, event, buildFn);
+                    if (i < last) {
+                        // Failure will lead to trying the next member
+                        return JsonpMappingException.probe(() -> handler.deserialize(parser, mapper, event, buildFn));
+                    } else {
+                        return handler.deserialize(parser, mapper, event, buildFn);
+                    }
                 } catch(RuntimeException ex) {
                     exception = ex;
                 }
@@ -105,6 +125,34 @@ public class UnionDeserializer<Union, Kind, Member> implements JsonpDeserializer
         }
     }
 
+    /**
+     * Creates a matcher that checks the shape of a value (enum member, integral number, etc.) before trying to deserialize it.
+     * Returns {@code null} if it can only be known by deserializing the value.
+     */
+    @Nullable
+    private static BiPredicate<JsonParser, Event> valueMatcher(JsonpDeserializer<?> deserializer) {
+        if (deserializer instanceof JsonEnum.Deserializer) {
+            JsonEnum.Deserializer<?> enumDeserializer = (JsonEnum.Deserializer<?>) deserializer;
+            return (parser, event) -> enumDeserializer.lookup(parser, event) != null;
+        }
+
+        if (deserializer == JsonpDeserializerBase.INTEGER || deserializer == JsonpDeserializerBase.LONG) {
+            boolean isInt = deserializer == JsonpDeserializerBase.INTEGER;
+            return (parser, event) -> {
+                if (event != Event.VALUE_NUMBER || !parser.isIntegralNumber()) {
+                    return false;
+                }
+                if (isInt) {
+                    long value = parser.getLong();
+                    return value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE;
+                }
+                return true;
+            };
+        }
+
+        return null;
+    }
+
     public static class Builder<Union, Kind, Member> implements ObjectBuilder<JsonpDeserializer<Union>> {
 
         private final BiFunction<Kind, Member, Union> buildFn;
@@ -131,8 +179,12 @@ public class UnionDeserializer<Union, Kind, Member> implements JsonpDeserializer
                 otherMembers.put(e, mmh);
             }
             mmh.handlers.add(new SingleMemberHandler<>(tag, deserializer));
-            // Sort handlers by number of accepted events, which gives their specificity
-            mmh.handlers.sort(Comparator.comparingInt(a -> a.deserializer.acceptedEvents().size()));
+            // Sort handlers by number of accepted events, which gives their specificity, and then put first those that
+            // can check a value before deserializing it (e.g. integers before floating point numbers)
+            mmh.handlers.sort(Comparator
+                .<SingleMemberHandler<Union, Kind, Member>>comparingInt(a -> a.deserializer.acceptedEvents().size())
+                .thenComparing(a -> a.matcher == null)
+            );
         }
 
         private void addMember(Event e, Kind tag, UnionDeserializer.SingleMemberHandler<Union, Kind, Member> member) {
@@ -225,7 +277,8 @@ public class UnionDeserializer<Union, Kind, Member> implements JsonpDeserializer
             }
         }
 
-        this.otherMembers = otherMembers;
+        this.otherMembers = new EnumMap<>(Event.class);
+        this.otherMembers.putAll(otherMembers);
 
         this.nativeEvents = EnumSet.noneOf(Event.class);
         for (EventHandler<Union, Kind, Member> member: otherMembers.values()) {
@@ -263,25 +316,41 @@ public class UnionDeserializer<Union, Kind, Member> implements JsonpDeserializer
         EventHandler<Union, Kind, Member> member = otherMembers.get(event);
 
         if (member == null && event == Event.START_OBJECT && !objectMembers.isEmpty()) {
-            // Parse as an object to find matching field names
-            JsonObject object = parser.getObject();
-
-            for (String field: object.keySet()) {
+            // Read property names until one identifies a member, buffering the properties that were read
+            JsonObjectBuilder prefix = null;
+            while ((event = parser.next()) == Event.KEY_NAME) {
+                String field = parser.getString();
                 member = objectMembers.get(field);
                 if (member != null) {
                     break;
                 }
+                parser.next();
+                if (prefix == null) {
+                    prefix = JsonpUtils.provider().createObjectBuilder();
+                }
+                prefix.add(field, parser.getValue());
             }
 
-            if (member == null) {
+            if (member != null) {
+                // Replay the properties that were read, then the current key name, then the rest of the object
+                JsonParser replay = null;
+                if (prefix != null) {
+                    replay = JsonpUtils.objectParser(prefix.build(), mapper);
+                    replay.next(); // START_OBJECT
+                }
+                parser = ReplayingJsonParser.of(replay, parser, event);
+
+            } else {
+                // The whole object has been read
                 member = fallbackObjectMember;
+                if (member != null) {
+                    JsonObject object = prefix == null ? JsonValue.EMPTY_JSON_OBJECT : prefix.build();
+                    parser = JsonpUtils.objectParser(object, mapper);
+                    parser.next(); // START_OBJECT
+                }
             }
 
-            if (member != null) {
-                // Traverse the object we have inspected
-                parser = JsonpUtils.objectParser(object, mapper);
-                event = parser.next();
-            }
+            event = Event.START_OBJECT;
         }
 
         if (member == null) {
@@ -19,7 +19,11 @@
 
 package co.elastic.clients.json.jackson;
 
+import co.elastic.clients.json.RawJsonWriter;
 import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.json.JsonGeneratorImpl;
 import jakarta.json.JsonNumber;
 import jakarta.json.JsonString;
 import jakarta.json.JsonValue;
@@ -27,14 +31,18 @@ import jakarta.json.stream.JsonGenerationException;
 import jakarta.json.stream.JsonGenerator;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Map;
 
 /**
  * A JSONP generator implementation on top of Jackson.
  */
-public class JacksonJsonpGenerator implements JsonGenerator {
+public class JacksonJsonpGenerator implements JsonGenerator, RawJsonWriter {
 
     private final com.fasterxml.jackson.core.JsonGenerator generator;
 
@@ -101,6 +109,20 @@ public class JacksonJsonpGenerator implements JsonGenerator {
         return this;
     }
 
+    @Override
+    public boolean writeRawJson(byte[] json, int offset, int length) {
+        if (!(generator instanceof JsonGeneratorImpl)) {
+            // Not a JSON text generator
+            return false;
+        }
+        try {
+            generator.writeRawValue(new RawUtf8(json, offset, length));
+        } catch (IOException e) {
+            throw JacksonUtils.convertException(e);
+        }
+        return true;
+    }
+
     @Override
     public JsonGenerator write(String name, JsonValue value) {
         try {
@@ -370,4 +392,110 @@ public class JacksonJsonpGenerator implements JsonGenerator {
                 break;
         }
     }
+
+    /**
+     * UTF-8 bytes written as is. The byte-oriented methods are those used by Jackson's UTF-8 generator to write raw
+     * values, and copy the bytes directly to its buffer. Other methods go through a string.
+     */
+    private static class RawUtf8 implements SerializableString {
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+        private String value;
+
+        RawUtf8(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public String getValue() {
+            if (value == null) {
+                value = new String(bytes, offset, length, StandardCharsets.UTF_8);
+            }
+            return value;
+        }
+
+        @Override
+        public int charLength() {
+            return getValue().length();
+        }
+
+        @Override
+        public byte[] asUnquotedUTF8() {
+            return Arrays.copyOfRange(bytes, offset, offset + length);
+        }
+
+        @Override
+        public int appendUnquotedUTF8(byte[] buffer, int offset) {
+            if (offset + length > buffer.length) {
+                return -1;
+            }
+            System.arraycopy(bytes, this.offset, buffer, offset, length);
+            return length;
+        }
+
+        @Override
+        public int writeUnquotedUTF8(OutputStream out) throws IOException {
+            out.write(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public int putUnquotedUTF8(ByteBuffer buffer) {
+            if (length > buffer.remaining()) {
+                return -1;
+            }
+            buffer.put(bytes, offset, length);
+            return length;
+        }
+
+        @Override
+        public int appendUnquoted(char[] buffer, int offset) {
+            String str = getValue();
+            if (offset + str.length() > buffer.length) {
+                return -1;
+            }
+            str.getChars(0, str.length(), buffer, offset);
+            return str.length();
+        }
+
+        // Quoted forms are not used for raw values
+
+        @Override
+        public char[] asQuotedChars() {
+            return new SerializedString(getValue()).asQuotedChars();
+        }
+
+        @Override
+        public byte[] asQuotedUTF8() {
+            return new SerializedString(getValue()).asQuotedUTF8();
+        }
+
+        @Override
+        public int appendQuotedUTF8(byte[] buffer, int offset) {
+            return new SerializedString(getValue()).appendQuotedUTF8(buffer, offset);
+        }
+
+        @Override
+        public int appendQuoted(char[] buffer, int offset) {
+            return new SerializedString(getValue()).appendQuoted(buffer, offset);
+        }
+
+        @Override
+        public int writeQuotedUTF8(OutputStream out) throws IOException {
+            return new SerializedString(getValue()).writeQuotedUTF8(out);
+        }
+
+        @Override
+        public int putQuotedUTF8(ByteBuffer buffer) throws IOException {
+            return new SerializedString(getValue()).putQuotedUTF8(buffer);
+        }
+
+        @Override
+        public String toString() {
+            return getValue();
+        }
+    }
 }
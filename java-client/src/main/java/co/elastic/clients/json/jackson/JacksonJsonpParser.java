@@ -19,7 +19,12 @@
 
 package co.elastic.clients.json.jackson;
 
+import co.elastic.clients.json.BufferingJsonParser;
+import co.elastic.clients.json.StreamingJsonParser;
+import co.elastic.clients.json.TextBufferJsonParser;
+import co.elastic.clients.json.UnexpectedJsonEventException;
 import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import jakarta.json.JsonArray;
 import jakarta.json.JsonObject;
 import jakarta.json.JsonValue;
@@ -29,9 +34,9 @@ import jakarta.json.stream.JsonParsingException;
 
 import java.io.IOException;
 import java.math.BigDecimal;
-import java.util.EnumMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 /**
@@ -42,27 +47,28 @@ import java.util.stream.Stream;
  * getter method (e.g. {@link #getInt()} or {@link #getString()} should be called until the next call to {@link #next()}.
  * Such calls will throw an {@code IllegalStateException}.
  */
-public class JacksonJsonpParser implements JsonParser {
+public class JacksonJsonpParser implements TextBufferJsonParser, StreamingJsonParser, BufferingJsonParser {
 
     private final com.fasterxml.jackson.core.JsonParser parser;
 
     private boolean hasNextWasCalled = false;
 
-    private static final EnumMap<JsonToken, Event> tokenToEvent;
+    // Indexed by token ordinal
+    private static final Event[] tokenToEvent;
 
     static {
-        tokenToEvent = new EnumMap<>(JsonToken.class);
-        tokenToEvent.put(JsonToken.END_ARRAY, Event.END_ARRAY);
-        tokenToEvent.put(JsonToken.END_OBJECT, Event.END_OBJECT);
-        tokenToEvent.put(JsonToken.FIELD_NAME, Event.KEY_NAME);
-        tokenToEvent.put(JsonToken.START_ARRAY, Event.START_ARRAY);
-        tokenToEvent.put(JsonToken.START_OBJECT, Event.START_OBJECT);
-        tokenToEvent.put(JsonToken.VALUE_FALSE, Event.VALUE_FALSE);
-        tokenToEvent.put(JsonToken.VALUE_NULL, Event.VALUE_NULL);
-        tokenToEvent.put(JsonToken.VALUE_NUMBER_FLOAT, Event.VALUE_NUMBER);
-        tokenToEvent.put(JsonToken.VALUE_NUMBER_INT, Event.VALUE_NUMBER);
-        tokenToEvent.put(JsonToken.VALUE_STRING, Event.VALUE_STRING);
-        tokenToEvent.put(JsonToken.VALUE_TRUE, Event.VALUE_TRUE);
+        tokenToEvent = new Event[JsonToken.values().length];
+        tokenToEvent[JsonToken.END_ARRAY.ordinal()] = Event.END_ARRAY;
+        tokenToEvent[JsonToken.END_OBJECT.ordinal()] = Event.END_OBJECT;
+        tokenToEvent[JsonToken.FIELD_NAME.ordinal()] = Event.KEY_NAME;
+        tokenToEvent[JsonToken.START_ARRAY.ordinal()] = Event.START_ARRAY;
+        tokenToEvent[JsonToken.START_OBJECT.ordinal()] = Event.START_OBJECT;
+        tokenToEvent[JsonToken.VALUE_FALSE.ordinal()] = Event.VALUE_FALSE;
+        tokenToEvent[JsonToken.VALUE_NULL.ordinal()] = Event.VALUE_NULL;
+        tokenToEvent[JsonToken.VALUE_NUMBER_FLOAT.ordinal()] = Event.VALUE_NUMBER;
+        tokenToEvent[JsonToken.VALUE_NUMBER_INT.ordinal()] = Event.VALUE_NUMBER;
+        tokenToEvent[JsonToken.VALUE_STRING.ordinal()] = Event.VALUE_STRING;
+        tokenToEvent[JsonToken.VALUE_TRUE.ordinal()] = Event.VALUE_TRUE;
 
         // No equivalent for
         // - VALUE_EMBEDDED_OBJECT
@@ -118,11 +124,15 @@ public class JacksonJsonpParser implements JsonParser {
             token = fetchNextToken();
         }
 
+        return toEvent(token);
+    }
+
+    private Event toEvent(JsonToken token) {
         if (token == null) {
             throw new NoSuchElementException();
         }
 
-        Event result = tokenToEvent.get(token);
+        Event result = tokenToEvent[token.ordinal()];
         if (result == null) {
             throw new JsonParsingException("Unsupported Jackson event type '"+ token + "'", getLocation());
         }
@@ -130,6 +140,60 @@ public class JacksonJsonpParser implements JsonParser {
         return result;
     }
 
+    @Override
+    public String nextKey() {
+        JsonToken token;
+        try {
+            if (hasNextWasCalled) {
+                token = parser.currentToken();
+                hasNextWasCalled = false;
+                if (token == JsonToken.FIELD_NAME) {
+                    return parser.currentName();
+                }
+            } else {
+                // Jackson reads names with a faster path than for other tokens
+                String name = parser.nextFieldName();
+                if (name != null) {
+                    return name;
+                }
+                token = parser.currentToken();
+            }
+        } catch (IOException e) {
+            throw convertException(e);
+        }
+
+        if (token == JsonToken.END_OBJECT) {
+            return null;
+        }
+
+        throw new UnexpectedJsonEventException(this, toEvent(token), Event.KEY_NAME);
+    }
+
+    @Override
+    public Supplier<JsonParser> bufferValue() {
+        JsonToken token;
+        if (hasNextWasCalled) {
+            token = parser.currentToken();
+            hasNextWasCalled = false;
+        } else {
+            token = fetchNextToken();
+        }
+        Event event = toEvent(token);
+        if (event == Event.KEY_NAME || event == Event.END_OBJECT || event == Event.END_ARRAY) {
+            throw new UnexpectedJsonEventException(this, event);
+        }
+
+        TokenBuffer buffer = new TokenBuffer(parser);
+        try {
+            buffer.copyCurrentStructure(parser);
+        } catch (IOException e) {
+            throw convertException(e);
+        }
+
+        // Reading doesn't modify the buffer, which can therefore be replayed concurrently
+        return () -> new JacksonJsonpParser(buffer.asParser());
+    }
+
     @Override
     public String getString() {
         ensureTokenIsCurrent();
@@ -140,6 +204,36 @@ public class JacksonJsonpParser implements JsonParser {
         }
     }
 
+    @Override
+    public char[] getTextCharacters() {
+        ensureTokenIsCurrent();
+        try {
+            return parser.getTextCharacters();
+        } catch (IOException e) {
+            throw convertException(e);
+        }
+    }
+
+    @Override
+    public int getTextOffset() {
+        ensureTokenIsCurrent();
+        try {
+            return parser.getTextOffset();
+        } catch (IOException e) {
+            throw convertException(e);
+        }
+    }
+
+    @Override
+    public int getTextLength() {
+        ensureTokenIsCurrent();
+        try {
+            return parser.getTextLength();
+        } catch (IOException e) {
+            throw convertException(e);
+        }
+    }
+
     @Override
     public boolean isIntegralNumber() {
         ensureTokenIsCurrent();
@@ -306,7 +400,7 @@ public class JacksonJsonpParser implements JsonParser {
      */
     @Override
     public Stream<JsonValue> getValueStream() {
-        return JsonParser.super.getValueStream();
+        return TextBufferJsonParser.super.getValueStream();
     }
 }
 
@@ -0,0 +1,160 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.clients.transport;
+
+import javax.annotation.Nullable;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the encoded body of request objects that are sent many times, such as saved queries or health checks, so that
+ * they are serialized only once.
+ * <p>
+ * Caching is opt-in for each request object, with {@link #memoize(Object)}: the cache cannot know if a request contains
+ * mutable application objects, like documents, and a request must therefore not be modified once memoized. Requests are
+ * identified by identity and held with weak references, and encoded bodies are held with soft references so that they
+ * can be reclaimed under memory pressure.
+ * <pre>{@code
+ * RequestBodyCache cache = new RequestBodyCache();
+ * ElasticsearchClient client = new ElasticsearchClient(transport.withRequestBodyCache(cache));
+ *
+ * SearchRequest healthCheck = cache.memoize(SearchRequest.of(s -> s.index("products").size(0)));
+ * client.search(healthCheck, Void.class); // Serialized
+ * client.search(healthCheck, Void.class); // Sent from the cache
+ * }</pre>
+ */
+public class RequestBodyCache {
+
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    /**
+     * Enables caching the encoded body of a request object.
+     *
+     * @return the request, for chaining.
+     */
+    public <T> T memoize(T request) {
+        expungeCollected();
+        entries.putIfAbsent(new Key(request, collected), new Entry());
+        return request;
+    }
+
+    /**
+     * Removes a request object from this cache.
+     */
+    public void forget(Object request) {
+        entries.remove(new Key(request, null));
+    }
+
+    /**
+     * Is this request object memoized?
+     */
+    public boolean isMemoized(Object request) {
+        return entries.containsKey(new Key(request, null));
+    }
+
+    /**
+     * The number of memoized request objects.
+     */
+    public int size() {
+        expungeCollected();
+        return entries.size();
+    }
+
+    /**
+     * Returns the encoded body of a request. If the request is memoized, the body is encoded once for each content type and
+     * then returned from the cache. Otherwise it is encoded every time.
+     * <p>
+     * The returned array is shared and must not be modified.
+     *
+     * @param request the request object
+     * @param contentType the content type of the encoded body
+     * @param encoder encodes the request's body
+     */
+    public byte[] body(Object request, String contentType, Supplier<byte[]> encoder) {
+        Entry entry = entries.get(new Key(request, null));
+        if (entry == null) {
+            return encoder.get();
+        }
+
+        Body body = entry.body == null ? null : entry.body.get();
+        if (body != null && body.contentType.equals(contentType)) {
+            return body.bytes;
+        }
+
+        // Concurrent calls may encode several times, but will produce the same result
+        byte[] bytes = encoder.get();
+        entry.body = new SoftReference<>(new Body(contentType, bytes));
+        return bytes;
+    }
+
+    private void expungeCollected() {
+        Object key;
+        while ((key = collected.poll()) != null) {
+            entries.remove(key);
+        }
+    }
+
+    private static class Entry {
+        @Nullable
+        volatile SoftReference<Body> body;
+    }
+
+    private static class Body {
+        final String contentType;
+        final byte[] bytes;
+
+        Body(String contentType, byte[] bytes) {
+            this.contentType = contentType;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * An identity key that doesn't prevent the request object from being garbage collected.
+     */
+    private static class Key extends WeakReference<Object> {
+        private final int hash;
+
+        Key(Object referent, @Nullable ReferenceQueue<Object> queue) {
+            super(referent, queue);
+            this.hash = System.identityHashCode(referent);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key)) {
+                return false;
+            }
+            Object referent = get();
+            return referent != null && referent == ((Key) other).get();
+        }
+    }
+}
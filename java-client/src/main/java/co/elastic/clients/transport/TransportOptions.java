@@ -21,6 +21,8 @@ package co.elastic.clients.transport;
 
 import co.elastic.clients.util.ObjectBuilder;
 
+import javax.annotation.Nullable;
+import java.time.Duration;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
@@ -38,6 +40,17 @@ public interface TransportOptions {
 
     Function<List<String>, Boolean> onWarnings();
 
+    /**
+     * The deadline of requests, or {@code null} if requests have no deadline. When a request exceeds its deadline, the
+     * transport cancels it and, if supported, also cancels the corresponding tasks on the server.
+     * <p>
+     * Returns {@code null} by default, so that implementations that don't support deadlines send requests without one.
+     */
+    @Nullable
+    default Duration requestTimeout() {
+        return null;
+    }
+
     Builder toBuilder();
 
     default TransportOptions with(Consumer<Builder> fn) {
@@ -53,5 +66,16 @@ public interface TransportOptions {
         Builder setParameter(String name, String value);
 
         Builder onWarnings(Function<List<String>, Boolean> listener);
+
+        /**
+         * Sets the deadline of requests, or removes it if {@code timeout} is {@code null}.
+         * <p>
+         * The default implementation ignores the deadline, for implementations that don't support it.
+         *
+         * @see TransportOptions#requestTimeout()
+         */
+        default Builder requestTimeout(@Nullable Duration timeout) {
+            return this;
+        }
     }
 }
@@ -0,0 +1,77 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package co.elastic.clients.transport;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler shared by the client's timers: request deadlines, admission timeouts and batching delays. Uses a single
+ * daemon thread, created lazily.
+ * <p>
+ * This class is used internally by the client and should not be considered part of its public API. The scheduler thread
+ * only hands expired tasks over to an executor, so that tasks completing futures with application continuations, or
+ * sending requests, never delay other timers.
+ * <p>
+ * The components using this scheduler guard their state with a {@link java.util.concurrent.locks.ReentrantLock} rather
+ * than {@code synchronized}, since a virtual thread waiting on a monitor stays pinned to its carrier thread.
+ */
+public final class TransportScheduler {
+
+    private static final ScheduledThreadPoolExecutor INSTANCE;
+
+    static {
+        INSTANCE = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = new Thread(r, "elasticsearch-java-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        INSTANCE.setRemoveOnCancelPolicy(true);
+    }
+
+    private TransportScheduler() {
+    }
+
+    /**
+     * Runs a task after a delay, in the default asynchronous executor of {@link CompletableFuture}.
+     */
+    public static ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return INSTANCE.schedule(() -> CompletableFuture.runAsync(task), delay, unit);
+    }
+
+    /**
+     * Runs a task after a delay, in an executor.
+     */
+    public static ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit, Executor executor) {
+        return INSTANCE.schedule(() -> {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                // Executor was shut down: run the task anyway, as it may complete futures someone is waiting on
+                task.run();
+            }
+        }, delay, unit);
+    }
+}
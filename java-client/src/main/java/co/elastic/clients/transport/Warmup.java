@@ -0,0 +1,160 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport;
+
+import co.elastic.clients.json.DeserializerGraph;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.JsonpMapperBase;
+import co.elastic.clients.json.LazyDeserializer;
+import co.elastic.clients.util.ApiTypeHelper;
+import jakarta.json.stream.JsonParser;
+
+import java.io.StringReader;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Prepares response deserializers at application startup, so that the first requests don't pay for class loading,
+ * deserializer construction and cold code paths.
+ * <p>
+ * Deserializers are created lazily on first use, and for large responses like search results with aggregations, this
+ * involves hundreds of classes. A warmup builds the whole deserializer graph of the chosen endpoints or API namespaces,
+ * and can optionally run synthetic decode passes on every API type of these graphs.
+ * <pre>{@code
+ * new Warmup.Builder()
+ *     .namespace(ElasticsearchClient.class)
+ *     .namespace(ElasticsearchIndicesClient.class)
+ *     .decodePasses(2)
+ *     .build()
+ *     .run(transport.jsonpMapper());
+ * }</pre>
+ */
+public class Warmup {
+
+    private final List<JsonpDeserializer<?>> roots;
+    private final int decodePasses;
+
+    private Warmup(Builder builder) {
+        this.roots = Collections.unmodifiableList(new ArrayList<>(builder.roots));
+        this.decodePasses = builder.decodePasses;
+    }
+
+    /**
+     * Runs the warmup.
+     *
+     * @param mapper the mapper used for decode passes. It should be the one of the application's transport.
+     * @return the number of API types whose deserializers were initialized.
+     */
+    public int run(JsonpMapper mapper) {
+        Set<LazyDeserializer<?>> types = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (JsonpDeserializer<?> root: roots) {
+            types.addAll(DeserializerGraph.initialize(root));
+        }
+
+        for (int i = 0; i < decodePasses; i++) {
+            for (LazyDeserializer<?> type: types) {
+                decodeEmptyObject(type, mapper);
+            }
+        }
+
+        return types.size();
+    }
+
+    /**
+     * Decodes an empty object, which runs the deserializer's code path and loads the type's builder and value classes.
+     */
+    private static void decodeEmptyObject(JsonpDeserializer<?> deserializer, JsonpMapper mapper) {
+        if (!deserializer.acceptedEvents().contains(JsonParser.Event.START_OBJECT)) {
+            return;
+        }
+        try (ApiTypeHelper.DisabledChecksHandle h = ApiTypeHelper.DANGEROUS_disableRequiredPropertiesCheck(true);
+             JsonParser parser = mapper.jsonProvider().createParser(new StringReader("{}"))) {
+            deserializer.deserialize(parser, mapper);
+        } catch (Exception e) {
+            // Expected for types that cannot be empty, like unions
+        }
+    }
+
+    public static class Builder {
+        private final List<JsonpDeserializer<?>> roots = new ArrayList<>();
+        private int decodePasses = 0;
+
+        /**
+         * Adds the response and error deserializers of an endpoint.
+         */
+        public Builder endpoint(Endpoint<?, ?, ?> endpoint) {
+            if (endpoint instanceof JsonEndpoint<?, ?, ?>) {
+                roots.add(((JsonEndpoint<?, ?, ?>) endpoint).responseDeserializer());
+            }
+            JsonpDeserializer<?> errorDeserializer = endpoint.errorDeserializer(500);
+            if (errorDeserializer != null) {
+                roots.add(errorDeserializer);
+            }
+            return this;
+        }
+
+        /**
+         * Adds the response deserializers of all the endpoints of an API namespace, identified by its client class,
+         * e.g. {@code ElasticsearchClient.class} or {@code ElasticsearchIndicesClient.class}.
+         */
+        public Builder namespace(Class<?> clientClass) {
+            for (Method method: clientClass.getMethods()) {
+                if (Modifier.isStatic(method.getModifiers())) {
+                    continue;
+                }
+                JsonpDeserializer<?> deserializer = JsonpMapperBase.findDeserializer(method.getReturnType());
+                if (deserializer != null && !roots.contains(deserializer)) {
+                    roots.add(deserializer);
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Adds a deserializer, e.g. {@code Aggregate._TYPED_KEYS_DESERIALIZER} for types that are decoded by the application.
+         */
+        public Builder deserializer(JsonpDeserializer<?> deserializer) {
+            roots.add(deserializer);
+            return this;
+        }
+
+        /**
+         * The number of synthetic decode passes run on every API type after its deserializer has been built. Defaults
+         * to zero.
+         */
+        public Builder decodePasses(int decodePasses) {
+            if (decodePasses < 0) {
+                throw new IllegalArgumentException("Decode passes must be positive");
+            }
+            this.decodePasses = decodePasses;
+            return this;
+        }
+
+        public Warmup build() {
+            return new Warmup(this);
+        }
+    }
+}
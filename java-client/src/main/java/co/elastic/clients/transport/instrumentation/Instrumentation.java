@@ -0,0 +1,137 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport.instrumentation;
+
+import co.elastic.clients.transport.Endpoint;
+
+import java.util.function.BiConsumer;
+
+/**
+ * Tracing SPI called by transports for each request. It allows bridging the client with tracing systems such as
+ * OpenTelemetry.
+ * <p>
+ * Each request has a {@link Context}, within which a {@link Span} is created for each {@link Phase} of the request.
+ * Implementations must be thread-safe, as async requests go through several threads.
+ *
+ * @see NoopInstrumentation
+ */
+public interface Instrumentation {
+
+    /**
+     * Attribute for the endpoint id, e.g. {@code es/search}. Set on the request's context.
+     */
+    String ENDPOINT_ID = "elasticsearch.endpoint";
+
+    /**
+     * Attribute for the target index, if any. Set on the request's context.
+     */
+    String INDEX = "elasticsearch.index";
+
+    /**
+     * Attribute for the HTTP response status code. Set on the {@link Phase#SEND} span.
+     */
+    String STATUS_CODE = "http.response.status_code";
+
+    /**
+     * Attribute for the size of the request body, in bytes. Set on the {@link Phase#ENCODE} span.
+     */
+    String REQUEST_BODY_SIZE = "http.request.body.size";
+
+    /**
+     * Attribute for the size of the response body, in bytes, if known. Set on the {@link Phase#SEND} span.
+     */
+    String RESPONSE_BODY_SIZE = "http.response.body.size";
+
+    /**
+     * The phases of a request, each one having its own span.
+     */
+    enum Phase {
+        /**
+         * Serialization of the request to JSON.
+         */
+        ENCODE,
+
+        /**
+         * From sending the HTTP request to receiving the HTTP response, including time waiting for admission control.
+         */
+        SEND,
+
+        /**
+         * Deserialization of the JSON response.
+         */
+        DECODE
+    }
+
+    /**
+     * Starts tracing a request. Called before anything else happens for this request.
+     */
+    <RequestT> Context newContext(RequestT request, Endpoint<RequestT, ?, ?> endpoint);
+
+    /**
+     * The trace of a request.
+     */
+    interface Context {
+
+        /**
+         * Is this context recording? If not, transports will not compute span attributes.
+         */
+        boolean isRecording();
+
+        /**
+         * Starts a span for a phase of the request. Phases are sequential.
+         */
+        Span startSpan(Phase phase);
+
+        /**
+         * Sets an attribute on this context.
+         */
+        void setAttribute(String key, String value);
+
+        /**
+         * Adds trace propagation headers (e.g. W3C {@code traceparent}) to the HTTP request.
+         */
+        void injectHeaders(BiConsumer<String, String> headers);
+
+        /**
+         * Records the exception that caused the request to fail.
+         */
+        void recordException(Throwable throwable);
+
+        /**
+         * Ends the trace of this request. Called exactly once, after the last span has ended.
+         */
+        void end();
+    }
+
+    /**
+     * A span for a phase of a request.
+     */
+    interface Span {
+
+        void setAttribute(String key, String value);
+
+        void setAttribute(String key, long value);
+
+        /**
+         * Ends this span. Called exactly once.
+         */
+        void end();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport.instrumentation;
+
+import co.elastic.clients.transport.Endpoint;
+
+import java.util.function.BiConsumer;
+
+/**
+ * An instrumentation that does nothing. This is the default for transports. It allocates nothing, and its context is not
+ * recording so that transports don't compute attributes.
+ */
+public final class NoopInstrumentation implements Instrumentation {
+
+    public static final NoopInstrumentation INSTANCE = new NoopInstrumentation();
+
+    private NoopInstrumentation() {
+    }
+
+    @Override
+    public <RequestT> Context newContext(RequestT request, Endpoint<RequestT, ?, ?> endpoint) {
+        return NoopContext.INSTANCE;
+    }
+
+    private static final class NoopContext implements Context {
+        static final NoopContext INSTANCE = new NoopContext();
+
+        @Override
+        public boolean isRecording() {
+            return false;
+        }
+
+        @Override
+        public Span startSpan(Phase phase) {
+            return NoopSpan.INSTANCE;
+        }
+
+        @Override
+        public void setAttribute(String key, String value) {
+        }
+
+        @Override
+        public void injectHeaders(BiConsumer<String, String> headers) {
+        }
+
+        @Override
+        public void recordException(Throwable throwable) {
+        }
+
+        @Override
+        public void end() {
+        }
+    }
+
+    private static final class NoopSpan implements Span {
+        static final NoopSpan INSTANCE = new NoopSpan();
+
+        @Override
+        public void setAttribute(String key, String value) {
+        }
+
+        @Override
+        public void setAttribute(String key, long value) {
+        }
+
+        @Override
+        public void end() {
+        }
+    }
+}
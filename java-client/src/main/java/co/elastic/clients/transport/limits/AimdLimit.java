@@ -0,0 +1,126 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport.limits;
+
+import java.time.Duration;
+
+/**
+ * Additive increase / multiplicative decrease limit: the limit grows by one for each successful request while the
+ * limit is being used, and is multiplied by a backoff ratio when a request is rejected or exceeds a timeout.
+ * <p>
+ * This limit only reacts to rejections, and is a good fit when the cluster reliably sends {@code 429} responses when it
+ * is overloaded.
+ */
+public class AimdLimit implements Limit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long timeoutNanos;
+
+    private int limit;
+
+    private AimdLimit(Builder builder) {
+        if (builder.minLimit < 1 || builder.maxLimit < builder.minLimit) {
+            throw new IllegalArgumentException("Limits must verify 1 <= minLimit <= maxLimit");
+        }
+        if (builder.backoffRatio <= 0.0 || builder.backoffRatio >= 1.0) {
+            throw new IllegalArgumentException("Backoff ratio must be in the ]0, 1[ range");
+        }
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.backoffRatio = builder.backoffRatio;
+        this.timeoutNanos = builder.timeout.toNanos();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, builder.initialLimit));
+    }
+
+    @Override
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (dropped || rttNanos > timeoutNanos) {
+            limit = Math.max(minLimit, (int) (limit * backoffRatio));
+        } else if (inFlight * 2 >= limit) {
+            // Only grow if the limit is actually used, otherwise a long period of low traffic would
+            // let it grow without bounds.
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "AimdLimit[" + limit + "]";
+    }
+
+    public static class Builder {
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+        private double backoffRatio = 0.9;
+        private Duration timeout = Duration.ofSeconds(5);
+
+        /**
+         * The limit before any request has completed. Defaults to 20.
+         */
+        public Builder initialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * The lower bound of the limit. Defaults to 1.
+         */
+        public Builder minLimit(int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        /**
+         * The upper bound of the limit. Defaults to 200.
+         */
+        public Builder maxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * The ratio applied to the limit when a request is rejected. Defaults to 0.9.
+         */
+        public Builder backoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * Requests that take longer than this duration are considered as rejected. Defaults to 5 seconds.
+         */
+        public Builder timeout(Duration timeout) {
+            this.timeout = timeout;
+            return this;
+        }
+
+        public AimdLimit build() {
+            return new AimdLimit(this);
+        }
+    }
+}
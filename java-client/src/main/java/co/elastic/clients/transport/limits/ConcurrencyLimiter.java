@@ -0,0 +1,280 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport.limits;
+
+import co.elastic.clients.transport.TransportException;
+import co.elastic.clients.transport.TransportScheduler;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of requests that a transport has in flight concurrently. The limit is adjusted by a {@link Limit}
+ * algorithm from the latency and the rejections observed on completed requests, so that clients find the throughput
+ * that the cluster can sustain instead of overloading it.
+ * <p>
+ * Requests that exceed the limit are queued until a slot is available. The queue is bounded both in size and in waiting
+ * time: requests that cannot be queued or that waited too long fail with a {@link TransportException}.
+ * <p>
+ * A limiter can be shared by several transports so that they have a common limit.
+ */
+public class ConcurrencyLimiter {
+
+    private final Limit limit;
+    private final int maxQueueSize;
+    private final long maxQueueWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+    private int inFlight = 0;
+
+    private ConcurrencyLimiter(Builder builder) {
+        if (builder.maxQueueSize < 0) {
+            throw new IllegalArgumentException("Max queue size must be positive");
+        }
+        if (builder.maxQueueWait.isNegative()) {
+            throw new IllegalArgumentException("Max queue wait must be positive");
+        }
+        this.limit = builder.limit == null ? new VegasLimit.Builder().build() : builder.limit;
+        this.maxQueueSize = builder.maxQueueSize;
+        this.maxQueueWaitNanos = builder.maxQueueWait.toNanos();
+    }
+
+    /**
+     * Acquires a permit to send a request. The returned future completes when the request can be sent, or fails with a
+     * {@link TransportException} if the queue is full or the request waited for too long. Cancelling the future removes the
+     * request from the queue.
+     * <p>
+     * The permit must be released by calling one of its methods when the request completes.
+     *
+     * @param endpointId the identifier of the request's endpoint, used in error messages.
+     */
+    public CompletableFuture<Permit> acquire(String endpointId) {
+        Waiter waiter;
+
+        lock.lock();
+        try {
+            if (inFlight < limit.limit()) {
+                inFlight++;
+                CompletableFuture<Permit> result = new CompletableFuture<>();
+                result.complete(new Permit(inFlight));
+                return result;
+            }
+
+            if (queue.size() >= maxQueueSize || maxQueueWaitNanos == 0) {
+                CompletableFuture<Permit> result = new CompletableFuture<>();
+                result.completeExceptionally(new TransportException(
+                    "Concurrency limit reached (" + limit.limit() + " requests in flight, " + queue.size() + " queued)", endpointId
+                ));
+                return result;
+            }
+
+            waiter = new Waiter();
+            queue.add(waiter);
+        } finally {
+            lock.unlock();
+        }
+
+        waiter.timeout = TransportScheduler.schedule(() -> {
+            if (remove(waiter)) {
+                waiter.completeExceptionally(new TransportException(
+                    "Request waited more than " + Duration.ofNanos(maxQueueWaitNanos) + " for the concurrency limit", endpointId
+                ));
+            }
+        }, maxQueueWaitNanos, TimeUnit.NANOSECONDS);
+
+        // Leave the queue if the caller gave up
+        waiter.whenComplete((permit, ex) -> {
+            waiter.timeout.cancel(false);
+            if (ex != null) {
+                remove(waiter);
+            }
+        });
+
+        return waiter;
+    }
+
+    /**
+     * The current concurrency limit.
+     */
+    public int limit() {
+        lock.lock();
+        try {
+            return limit.limit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The number of requests currently in flight.
+     */
+    public int inFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The number of requests waiting for a permit.
+     */
+    public int queued() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean remove(Waiter waiter) {
+        lock.lock();
+        try {
+            return queue.remove(waiter);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Permit permit, boolean sample, boolean dropped) {
+        List<Waiter> granted = null;
+        List<Permit> permits = null;
+
+        lock.lock();
+        try {
+            inFlight--;
+            if (sample) {
+                limit.onSample(System.nanoTime() - permit.startNanos, permit.inFlight, dropped);
+            }
+
+            Waiter waiter;
+            while (inFlight < limit.limit() && (waiter = queue.poll()) != null) {
+                inFlight++;
+                if (granted == null) {
+                    granted = new ArrayList<>();
+                    permits = new ArrayList<>();
+                }
+                granted.add(waiter);
+                permits.add(new Permit(inFlight));
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        // Complete outside of the lock, as it runs the caller's continuations
+        if (granted != null) {
+            for (int i = 0; i < granted.size(); i++) {
+                if (!granted.get(i).complete(permits.get(i))) {
+                    // Cancelled or timed out in the meantime
+                    permits.get(i).onIgnore();
+                }
+            }
+        }
+    }
+
+    /**
+     * A permit to send a request. Exactly one of its methods has to be called when the request completes, and subsequent
+     * calls are ignored.
+     */
+    public final class Permit {
+        private final long startNanos = System.nanoTime();
+        private final int inFlight;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(int inFlight) {
+            this.inFlight = inFlight;
+        }
+
+        /**
+         * The request completed, its latency is used to update the limit.
+         */
+        public void onSuccess() {
+            if (released.compareAndSet(false, true)) {
+                release(this, true, false);
+            }
+        }
+
+        /**
+         * The request was rejected because the cluster is overloaded (e.g. a {@code 429} response). The limit will decrease.
+         */
+        public void onDropped() {
+            if (released.compareAndSet(false, true)) {
+                release(this, true, true);
+            }
+        }
+
+        /**
+         * The request failed for reasons unrelated to the cluster's load, or was cancelled. The limit is left unchanged.
+         */
+        public void onIgnore() {
+            if (released.compareAndSet(false, true)) {
+                release(this, false, false);
+            }
+        }
+    }
+
+    private static class Waiter extends CompletableFuture<Permit> {
+        volatile ScheduledFuture<?> timeout;
+    }
+
+    public static class Builder {
+        private Limit limit;
+        private int maxQueueSize = 1000;
+        private Duration maxQueueWait = Duration.ofSeconds(10);
+
+        /**
+         * The algorithm used to compute the limit. Defaults to a {@link VegasLimit} with its default settings.
+         */
+        public Builder limit(Limit limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        /**
+         * The maximum number of requests waiting for a permit. Defaults to 1000.
+         */
+        public Builder maxQueueSize(int maxQueueSize) {
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        /**
+         * How long requests can wait for a permit. Defaults to 10 seconds. A zero duration disables queuing.
+         */
+        public Builder maxQueueWait(Duration maxQueueWait) {
+            this.maxQueueWait = maxQueueWait;
+            return this;
+        }
+
+        public ConcurrencyLimiter build() {
+            return new ConcurrencyLimiter(this);
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport.limits;
+
+import co.elastic.clients.transport.TransportException;
+import co.elastic.clients.transport.TransportScheduler;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounds the memory used by the request and response bodies of all requests that a transport has in flight.
+ * <p>
+ * Before being sent, a request reserves its serialized size plus an estimate of its response size. The response estimate
+ * starts with a default value, and then follows the average size of the responses received for each endpoint.
+ * Requests that don't fit in the remaining budget are queued, in order, until enough bytes are released. The queue is
+ * bounded both in size and in waiting time: requests that cannot be queued or that waited too long fail with a
+ * {@link TransportException}. Setting the maximum queue wait to zero makes requests fail fast when the budget is exhausted.
+ * <p>
+ * A request that is larger than the whole budget is admitted when no other request is in flight.
+ * <p>
+ * A budget can be shared by several transports to protect the heap of the whole application.
+ */
+public class InFlightBytesBudget {
+
+    private final long maxBytes;
+    private final long defaultResponseBytes;
+    private final int maxQueueSize;
+    private final long maxQueueWaitNanos;
+
+    // Average response size by endpoint id
+    private final ConcurrentHashMap<String, Long> responseEstimates = new ConcurrentHashMap<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+    private long reservedBytes = 0;
+
+    private InFlightBytesBudget(Builder builder) {
+        if (builder.maxBytes <= 0) {
+            throw new IllegalArgumentException("Max bytes must be greater than zero");
+        }
+        if (builder.defaultResponseBytes < 0) {
+            throw new IllegalArgumentException("Default response bytes must be positive");
+        }
+        if (builder.maxQueueSize < 0) {
+            throw new IllegalArgumentException("Max queue size must be positive");
+        }
+        if (builder.maxQueueWait.isNegative()) {
+            throw new IllegalArgumentException("Max queue wait must be positive");
+        }
+        this.maxBytes = builder.maxBytes;
+        this.defaultResponseBytes = builder.defaultResponseBytes;
+        this.maxQueueSize = builder.maxQueueSize;
+        this.maxQueueWaitNanos = builder.maxQueueWait.toNanos();
+    }
+
+    /**
+     * Reserves memory for a request. The returned future completes when the request can be sent, or fails with a
+     * {@link TransportException} if the queue is full or the request waited for too long. Cancelling the future removes the
+     * request from the queue.
+     * <p>
+     * The reservation must be released once the response has been decoded.
+     *
+     * @param endpointId the identifier of the request's endpoint, used to estimate the response size.
+     * @param requestBytes the size of the serialized request body.
+     */
+    public CompletableFuture<Reservation> reserve(String endpointId, long requestBytes) {
+        long bytes = Math.max(0, requestBytes) + estimateResponseBytes(endpointId);
+        Waiter waiter;
+
+        lock.lock();
+        try {
+            // Keep ordering: don't overtake requests that are already waiting
+            if (queue.isEmpty() && fits(bytes)) {
+                reservedBytes += bytes;
+                CompletableFuture<Reservation> result = new CompletableFuture<>();
+                result.complete(new Reservation(endpointId, bytes));
+                return result;
+            }
+
+            if (queue.size() >= maxQueueSize || maxQueueWaitNanos == 0) {
+                CompletableFuture<Reservation> result = new CompletableFuture<>();
+                result.completeExceptionally(new TransportException(
+                    "In-flight bytes budget exhausted (" + reservedBytes + " of " + maxBytes + " bytes reserved, " +
+                        bytes + " requested, " + queue.size() + " queued)", endpointId
+                ));
+                return result;
+            }
+
+            waiter = new Waiter(endpointId, bytes);
+            queue.add(waiter);
+        } finally {
+            lock.unlock();
+        }
+
+        waiter.timeout = TransportScheduler.schedule(() -> {
+            if (remove(waiter)) {
+                waiter.completeExceptionally(new TransportException(
+                    "Request waited more than " + Duration.ofNanos(maxQueueWaitNanos) + " for the in-flight bytes budget", endpointId
+                ));
+            }
+        }, maxQueueWaitNanos, TimeUnit.NANOSECONDS);
+
+        // Leave the queue if the caller gave up
+        waiter.whenComplete((reservation, ex) -> {
+            waiter.timeout.cancel(false);
+            if (ex != null) {
+                remove(waiter);
+            }
+        });
+
+        return waiter;
+    }
+
+    /**
+     * The estimated size of the responses of an endpoint.
+     */
+    public long estimateResponseBytes(String endpointId) {
+        Long estimate = responseEstimates.get(endpointId);
+        return estimate == null ? defaultResponseBytes : estimate;
+    }
+
+    /**
+     * The maximum number of bytes that can be reserved.
+     */
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * The number of bytes currently reserved by in-flight requests.
+     */
+    public long reservedBytes() {
+        lock.lock();
+        try {
+            return reservedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The number of requests waiting for their reservation.
+     */
+    public int queued() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean fits(long bytes) {
+        return reservedBytes == 0 || reservedBytes + bytes <= maxBytes;
+    }
+
+    private boolean remove(Waiter waiter) {
+        List<Waiter> granted;
+        lock.lock();
+        try {
+            if (!queue.remove(waiter)) {
+                return false;
+            }
+            // The head of the queue may have changed
+            granted = grant();
+        } finally {
+            lock.unlock();
+        }
+        complete(granted);
+        return true;
+    }
+
+    private void release(Reservation reservation, long responseBytes) {
+        if (responseBytes >= 0) {
+            // Exponential moving average, giving more weight to recent responses
+            responseEstimates.compute(reservation.endpointId, (id, prev) -> {
+                long estimate = prev == null ? defaultResponseBytes : prev;
+                return estimate + (responseBytes - estimate) / 4;
+            });
+        }
+
+        List<Waiter> granted;
+        lock.lock();
+        try {
+            reservedBytes -= reservation.bytes;
+            granted = grant();
+        } finally {
+            lock.unlock();
+        }
+        complete(granted);
+    }
+
+    // Must be called with the lock held
+    private List<Waiter> grant() {
+        List<Waiter> granted = null;
+        Waiter waiter;
+        while ((waiter = queue.peek()) != null && fits(waiter.bytes)) {
+            queue.poll();
+            reservedBytes += waiter.bytes;
+            if (granted == null) {
+                granted = new ArrayList<>();
+            }
+            granted.add(waiter);
+        }
+        return granted;
+    }
+
+    // Complete outside of the lock, as it runs the caller's continuations
+    private void complete(List<Waiter> granted) {
+        if (granted != null) {
+            for (Waiter waiter: granted) {
+                Reservation reservation = new Reservation(waiter.endpointId, waiter.bytes);
+                if (!waiter.complete(reservation)) {
+                    // Cancelled or timed out in the meantime
+                    reservation.release(-1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Memory reserved for a request. It must be released when the response has been decoded or the request has failed.
+     */
+    public final class Reservation {
+        private final String endpointId;
+        private final long bytes;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Reservation(String endpointId, long bytes) {
+            this.endpointId = endpointId;
+            this.bytes = bytes;
+        }
+
+        /**
+         * The number of reserved bytes.
+         */
+        public long bytes() {
+            return bytes;
+        }
+
+        /**
+         * Releases the reservation. Subsequent calls are ignored.
+         *
+         * @param responseBytes the actual size of the response, used to refine the estimate for this endpoint, or {@code -1}
+         *        if unknown.
+         */
+        public void release(long responseBytes) {
+            if (released.compareAndSet(false, true)) {
+                InFlightBytesBudget.this.release(this, responseBytes);
+            }
+        }
+    }
+
+    private static class Waiter extends CompletableFuture<Reservation> {
+        final String endpointId;
+        final long bytes;
+        volatile ScheduledFuture<?> timeout;
+
+        Waiter(String endpointId, long bytes) {
+            this.endpointId = endpointId;
+            this.bytes = bytes;
+        }
+    }
+
+    public static class Builder {
+        private long maxBytes = Runtime.getRuntime().maxMemory() / 10;
+        private long defaultResponseBytes = 64 * 1024;
+        private int maxQueueSize = 1000;
+        private Duration maxQueueWait = Duration.ofSeconds(10);
+
+        /**
+         * The maximum number of bytes that in-flight requests can reserve. Defaults to 10% of the maximum heap size.
+         */
+        public Builder maxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * The estimated response size for endpoints that have not yet received a response. Defaults to 64 kB.
+         */
+        public Builder defaultResponseBytes(long defaultResponseBytes) {
+            this.defaultResponseBytes = defaultResponseBytes;
+            return this;
+        }
+
+        /**
+         * The maximum number of requests waiting for a reservation. Defaults to 1000.
+         */
+        public Builder maxQueueSize(int maxQueueSize) {
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        /**
+         * How long requests can wait for a reservation. Defaults to 10 seconds. A zero duration makes requests fail fast
+         * when the budget is exhausted.
+         */
+        public Builder maxQueueWait(Duration maxQueueWait) {
+            this.maxQueueWait = maxQueueWait;
+            return this;
+        }
+
+        public InFlightBytesBudget build() {
+            return new InFlightBytesBudget(this);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport.limits;
+
+/**
+ * An algorithm that computes the number of requests that can be in flight concurrently, from the latency and
+ * rejections observed on completed requests.
+ * <p>
+ * Implementations are only called by their {@link ConcurrencyLimiter} with its lock held, and therefore don't need to be
+ * thread-safe. A limit instance must not be shared between several limiters.
+ */
+public interface Limit {
+
+    /**
+     * The current concurrency limit. Always greater than zero.
+     */
+    int limit();
+
+    /**
+     * Updates the limit with the outcome of a request.
+     *
+     * @param rttNanos the request's round-trip time, in nanoseconds.
+     * @param inFlight the number of requests that were in flight when this request was sent, including itself.
+     * @param dropped {@code true} if the request was rejected by the server because it is overloaded.
+     */
+    void onSample(long rttNanos, int inFlight, boolean dropped);
+}
@@ -0,0 +1,168 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport.limits;
+
+/**
+ * Latency-based limit, modelled after TCP Vegas congestion control.
+ * <p>
+ * The lowest observed round-trip time is used as an estimate of the latency of an unloaded cluster. The ratio between
+ * this latency and the one of each request gives an estimate of the number of requests that are queued server-side:
+ * the limit grows when this queue is small, and shrinks when it grows or when requests are rejected. This allows
+ * backing off before the cluster starts rejecting requests.
+ * <p>
+ * Since the latency of an unloaded cluster changes over time, the minimum round-trip time is periodically reset.
+ */
+public class VegasLimit implements Limit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int alphaFactor;
+    private final int betaFactor;
+    private final int probeInterval;
+
+    private double limit;
+    private long rttNoLoad = 0;
+    private int samplesSinceProbe = 0;
+
+    private VegasLimit(Builder builder) {
+        if (builder.minLimit < 1 || builder.maxLimit < builder.minLimit) {
+            throw new IllegalArgumentException("Limits must verify 1 <= minLimit <= maxLimit");
+        }
+        if (builder.alphaFactor < 1 || builder.betaFactor <= builder.alphaFactor) {
+            throw new IllegalArgumentException("Factors must verify 1 <= alpha < beta");
+        }
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.alphaFactor = builder.alphaFactor;
+        this.betaFactor = builder.betaFactor;
+        this.probeInterval = builder.probeInterval;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, builder.initialLimit));
+    }
+
+    @Override
+    public int limit() {
+        return (int) limit;
+    }
+
+    @Override
+    public void onSample(long rttNanos, int inFlight, boolean dropped) {
+        if (rttNanos <= 0) {
+            return;
+        }
+
+        // Periodically forget the no-load latency, so that we adapt to changes in the cluster
+        if (++samplesSinceProbe >= probeInterval * limit) {
+            samplesSinceProbe = 0;
+            rttNoLoad = 0;
+        }
+
+        if (rttNoLoad == 0 || rttNanos < rttNoLoad) {
+            rttNoLoad = rttNanos;
+            return;
+        }
+
+        double log = Math.max(1.0, Math.log10(limit));
+        double newLimit;
+
+        if (dropped) {
+            newLimit = limit - log;
+        } else if (inFlight * 2 < limit) {
+            // Limit isn't used: no signal
+            return;
+        } else {
+            double queueSize = Math.ceil(limit * (1.0 - (double) rttNoLoad / rttNanos));
+            if (queueSize <= alphaFactor * log) {
+                newLimit = limit + log;
+            } else if (queueSize >= betaFactor * log) {
+                newLimit = limit - log;
+            } else {
+                return;
+            }
+        }
+
+        limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    @Override
+    public String toString() {
+        return "VegasLimit[" + limit() + "]";
+    }
+
+    public static class Builder {
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+        private int alphaFactor = 3;
+        private int betaFactor = 6;
+        private int probeInterval = 100;
+
+        /**
+         * The limit before any request has completed. Defaults to 20.
+         */
+        public Builder initialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * The lower bound of the limit. Defaults to 1.
+         */
+        public Builder minLimit(int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        /**
+         * The upper bound of the limit. Defaults to 200.
+         */
+        public Builder maxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * The limit grows while the estimated server-side queue is smaller than {@code alpha * log10(limit)}. Defaults to 3.
+         */
+        public Builder alphaFactor(int alphaFactor) {
+            this.alphaFactor = alphaFactor;
+            return this;
+        }
+
+        /**
+         * The limit shrinks when the estimated server-side queue is larger than {@code beta * log10(limit)}. Defaults to 6.
+         */
+        public Builder betaFactor(int betaFactor) {
+            this.betaFactor = betaFactor;
+            return this;
+        }
+
+        /**
+         * The no-load latency is reset every {@code probeInterval * limit} requests. Defaults to 100.
+         */
+        public Builder probeInterval(int probeInterval) {
+            this.probeInterval = probeInterval;
+            return this;
+        }
+
+        public VegasLimit build() {
+            return new VegasLimit(this);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.clients.transport.rest_client;
+
+import co.elastic.clients.transport.Version;
+import jakarta.json.spi.JsonProvider;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicNameValuePair;
+
+import javax.annotation.Nullable;
+import java.util.Locale;
+
+/**
+ * A binary format supported by Elasticsearch, used by {@link RestClientTransport} for request and response bodies instead
+ * of JSON. Binary formats are more compact and faster to parse, in particular for numeric data.
+ * <p>
+ * Parsers and generators for the format are created by a {@link JsonProvider}, for example a Jackson provider on top of a
+ * Jackson dataformat backend:
+ * <pre>{@code
+ * BinaryFormat smile = BinaryFormat.smile(new JacksonJsonProvider(new SmileFactory()));
+ * }</pre>
+ * Application objects are still (de)serialized by the transport's mapper, and must therefore support this provider's
+ * parsers and generators. For {@code JacksonJsonpMapper}, the provider must be a {@code JacksonJsonProvider}.
+ */
+public final class BinaryFormat {
+
+    /**
+     * Separator between the items of a bulk request in SMILE. This byte never appears in SMILE content.
+     */
+    private static final byte SMILE_BULK_SEPARATOR = (byte) 0xFF;
+
+    private final String name;
+    private final JsonProvider provider;
+    private final ContentType contentType;
+    @Nullable
+    private final Byte bulkSeparator;
+
+    private BinaryFormat(String name, JsonProvider provider, @Nullable Byte bulkSeparator) {
+        this.name = name;
+        this.provider = provider;
+        this.bulkSeparator = bulkSeparator;
+
+        if (Version.VERSION == null) {
+            this.contentType = ContentType.create("application/" + name);
+        } else {
+            this.contentType = ContentType.create(
+                "application/vnd.elasticsearch+" + name,
+                new BasicNameValuePair("compatible-with", String.valueOf(Version.VERSION.major()))
+            );
+        }
+    }
+
+    /**
+     * The SMILE format, with a provider for SMILE content.
+     */
+    public static BinaryFormat smile(JsonProvider provider) {
+        return new BinaryFormat("smile", provider, SMILE_BULK_SEPARATOR);
+    }
+
+    /**
+     * The CBOR format, with a provider for CBOR content. Elasticsearch doesn't accept bulk requests in CBOR, so they are
+     * sent as JSON.
+     */
+    public static BinaryFormat cbor(JsonProvider provider) {
+        return new BinaryFormat("cbor", provider, null);
+    }
+
+    /**
+     * The provider creating parsers and generators for this format.
+     */
+    public JsonProvider provider() {
+        return provider;
+    }
+
+    /**
+     * The content type of request bodies, also used to request responses in this format.
+     */
+    public ContentType contentType() {
+        return contentType;
+    }
+
+    /**
+     * The separator between items of a multi-document request such as bulk, or {@code null} if such requests must be sent
+     * as JSON.
+     */
+    @Nullable
+    Byte bulkSeparator() {
+        return bulkSeparator;
+    }
+
+    /**
+     * Is the response entity in this format? Accepts both the versioned and plain media types.
+     */
+    boolean isFormatOf(@Nullable HttpEntity entity) {
+        if (entity == null || entity.getContentType() == null) {
+            return false;
+        }
+        String mimeType = entity.getContentType().getValue();
+        int paramsStart = mimeType.indexOf(';');
+        if (paramsStart >= 0) {
+            mimeType = mimeType.substring(0, paramsStart);
+        }
+        mimeType = mimeType.trim().toLowerCase(Locale.ROOT);
+        return mimeType.equals("application/" + name) || mimeType.equals("application/vnd.elasticsearch+" + name);
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport.rest_client;
+
+import co.elastic.clients.transport.limits.ConcurrencyLimiter;
+import co.elastic.clients.transport.limits.InFlightBytesBudget;
+import org.apache.http.HttpEntity;
+import org.elasticsearch.client.Response;
+import org.elasticsearch.client.ResponseException;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Resources held by a request while it is in flight: an in-flight bytes reservation and a concurrency limiter permit.
+ */
+class RequestAdmission {
+
+    @Nullable
+    private volatile InFlightBytesBudget.Reservation reservation;
+    @Nullable
+    private volatile ConcurrencyLimiter.Permit permit;
+
+    private RequestAdmission() {
+    }
+
+    /**
+     * Admits a request, first reserving its memory and then acquiring a permit. Cancelling the returned future cancels
+     * the pending reservation or permit, and releases those that were already obtained.
+     */
+    static CompletableFuture<RequestAdmission> admit(
+        @Nullable ConcurrencyLimiter limiter, @Nullable InFlightBytesBudget budget, String endpointId, long requestBytes
+    ) {
+        RequestAdmission admission = new RequestAdmission();
+        CompletableFuture<RequestAdmission> result = new CompletableFuture<>();
+
+        CompletableFuture<InFlightBytesBudget.Reservation> futureReservation = budget == null ?
+            CompletableFuture.completedFuture(null) :
+            budget.reserve(endpointId, requestBytes);
+
+        result.whenComplete((a, ex) -> {
+            if (ex != null) {
+                futureReservation.cancel(false);
+            }
+        });
+
+        futureReservation.whenComplete((reservation, ex) -> {
+            if (ex != null) {
+                result.completeExceptionally(ex);
+                return;
+            }
+            admission.reservation = reservation;
+
+            CompletableFuture<ConcurrencyLimiter.Permit> futurePermit = limiter == null ?
+                CompletableFuture.completedFuture(null) :
+                limiter.acquire(endpointId);
+
+            result.whenComplete((a, ex2) -> {
+                if (ex2 != null) {
+                    futurePermit.cancel(false);
+                }
+            });
+
+            futurePermit.whenComplete((permit, ex2) -> {
+                admission.permit = permit;
+                if (ex2 != null) {
+                    admission.onFailure(null);
+                    result.completeExceptionally(ex2);
+                } else if (!result.complete(admission)) {
+                    // Cancelled in the meantime
+                    admission.onFailure(null);
+                }
+            });
+        });
+
+        return result;
+    }
+
+    /**
+     * A response was received. Releases the permit, but keeps the reservation until the response is decoded.
+     */
+    void onResponse() {
+        ConcurrencyLimiter.Permit permit = this.permit;
+        if (permit != null) {
+            permit.onSuccess();
+        }
+    }
+
+    /**
+     * The response has been decoded and its body can be garbage collected. Releases the reservation.
+     */
+    void onDecoded(Response response) {
+        InFlightBytesBudget.Reservation reservation = this.reservation;
+        if (reservation != null) {
+            HttpEntity entity = response.getEntity();
+            reservation.release(entity == null ? 0 : entity.getContentLength());
+        }
+    }
+
+    /**
+     * The request failed. Rejections because of cluster overload will lower the concurrency limit.
+     */
+    void onFailure(@Nullable Exception e) {
+        ConcurrencyLimiter.Permit permit = this.permit;
+        if (permit != null) {
+            if (isOverloaded(e)) {
+                permit.onDropped();
+            } else {
+                permit.onIgnore();
+            }
+        }
+
+        InFlightBytesBudget.Reservation reservation = this.reservation;
+        if (reservation != null) {
+            reservation.release(-1);
+        }
+    }
+
+    private static boolean isOverloaded(@Nullable Exception e) {
+        if (e instanceof ResponseException) {
+            int status = ((ResponseException) e).getResponse().getStatusLine().getStatusCode();
+            return status == 429 || status == 503;
+        }
+        return false;
+    }
+}
@@ -27,6 +27,8 @@ import org.apache.http.util.VersionInfo;
 import org.elasticsearch.client.RequestOptions;
 import org.elasticsearch.client.WarningsHandler;
 
+import javax.annotation.Nullable;
+import java.time.Duration;
 import java.util.AbstractMap;
 import java.util.Collection;
 import java.util.List;
@@ -38,6 +40,9 @@ import java.util.stream.Collectors;
 public class RestClientOptions implements TransportOptions {
 
     private final RequestOptions options;
+    @Nullable
+    private final Duration requestTimeout;
+    private final boolean searchServerTimeout;
 
     private static final String CLIENT_META_HEADER = "X-Elastic-Client-Meta";
     private static final String USER_AGENT_HEADER = "User-Agent";
@@ -56,12 +61,19 @@ public class RestClientOptions implements TransportOptions {
             options.headers().forEach(h -> builder.addHeader(h.getKey(), h.getValue()));
             options.queryParameters().forEach(builder::setParameter);
             builder.onWarnings(options.onWarnings());
+            builder.requestTimeout(options.requestTimeout());
             return builder.build();
         }
     }
 
     public RestClientOptions(RequestOptions options) {
+        this(options, null, false);
+    }
+
+    private RestClientOptions(RequestOptions options, @Nullable Duration requestTimeout, boolean searchServerTimeout) {
         this.options = addBuiltinHeaders(options.toBuilder()).build();
+        this.requestTimeout = requestTimeout;
+        this.searchServerTimeout = searchServerTimeout;
     }
 
     /**
@@ -96,14 +108,35 @@ public class RestClientOptions implements TransportOptions {
         return warnings -> options.getWarningsHandler().warningsShouldFailRequest(warnings);
     }
 
+    @Nullable
+    @Override
+    public Duration requestTimeout() {
+        return this.requestTimeout;
+    }
+
+    /**
+     * Whether the {@link #requestTimeout() request deadline} is also sent as the {@code timeout} parameter of search
+     * requests.
+     *
+     * @see Builder#searchServerTimeout(boolean)
+     */
+    public boolean searchServerTimeout() {
+        return this.searchServerTimeout;
+    }
+
     @Override
     public Builder toBuilder() {
-        return new Builder(options.toBuilder());
+        Builder builder = new Builder(options.toBuilder());
+        builder.requestTimeout = this.requestTimeout;
+        builder.searchServerTimeout = this.searchServerTimeout;
+        return builder;
     }
 
     public static class Builder implements TransportOptions.Builder {
 
         private RequestOptions.Builder builder;
+        private Duration requestTimeout;
+        private boolean searchServerTimeout;
 
         public Builder(RequestOptions.Builder builder) {
             this.builder = builder;
@@ -156,9 +189,32 @@ public class RestClientOptions implements TransportOptions {
             return this;
         }
 
+        @Override
+        public TransportOptions.Builder requestTimeout(@Nullable Duration timeout) {
+            if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+                throw new IllegalArgumentException("Request timeout must be greater than zero");
+            }
+            this.requestTimeout = timeout;
+            return this;
+        }
+
+        /**
+         * Also sends the {@link #requestTimeout(Duration) request deadline} as the {@code timeout} parameter of search
+         * requests that don't have their own, so that Elasticsearch stops searching when the deadline expires. Disabled
+         * by default.
+         * <p>
+         * Note that this changes the semantics of searches: when the server-side timeout is reached, Elasticsearch
+         * doesn't fail the search but returns the results collected so far, with {@code timed_out} set to {@code true}.
+         * Such a response may arrive before the client-side deadline expires, and results may then be partial.
+         */
+        public Builder searchServerTimeout(boolean value) {
+            this.searchServerTimeout = value;
+            return this;
+        }
+
         @Override
         public RestClientOptions build() {
-            return new RestClientOptions(addBuiltinHeaders(builder).build());
+            return new RestClientOptions(addBuiltinHeaders(builder).build(), requestTimeout, searchServerTimeout);
         }
     }
 
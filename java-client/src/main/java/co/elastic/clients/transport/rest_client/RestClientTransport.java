@@ -21,12 +21,22 @@ package co.elastic.clients.transport.rest_client;
 
 import co.elastic.clients.elasticsearch._types.ElasticsearchException;
 import co.elastic.clients.elasticsearch._types.ErrorResponse;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.tasks.ElasticsearchTasksAsyncClient;
+import co.elastic.clients.elasticsearch.tasks.NodeTasks;
+import co.elastic.clients.elasticsearch.tasks.TaskInfo;
 import co.elastic.clients.json.JsonpDeserializer;
 import co.elastic.clients.json.JsonpMapper;
 import co.elastic.clients.json.NdJsonpSerializable;
 import co.elastic.clients.transport.JsonEndpoint;
+import co.elastic.clients.transport.RequestBodyCache;
 import co.elastic.clients.transport.TransportException;
+import co.elastic.clients.transport.TransportScheduler;
 import co.elastic.clients.transport.Version;
+import co.elastic.clients.transport.instrumentation.Instrumentation;
+import co.elastic.clients.transport.instrumentation.NoopInstrumentation;
+import co.elastic.clients.transport.limits.ConcurrencyLimiter;
+import co.elastic.clients.transport.limits.InFlightBytesBudget;
 import co.elastic.clients.transport.endpoints.BooleanEndpoint;
 import co.elastic.clients.transport.endpoints.BooleanResponse;
 import co.elastic.clients.transport.ElasticsearchTransport;
@@ -34,6 +44,7 @@ import co.elastic.clients.transport.Endpoint;
 import co.elastic.clients.transport.TransportOptions;
 import co.elastic.clients.util.ApiTypeHelper;
 import co.elastic.clients.util.MissingRequiredPropertyException;
+import jakarta.json.spi.JsonProvider;
 import jakarta.json.stream.JsonGenerator;
 import jakarta.json.stream.JsonParser;
 import org.apache.http.HttpEntity;
@@ -53,12 +64,23 @@ import javax.annotation.Nullable;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.time.Duration;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class RestClientTransport implements ElasticsearchTransport {
 
@@ -82,25 +104,99 @@ public class RestClientTransport implements ElasticsearchTransport {
      */
     private static class RequestFuture<T> extends CompletableFuture<T> {
         private volatile Cancellable cancellable;
+        private volatile CompletableFuture<?> admission;
+        private volatile Instrumentation.Span sendSpan;
+
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<RequestFuture, Instrumentation.Span> SEND_SPAN =
+            AtomicReferenceFieldUpdater.newUpdater(RequestFuture.class, Instrumentation.Span.class, "sendSpan");
+
+        /**
+         * Takes the send span so that it is ended only once, either when the response is received or when the request
+         * completes without having been sent.
+         */
+        @Nullable
+        Instrumentation.Span takeSendSpan() {
+            return SEND_SPAN.getAndSet(this, null);
+        }
 
         @Override
         public boolean cancel(boolean mayInterruptIfRunning) {
             boolean cancelled = super.cancel(mayInterruptIfRunning);
-            if (cancelled && cancellable != null) {
-                cancellable.cancel();
+            if (cancelled) {
+                abort();
             }
             return cancelled;
         }
+
+        /**
+         * Stops waiting for admission, or cancels the request if it has been sent.
+         */
+        void abort() {
+            if (admission != null) {
+                admission.cancel(false);
+            }
+            if (cancellable != null) {
+                cancellable.cancel();
+            }
+        }
+    }
+
+    /**
+     * How blocking requests wait for their response.
+     */
+    public enum BlockingMode {
+        /**
+         * Blocking requests use {@link RestClient#performRequest(org.elasticsearch.client.Request)}. This waits for the response
+         * on a monitor, which pins virtual threads to their carrier thread. This is the default.
+         */
+        REST_CLIENT,
+
+        /**
+         * Blocking requests are sent asynchronously and the calling thread parks until the response is received, using only
+         * {@code java.util.concurrent} primitives. The response is then decoded in the calling thread. This never pins virtual
+         * threads to their carrier thread, and allows calling a blocking client from a large number of virtual threads.
+         */
+        NON_PINNING,
+
+        /**
+         * Uses {@link #NON_PINNING} when the calling thread is a virtual thread, and {@link #REST_CLIENT} otherwise.
+         */
+        AUTO
     }
 
     private final RestClient restClient;
     private final JsonpMapper mapper;
     private final RestClientOptions transportOptions;
+    private final BlockingMode blockingMode;
+    @Nullable
+    private final ConcurrencyLimiter limiter;
+    @Nullable
+    private final InFlightBytesBudget budget;
+    private final Instrumentation instrumentation;
+    @Nullable
+    private final BinaryFormat binaryFormat;
+    @Nullable
+    private final RequestBodyCache bodyCache;
 
     public RestClientTransport(RestClient restClient, JsonpMapper mapper, @Nullable TransportOptions options) {
+        this(restClient, mapper, options, BlockingMode.REST_CLIENT, null, null, NoopInstrumentation.INSTANCE, null, null);
+    }
+
+    private RestClientTransport(
+        RestClient restClient, JsonpMapper mapper, @Nullable TransportOptions options, BlockingMode blockingMode,
+        @Nullable ConcurrencyLimiter limiter, @Nullable InFlightBytesBudget budget, Instrumentation instrumentation,
+        @Nullable BinaryFormat binaryFormat, @Nullable RequestBodyCache bodyCache
+    ) {
         this.restClient = restClient;
         this.mapper = mapper;
         this.transportOptions = options == null ? RestClientOptions.initialOptions() : RestClientOptions.of(options);
+        this.blockingMode = blockingMode;
+        this.limiter = limiter;
+        this.budget = budget;
+        this.instrumentation = instrumentation;
+        this.binaryFormat = binaryFormat;
+        this.bodyCache = bodyCache;
     }
 
     public RestClientTransport(RestClient restClient, JsonpMapper mapper) {
@@ -118,7 +214,133 @@ public class RestClientTransport implements ElasticsearchTransport {
      * Copies this {@link #RestClientTransport} with specific request options.
      */
     public RestClientTransport withRequestOptions(@Nullable TransportOptions options) {
-        return new RestClientTransport(this.restClient, this.mapper, options);
+        return new RestClientTransport(
+            this.restClient, this.mapper, options, this.blockingMode, this.limiter, this.budget, this.instrumentation,
+            this.binaryFormat, this.bodyCache
+        );
+    }
+
+    /**
+     * Copies this {@link #RestClientTransport} with a different blocking mode.
+     *
+     * @see BlockingMode
+     */
+    public RestClientTransport withBlockingMode(BlockingMode blockingMode) {
+        return new RestClientTransport(
+            this.restClient, this.mapper, this.transportOptions, blockingMode, this.limiter, this.budget, this.instrumentation,
+            this.binaryFormat, this.bodyCache
+        );
+    }
+
+    /**
+     * Copies this {@link #RestClientTransport} with a concurrency limiter, or without one if {@code limiter} is {@code null}.
+     * Requests that exceed the limiter's concurrency limit are queued until they can be sent.
+     *
+     * @see ConcurrencyLimiter
+     */
+    public RestClientTransport withConcurrencyLimiter(@Nullable ConcurrencyLimiter limiter) {
+        return new RestClientTransport(
+            this.restClient, this.mapper, this.transportOptions, this.blockingMode, limiter, this.budget, this.instrumentation,
+            this.binaryFormat, this.bodyCache
+        );
+    }
+
+    /**
+     * The concurrency limiter used by this transport, if any.
+     */
+    @Nullable
+    public ConcurrencyLimiter concurrencyLimiter() {
+        return this.limiter;
+    }
+
+    /**
+     * Copies this {@link #RestClientTransport} with an in-flight bytes budget, or without one if {@code budget} is {@code null}.
+     * Requests that don't fit in the budget are queued until they can be sent.
+     *
+     * @see InFlightBytesBudget
+     */
+    public RestClientTransport withInFlightBytesBudget(@Nullable InFlightBytesBudget budget) {
+        return new RestClientTransport(
+            this.restClient, this.mapper, this.transportOptions, this.blockingMode, this.limiter, budget, this.instrumentation,
+            this.binaryFormat, this.bodyCache
+        );
+    }
+
+    /**
+     * The in-flight bytes budget used by this transport, if any.
+     */
+    @Nullable
+    public InFlightBytesBudget inFlightBytesBudget() {
+        return this.budget;
+    }
+
+    /**
+     * Copies this {@link #RestClientTransport} with an instrumentation that will trace all requests.
+     *
+     * @see Instrumentation
+     */
+    public RestClientTransport withInstrumentation(Instrumentation instrumentation) {
+        return new RestClientTransport(
+            this.restClient, this.mapper, this.transportOptions, this.blockingMode, this.limiter, this.budget, instrumentation,
+            this.binaryFormat, this.bodyCache
+        );
+    }
+
+    /**
+     * The instrumentation used by this transport. Defaults to {@link NoopInstrumentation}.
+     */
+    public Instrumentation instrumentation() {
+        return this.instrumentation;
+    }
+
+    /**
+     * Copies this {@link #RestClientTransport} with a binary format for request and response bodies, or with JSON if
+     * {@code format} is {@code null}. Responses are decoded according to their content type, so that responses sent as JSON
+     * (e.g. by a proxy) are still understood.
+     *
+     * @see BinaryFormat
+     */
+    public RestClientTransport withBinaryFormat(@Nullable BinaryFormat format) {
+        return new RestClientTransport(
+            this.restClient, this.mapper, this.transportOptions, this.blockingMode, this.limiter, this.budget, this.instrumentation,
+            format, this.bodyCache
+        );
+    }
+
+    /**
+     * The binary format used by this transport for request and response bodies, or {@code null} if it uses JSON.
+     */
+    @Nullable
+    public BinaryFormat binaryFormat() {
+        return this.binaryFormat;
+    }
+
+    /**
+     * Copies this {@link #RestClientTransport} with a cache for the encoded body of memoized requests, or without one if
+     * {@code cache} is {@code null}.
+     *
+     * @see RequestBodyCache
+     */
+    public RestClientTransport withRequestBodyCache(@Nullable RequestBodyCache cache) {
+        return new RestClientTransport(
+            this.restClient, this.mapper, this.transportOptions, this.blockingMode, this.limiter, this.budget, this.instrumentation,
+            this.binaryFormat, cache
+        );
+    }
+
+    /**
+     * The request body cache used by this transport, if any.
+     */
+    @Nullable
+    public RequestBodyCache requestBodyCache() {
+        return this.bodyCache;
+    }
+
+    /**
+     * The way blocking requests wait for their response.
+     */
+    public BlockingMode blockingMode() {
+        return this.blockingMode;
     }
 
     @Override
@@ -142,9 +364,155 @@ public class RestClientTransport implements ElasticsearchTransport {
         @Nullable TransportOptions options
     ) throws IOException {
 
-        org.elasticsearch.client.Request clientReq = prepareLowLevelRequest(request, endpoint, options);
-        org.elasticsearch.client.Response clientResp = restClient.performRequest(clientReq);
-        return getHighLevelResponse(clientResp, endpoint);
+        RestClientOptions requestOptions = options == null ? transportOptions : RestClientOptions.of(options);
+        if (requestOptions.requestTimeout() != null) {
+            // Deadlines are enforced by the async implementation
+            CompletableFuture<ResponseT> future = performRequestAsync(request, endpoint, requestOptions);
+            return await(future, () -> future.cancel(true));
+        }
+
+        Instrumentation.Context trace = instrumentation.newContext(request, endpoint);
+        try {
+            org.elasticsearch.client.Request clientReq = prepareLowLevelRequest(request, endpoint, requestOptions, null, trace);
+            boolean nonPinning = blockingMode == BlockingMode.NON_PINNING || (blockingMode == BlockingMode.AUTO && isVirtualThread());
+
+            Instrumentation.Span span = trace.startSpan(Instrumentation.Phase.SEND);
+            RequestAdmission admission = null;
+            org.elasticsearch.client.Response clientResp;
+            try {
+                if (limiter != null || budget != null) {
+                    CompletableFuture<RequestAdmission> futureAdmission =
+                        RequestAdmission.admit(limiter, budget, endpoint.id(), requestBytes(clientReq));
+                    admission = await(futureAdmission, () -> futureAdmission.cancel(false));
+                }
+
+                if (nonPinning) {
+                    clientResp = performNonPinningRequest(clientReq);
+                } else {
+                    clientResp = restClient.performRequest(clientReq);
+                }
+            } catch (Exception e) {
+                if (admission != null) {
+                    admission.onFailure(e);
+                }
+                endSendSpan(span, trace, e);
+                throw e;
+            }
+
+            endSendSpan(span, trace, clientResp);
+            if (admission != null) {
+                admission.onResponse();
+            }
+
+            span = trace.startSpan(Instrumentation.Phase.DECODE);
+            try {
+                return getHighLevelResponse(clientResp, endpoint);
+            } finally {
+                span.end();
+                if (admission != null) {
+                    admission.onDecoded(clientResp);
+                }
+            }
+        } catch (Exception e) {
+            trace.recordException(e);
+            throw e;
+        } finally {
+            trace.end();
+        }
+    }
+
+    private static void endSendSpan(Instrumentation.Span span, Instrumentation.Context trace, Exception e) {
+        endSendSpan(span, trace, e instanceof ResponseException ? ((ResponseException) e).getResponse() : null);
+    }
+
+    private static void endSendSpan(Instrumentation.Span span, Instrumentation.Context trace, @Nullable Response clientResp) {
+        if (clientResp != null && trace.isRecording()) {
+            span.setAttribute(Instrumentation.STATUS_CODE, clientResp.getStatusLine().getStatusCode());
+            HttpEntity entity = clientResp.getEntity();
+            if (entity != null && entity.getContentLength() >= 0) {
+                span.setAttribute(Instrumentation.RESPONSE_BODY_SIZE, entity.getContentLength());
+            }
+        }
+        span.end();
+    }
+
+    private static long requestBytes(org.elasticsearch.client.Request clientReq) {
+        HttpEntity entity = clientReq.getEntity();
+        return entity == null ? 0 : entity.getContentLength();
+    }
+
+    /**
+     * Sends a request asynchronously and parks the current thread until the response is available. Unlike
+     * {@link RestClient#performRequest(org.elasticsearch.client.Request)} this doesn't wait on a monitor, and therefore doesn't
+     * pin virtual threads to their carrier thread.
+     */
+    private org.elasticsearch.client.Response performNonPinningRequest(org.elasticsearch.client.Request clientReq)
+        throws IOException {
+
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        Cancellable cancellable = restClient.performRequestAsync(clientReq, new ResponseListener() {
+            @Override
+            public void onSuccess(Response response) {
+                future.complete(response);
+            }
+
+            @Override
+            public void onFailure(Exception exception) {
+                future.completeExceptionally(exception);
+            }
+        });
+
+        return await(future, cancellable::cancel);
+    }
+
+    /**
+     * Waits for a future to complete, unwrapping its failure. The {@code onInterrupt} action is run if the current thread
+     * is interrupted while waiting.
+     */
+    private static <T> T await(CompletableFuture<T> future, Runnable onInterrupt) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            onInterrupt.run();
+            Thread.currentThread().interrupt();
+            InterruptedIOException ioe = new InterruptedIOException("Request interrupted");
+            ioe.initCause(e);
+            throw ioe;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    // Thread.isVirtual() exists since Java 21. Looked up dynamically as this library targets Java 8.
+    private static final MethodHandle IS_VIRTUAL = findIsVirtual();
+
+    private static MethodHandle findIsVirtual() {
+        try {
+            return MethodHandles.publicLookup().findVirtual(Thread.class, "isVirtual", MethodType.methodType(boolean.class));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static boolean isVirtualThread() {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (boolean) IS_VIRTUAL.invokeExact(Thread.currentThread());
+        } catch (Throwable t) {
+            return false;
+        }
     }
 
     public <RequestT, ResponseT, ErrorT> CompletableFuture<ResponseT> performRequestAsync(
@@ -152,40 +520,261 @@ public class RestClientTransport implements ElasticsearchTransport {
         Endpoint<RequestT, ResponseT, ErrorT> endpoint,
         @Nullable TransportOptions options
     ) {
-        org.elasticsearch.client.Request clientReq = prepareLowLevelRequest(request, endpoint, options);
+        RestClientOptions requestOptions = options == null ? transportOptions : RestClientOptions.of(options);
+        Duration timeout = requestOptions.requestTimeout();
+
+        // Identify the request's server-side tasks, unless the application already does it
+        String opaqueId = null;
+        if (timeout != null && cancellableTaskActions.containsKey(endpoint.id()) &&
+            requestOptions.restClientRequestOptions().getHeaders().stream()
+            .noneMatch(h -> h.getName().equalsIgnoreCase(OPAQUE_ID_HEADER))) {
+            opaqueId = UUID.randomUUID().toString();
+        }
+
+        Instrumentation.Context trace = instrumentation.newContext(request, endpoint);
+        org.elasticsearch.client.Request clientReq;
+        try {
+            clientReq = prepareLowLevelRequest(request, endpoint, requestOptions, opaqueId, trace);
+        } catch (RuntimeException e) {
+            trace.recordException(e);
+            trace.end();
+            throw e;
+        }
 
         RequestFuture<ResponseT> future = new RequestFuture<>();
 
+        if (instrumentation != NoopInstrumentation.INSTANCE) {
+            future.sendSpan = trace.startSpan(Instrumentation.Phase.SEND);
+            future.whenComplete((r, ex) -> {
+                // Completed before a response was received: admission failed, cancelled or expired. Otherwise the
+                // response listener took the send span, and ends the trace once the response is decoded.
+                Instrumentation.Span span = future.takeSendSpan();
+                if (span != null) {
+                    span.end();
+                    if (ex != null) {
+                        trace.recordException(ex);
+                    }
+                    trace.end();
+                }
+            });
+        }
+
         // Propagate required property checks to the thread that will decode the response
         boolean disableRequiredChecks = ApiTypeHelper.requiredPropertiesCheckDisabled();
 
+        if (timeout != null) {
+            String taskOpaqueId = opaqueId;
+            ScheduledFuture<?> timer = TransportScheduler.schedule(
+                () -> expire(future, endpoint.id(), timeout, requestOptions, taskOpaqueId), timeout.toNanos(), TimeUnit.NANOSECONDS
+            );
+            future.whenComplete((r, ex) -> timer.cancel(false));
+        }
+
+        if (limiter == null && budget == null) {
+            sendAsync(clientReq, endpoint, future, disableRequiredChecks, null, trace);
+        } else {
+            CompletableFuture<RequestAdmission> futureAdmission =
+                RequestAdmission.admit(limiter, budget, endpoint.id(), requestBytes(clientReq));
+            future.admission = futureAdmission;
+            futureAdmission.whenComplete((admission, ex) -> {
+                if (ex != null) {
+                    future.completeExceptionally(ex);
+                } else if (future.isDone()) {
+                    // Cancelled while waiting
+                    admission.onFailure(null);
+                } else {
+                    sendAsync(clientReq, endpoint, future, disableRequiredChecks, admission, trace);
+                }
+            });
+        }
+
+        return future;
+    }
+
+    private <ResponseT> void sendAsync(
+        org.elasticsearch.client.Request clientReq,
+        Endpoint<?, ResponseT, ?> endpoint,
+        RequestFuture<ResponseT> future,
+        boolean disableRequiredChecks,
+        @Nullable RequestAdmission admission,
+        Instrumentation.Context trace
+    ) {
         future.cancellable = restClient.performRequestAsync(clientReq, new ResponseListener() {
             @Override
             public void onSuccess(Response clientResp) {
+                Instrumentation.Span span = future.takeSendSpan();
+                if (span == null && future.isDone()) {
+                    // Response received after the request was cancelled or expired: its trace has already ended
+                    if (admission != null) {
+                        admission.onFailure(null);
+                    }
+                    return;
+                }
+                if (span != null) {
+                    endSendSpan(span, trace, clientResp);
+                }
+                if (admission != null) {
+                    admission.onResponse();
+                }
+                ResponseT response = null;
+                Exception failure = null;
+                span = trace.startSpan(Instrumentation.Phase.DECODE);
                 try (ApiTypeHelper.DisabledChecksHandle h =
                          ApiTypeHelper.DANGEROUS_disableRequiredPropertiesCheck(disableRequiredChecks)) {
 
-                    ResponseT response = getHighLevelResponse(clientResp, endpoint);
-                    future.complete(response);
+                    response = getHighLevelResponse(clientResp, endpoint);
 
                 } catch (Exception e) {
-                    future.completeExceptionally(e);
+                    failure = e;
+                } finally {
+                    span.end();
+                }
+
+                // Release memory before completing the future, as it runs the caller's continuations
+                if (admission != null) {
+                    admission.onDecoded(clientResp);
+                }
+
+                if (failure != null) {
+                    trace.recordException(failure);
+                }
+                trace.end();
+
+                if (failure == null) {
+                    future.complete(response);
+                } else {
+                    future.completeExceptionally(failure);
                 }
             }
 
             @Override
             public void onFailure(Exception e) {
+                Instrumentation.Span span = future.takeSendSpan();
+                if (admission != null) {
+                    admission.onFailure(e);
+                }
+                if (span == null && future.isDone()) {
+                    // Failed after the request was cancelled or expired: its trace has already ended
+                    return;
+                }
+                if (span != null) {
+                    endSendSpan(span, trace, e);
+                }
+                trace.recordException(e);
+                trace.end();
                 future.completeExceptionally(e);
             }
         });
 
-        return future;
+        // Cancelled or expired while the request was being sent
+        if (future.isDone()) {
+            future.cancellable.cancel();
+        }
+    }
+
+    /**
+     * Fails a request that exceeded its deadline, and cancels its server-side tasks if it was sent.
+     */
+    private void expire(
+        RequestFuture<?> future, String endpointId, Duration timeout, RestClientOptions options, @Nullable String opaqueId
+    ) {
+        boolean sent = future.cancellable != null;
+        if (future.completeExceptionally(new TransportException("Request timed out after " + timeout.toMillis() + "ms", endpointId))) {
+            future.abort();
+            String actions = cancellableTaskActions.get(endpointId);
+            if (sent && opaqueId != null && actions != null) {
+                cancelServerTasks(options, actions, opaqueId);
+            }
+        }
+    }
+
+    /**
+     * Cancels the server-side tasks of a request, identified by their {@code X-Opaque-Id} header, using the request's
+     * options so that the tasks APIs are called with the same credentials and headers. Only root tasks are cancelled, as
+     * cancellation propagates to their children. This is best effort, and errors are ignored.
+     */
+    private void cancelServerTasks(RestClientOptions options, String actions, String opaqueId) {
+        // No deadline on these requests, to avoid cascading cancellations
+        ElasticsearchTasksAsyncClient tasks = new ElasticsearchTasksAsyncClient(
+            this, options.with(b -> b.requestTimeout(null))
+        );
+
+        tasks.list(l -> l.actions(actions)).thenAccept(response -> {
+            for (NodeTasks node: response.nodes().values()) {
+                for (Map.Entry<String, TaskInfo> task: node.tasks().entrySet()) {
+                    TaskInfo info = task.getValue();
+                    if (info.cancellable() && info.parentTaskId() == null && opaqueId.equals(info.headers().get(OPAQUE_ID_HEADER))) {
+                        tasks.cancel(c -> c.taskId(task.getKey()));
+                    }
+                }
+            }
+        });
+    }
+
+    // Actions of the server-side tasks of endpoints whose tasks are cancelled when their deadline expires
+    private static final Map<String, String> cancellableTaskActions = new HashMap<>();
+
+    static {
+        cancellableTaskActions.put("es/search", "indices:data/read/search*");
+        cancellableTaskActions.put("es/msearch", "indices:data/read/msearch*");
+        // Counts run as searches
+        cancellableTaskActions.put("es/count", "indices:data/read/search*");
+        cancellableTaskActions.put("es/delete_by_query", "indices:data/write/delete/byquery*");
+        cancellableTaskActions.put("es/update_by_query", "indices:data/write/update/byquery*");
     }
 
+    private static final String OPAQUE_ID_HEADER = "X-Opaque-Id";
+
     private <RequestT> org.elasticsearch.client.Request prepareLowLevelRequest(
         RequestT request,
         Endpoint<RequestT, ?, ?> endpoint,
-        @Nullable TransportOptions options
+        RestClientOptions options,
+        @Nullable String opaqueId,
+        Instrumentation.Context trace
+    ) {
+        Instrumentation.Span span = trace.startSpan(Instrumentation.Phase.ENCODE);
+        try {
+            org.elasticsearch.client.Request clientReq = prepareLowLevelRequest(request, endpoint, options, opaqueId);
+
+            if (trace.isRecording()) {
+                trace.setAttribute(Instrumentation.ENDPOINT_ID, endpoint.id());
+                String index = indexFromPath(clientReq.getEndpoint());
+                if (index != null) {
+                    trace.setAttribute(Instrumentation.INDEX, index);
+                }
+                span.setAttribute(Instrumentation.REQUEST_BODY_SIZE, requestBytes(clientReq));
+            }
+
+            if (instrumentation != NoopInstrumentation.INSTANCE) {
+                RequestOptions.Builder restOptions = clientReq.getOptions().toBuilder();
+                trace.injectHeaders(restOptions::addHeader);
+                clientReq.setOptions(restOptions);
+            }
+
+            return clientReq;
+        } finally {
+            span.end();
+        }
+    }
+
+    /**
+     * The target index of a request, i.e. the first segment of its path if it isn't an API name.
+     */
+    @Nullable
+    private static String indexFromPath(String path) {
+        int start = path.startsWith("/") ? 1 : 0;
+        if (start >= path.length() || path.charAt(start) == '_') {
+            return null;
+        }
+        int end = path.indexOf('/', start);
+        return end < 0 ? path.substring(start) : path.substring(start, end);
+    }
+
+    private <RequestT> org.elasticsearch.client.Request prepareLowLevelRequest(
+        RequestT request,
+        Endpoint<RequestT, ?, ?> endpoint,
+        RestClientOptions options,
+        @Nullable String opaqueId
     ) {
         String method = endpoint.method(request);
         String path = endpoint.requestUrl(request);
@@ -193,54 +782,119 @@ public class RestClientTransport implements ElasticsearchTransport {
 
         org.elasticsearch.client.Request clientReq = new org.elasticsearch.client.Request(method, path);
 
-        RequestOptions restOptions = options == null ?
-            transportOptions.restClientRequestOptions() :
-            RestClientOptions.of(options).restClientRequestOptions();
-
-        if (restOptions != null) {
-            clientReq.setOptions(restOptions);
+        RequestOptions restOptions = options.restClientRequestOptions();
+        if (opaqueId != null) {
+            restOptions = restOptions.toBuilder().addHeader(OPAQUE_ID_HEADER, opaqueId).build();
+        }
+        if (binaryFormat != null) {
+            restOptions = acceptBinaryFormat(restOptions, binaryFormat);
         }
+        clientReq.setOptions(restOptions);
 
         clientReq.addParameters(params);
 
+        // Stop searching when the deadline expires if requested, unless the request has its own timeout
+        Duration timeout = options.requestTimeout();
+        if (timeout != null &&
+            options.searchServerTimeout() &&
+            "es/search".equals(endpoint.id()) &&
+            !params.containsKey("timeout") &&
+            !restOptions.getParameters().containsKey("timeout") &&
+            !(request instanceof SearchRequest && ((SearchRequest) request).timeout() != null)
+        ) {
+            clientReq.addParameter("timeout", timeout.toMillis() + "ms");
+        }
+
         if (endpoint.hasRequestBody()) {
             // Request has a body and must implement JsonpSerializable or NdJsonpSerializable
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            ContentType contentType = bodyContentType(request);
+            byte[] body = bodyCache == null ?
+                encodeBody(request) :
+                bodyCache.body(request, contentType.toString(), () -> encodeBody(request));
 
-            if (request instanceof NdJsonpSerializable) {
-                writeNdJson((NdJsonpSerializable) request, baos);
-            } else {
-                JsonGenerator generator = mapper.jsonProvider().createGenerator(baos);
-                mapper.serialize(request, generator);
-                generator.close();
-            }
-
-            clientReq.setEntity(new ByteArrayEntity(baos.toByteArray(), JsonContentType));
+            clientReq.setEntity(new ByteArrayEntity(body, contentType));
         }
         // Request parameter intercepted by LLRC
         clientReq.addParameter("ignore", "400,401,403,404,405");
         return clientReq;
     }
 
+    private boolean isBinaryNdJson(Object request) {
+        return request instanceof NdJsonpSerializable && binaryFormat != null && binaryFormat.bulkSeparator() != null;
+    }
+
+    private ContentType bodyContentType(Object request) {
+        if (binaryFormat == null || (request instanceof NdJsonpSerializable && !isBinaryNdJson(request))) {
+            return JsonContentType;
+        }
+        return binaryFormat.contentType();
+    }
+
+    private byte[] encodeBody(Object request) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+
+        if (request instanceof NdJsonpSerializable) {
+            if (isBinaryNdJson(request)) {
+                writeNdJson((NdJsonpSerializable) request, baos, binaryFormat.provider(), binaryFormat.bulkSeparator());
+            } else {
+                writeNdJson((NdJsonpSerializable) request, baos, mapper.jsonProvider(), (byte) '\n');
+            }
+        } else {
+            JsonProvider provider = binaryFormat == null ? mapper.jsonProvider() : binaryFormat.provider();
+            JsonGenerator generator = provider.createGenerator(baos);
+            mapper.serialize(request, generator);
+            generator.close();
+        }
+
+        return baos.toByteArray();
+    }
+
+    /**
+     * Replaces the default JSON {@code Accept} header with the binary format's content type. An {@code Accept} header set by
+     * the application is kept.
+     */
+    private static RequestOptions acceptBinaryFormat(RequestOptions options, BinaryFormat format) {
+        String jsonAccept = JsonContentType.toString();
+        boolean defaultAccept = options.getHeaders().stream()
+            .anyMatch(h -> h.getName().equalsIgnoreCase("Accept") && h.getValue().equals(jsonAccept));
+        if (!defaultAccept) {
+            return options;
+        }
+        return options.toBuilder()
+            .removeHeader("Accept")
+            .addHeader("Accept", format.contentType().toString())
+            .build();
+    }
+
     /**
-     * Write an nd-json value by serializing each of its items on a separate line, recursing if its items themselves implement
-     * {@link NdJsonpSerializable} to flattening nested structures.
+     * Write an nd-json value by serializing each of its items followed by a separator, recursing if its items themselves
+     * implement {@link NdJsonpSerializable} to flattening nested structures.
      */
-    private void writeNdJson(NdJsonpSerializable value, ByteArrayOutputStream baos) {
+    private void writeNdJson(NdJsonpSerializable value, ByteArrayOutputStream baos, JsonProvider provider, byte separator) {
         Iterator<?> values = value._serializables();
         while(values.hasNext()) {
             Object item = values.next();
             if (item instanceof NdJsonpSerializable && item != value) { // do not recurse on the item itself
-                writeNdJson((NdJsonpSerializable) item, baos);
+                writeNdJson((NdJsonpSerializable) item, baos, provider, separator);
             } else {
-                JsonGenerator generator = mapper.jsonProvider().createGenerator(baos);
+                JsonGenerator generator = provider.createGenerator(baos);
                 mapper.serialize(item, generator);
                 generator.close();
-                baos.write('\n');
+                baos.write(separator);
             }
         }
     }
 
+    /**
+     * The provider for a response body, depending on its content type.
+     */
+    private JsonProvider responseProvider(@Nullable HttpEntity entity) {
+        if (binaryFormat != null && binaryFormat.isFormatOf(entity)) {
+            return binaryFormat.provider();
+        }
+        return mapper.jsonProvider();
+    }
+
     private <ResponseT, ErrorT> ResponseT getHighLevelResponse(
         org.elasticsearch.client.Response clientResp,
         Endpoint<?, ResponseT, ErrorT> endpoint
@@ -275,7 +929,7 @@ public class RestClientTransport implements ElasticsearchTransport {
 
                 try {
                     InputStream content = entity.getContent();
-                    try (JsonParser parser = mapper.jsonProvider().createParser(content)) {
+                    try (JsonParser parser = responseProvider(entity).createParser(content)) {
                         ErrorT error = errorDeserializer.deserialize(parser, mapper);
                         // TODO: have the endpoint provide the exception constructor
                         throw new ElasticsearchException(endpoint.id(), (ErrorResponse) error);
@@ -324,7 +978,7 @@ public class RestClientTransport implements ElasticsearchTransport {
                     );
                 }
                 InputStream content = entity.getContent();
-                try (JsonParser parser = mapper.jsonProvider().createParser(content)) {
+                try (JsonParser parser = responseProvider(entity).createParser(content)) {
                     response = responseParser.deserialize(parser, mapper);
                 };
             }
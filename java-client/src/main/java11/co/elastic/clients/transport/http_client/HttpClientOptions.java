@@ -0,0 +1,215 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport.http_client;
+
+import co.elastic.clients.transport.TransportOptions;
+import co.elastic.clients.transport.Version;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Transport options for {@link HttpClientTransport}.
+ */
+public class HttpClientOptions implements TransportOptions {
+
+    private static final String CLIENT_META_HEADER = "X-Elastic-Client-Meta";
+    private static final String USER_AGENT_HEADER = "User-Agent";
+
+    static final String CLIENT_META_VALUE = getClientMeta();
+    static final String USER_AGENT_VALUE = getUserAgent();
+
+    private final List<Map.Entry<String, String>> headers;
+    private final Map<String, String> parameters;
+    @Nullable
+    private final Function<List<String>, Boolean> onWarnings;
+    @Nullable
+    private final Duration requestTimeout;
+
+    static HttpClientOptions of(TransportOptions options) {
+        if (options instanceof HttpClientOptions) {
+            return (HttpClientOptions) options;
+
+        } else {
+            final Builder builder = new Builder();
+            options.headers().forEach(h -> builder.addHeader(h.getKey(), h.getValue()));
+            options.queryParameters().forEach(builder::setParameter);
+            builder.onWarnings(options.onWarnings());
+            builder.requestTimeout(options.requestTimeout());
+            return builder.build();
+        }
+    }
+
+    static HttpClientOptions initialOptions() {
+        return new Builder().build();
+    }
+
+    private HttpClientOptions(Builder builder) {
+        this.headers = Collections.unmodifiableList(new ArrayList<>(builder.headers));
+        this.parameters = Collections.unmodifiableMap(new HashMap<>(builder.parameters));
+        this.onWarnings = builder.onWarnings;
+        this.requestTimeout = builder.requestTimeout;
+    }
+
+    @Override
+    public Collection<Map.Entry<String, String>> headers() {
+        return headers;
+    }
+
+    @Override
+    public Map<String, String> queryParameters() {
+        return parameters;
+    }
+
+    /**
+     * Called if there are warnings to determine if those warnings should fail the request.
+     */
+    @Override
+    public Function<List<String>, Boolean> onWarnings() {
+        return onWarnings;
+    }
+
+    /**
+     * The deadline of requests. The exchange is aborted with a {@code java.net.http.HttpTimeoutException} if no response
+     * is received before it expires.
+     */
+    @Nullable
+    @Override
+    public Duration requestTimeout() {
+        return requestTimeout;
+    }
+
+    @Override
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.headers.addAll(this.headers);
+        builder.parameters.putAll(this.parameters);
+        builder.onWarnings = this.onWarnings;
+        builder.requestTimeout = this.requestTimeout;
+        return builder;
+    }
+
+    public static class Builder implements TransportOptions.Builder {
+
+        private final List<Map.Entry<String, String>> headers = new ArrayList<>();
+        private final Map<String, String> parameters = new HashMap<>();
+        private Function<List<String>, Boolean> onWarnings;
+        private Duration requestTimeout;
+
+        @Override
+        public TransportOptions.Builder addHeader(String name, String value) {
+            if (name.equalsIgnoreCase(CLIENT_META_HEADER)) {
+                // Not overridable
+                return this;
+            }
+            if (name.equalsIgnoreCase(USER_AGENT_HEADER)) {
+                // Remove our own user-agent, or we'll end up with multiple values for the header
+                removeHeader(USER_AGENT_HEADER);
+            }
+            headers.add(new AbstractMap.SimpleImmutableEntry<>(name, value));
+            return this;
+        }
+
+        @Override
+        public TransportOptions.Builder setParameter(String name, String value) {
+            parameters.put(name, value);
+            return this;
+        }
+
+        /**
+         * Called if there are warnings to determine if those warnings should fail the request.
+         */
+        @Override
+        public TransportOptions.Builder onWarnings(Function<List<String>, Boolean> listener) {
+            this.onWarnings = listener;
+            return this;
+        }
+
+        @Override
+        public TransportOptions.Builder requestTimeout(@Nullable Duration timeout) {
+            if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+                throw new IllegalArgumentException("Request timeout must be greater than zero");
+            }
+            this.requestTimeout = timeout;
+            return this;
+        }
+
+        @Override
+        public HttpClientOptions build() {
+            addBuiltinHeaders();
+            return new HttpClientOptions(this);
+        }
+
+        private void removeHeader(String name) {
+            headers.removeIf(h -> h.getKey().equalsIgnoreCase(name));
+        }
+
+        private boolean hasHeader(String name) {
+            return headers.stream().anyMatch(h -> h.getKey().equalsIgnoreCase(name));
+        }
+
+        private void addBuiltinHeaders() {
+            removeHeader(CLIENT_META_HEADER);
+            headers.add(new AbstractMap.SimpleImmutableEntry<>(CLIENT_META_HEADER, CLIENT_META_VALUE));
+            if (!hasHeader(USER_AGENT_HEADER)) {
+                headers.add(new AbstractMap.SimpleImmutableEntry<>(USER_AGENT_HEADER, USER_AGENT_VALUE));
+            }
+            if (!hasHeader("Accept")) {
+                headers.add(new AbstractMap.SimpleImmutableEntry<>("Accept", HttpClientTransport.JSON_CONTENT_TYPE));
+            }
+        }
+    }
+
+    private static String getUserAgent() {
+        return String.format(
+            Locale.ROOT,
+            "elastic-java/%s (Java/%s)",
+            Version.VERSION == null ? "Unknown" : Version.VERSION.toString(),
+            System.getProperty("java.version")
+        );
+    }
+
+    private static String getClientMeta() {
+        // Use a single 'p' suffix for all prerelease versions (snapshot, beta, etc).
+        String metaVersion = Version.VERSION == null ? "" : Version.VERSION.toString();
+        int dashPos = metaVersion.indexOf('-');
+        if (dashPos > 0) {
+            metaVersion = metaVersion.substring(0, dashPos) + "p";
+        }
+
+        // service, language, transport. The JDK's http client has no version of its own.
+        return "es="
+            + metaVersion
+            + ",jv="
+            + System.getProperty("java.specification.version")
+            + ",hl=2"
+            + ",t="
+            + metaVersion;
+    }
+}
@@ -0,0 +1,549 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport.http_client;
+
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.ErrorResponse;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.NdJsonpSerializable;
+import co.elastic.clients.transport.ElasticsearchTransport;
+import co.elastic.clients.transport.Endpoint;
+import co.elastic.clients.transport.JsonEndpoint;
+import co.elastic.clients.transport.TransportException;
+import co.elastic.clients.transport.TransportOptions;
+import co.elastic.clients.transport.Version;
+import co.elastic.clients.transport.endpoints.BooleanEndpoint;
+import co.elastic.clients.transport.endpoints.BooleanResponse;
+import co.elastic.clients.util.ApiTypeHelper;
+import co.elastic.clients.util.MissingRequiredPropertyException;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonParser;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * A transport based on the JDK's {@link HttpClient}.
+ * <p>
+ * Compared to {@link co.elastic.clients.transport.rest_client.RestClientTransport} this transport has no dependency on the
+ * Apache http client, and multiplexes concurrent requests on a single connection when the server (or a proxy in front of it)
+ * supports HTTP/2. It falls back to HTTP/1.1 with keep-alive connections otherwise. The http version and other connection
+ * settings such as TLS, proxies, authentication and the executor are those of the {@code HttpClient} provided to the constructor.
+ * <p>
+ * Requests are distributed round-robin across the nodes provided to the constructor. A request is retried on the next node if
+ * the connection could not be established.
+ * <p>
+ * Blocking requests stream the response body to the JSON parser. Asynchronous requests buffer the response body so that its
+ * decoding never blocks a thread of the http client's executor.
+ * <p>
+ * Known limitations: request bodies are always serialized into a byte array before being sent, so that they can be sent
+ * again to another node and have a known content length. The response body of asynchronous requests is held entirely in
+ * memory until it is decoded. Applications that read very large responses, such as large bulk or scroll results, should
+ * use blocking requests with this transport.
+ */
+public class HttpClientTransport implements ElasticsearchTransport {
+
+    static final String JSON_CONTENT_TYPE;
+
+    static {
+        if (Version.VERSION == null) {
+            JSON_CONTENT_TYPE = "application/json";
+        } else {
+            JSON_CONTENT_TYPE = "application/vnd.elasticsearch+json; compatible-with=" + Version.VERSION.major();
+        }
+    }
+
+    /**
+     * The {@code Future} implementation returned by async requests. It propagates cancellation to the http exchange.
+     */
+    private static class RequestFuture<T> extends CompletableFuture<T> {
+        private volatile CompletableFuture<?> exchange;
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            CompletableFuture<?> ex = exchange;
+            if (cancelled && ex != null) {
+                ex.cancel(mayInterruptIfRunning);
+            }
+            return cancelled;
+        }
+    }
+
+    /**
+     * A {@code ByteArrayOutputStream} that gives access to its buffer, to avoid copying request bodies.
+     */
+    private static class BodyOutputStream extends ByteArrayOutputStream {
+        HttpRequest.BodyPublisher publisher() {
+            return HttpRequest.BodyPublishers.ofByteArray(buf, 0, count);
+        }
+    }
+
+    private final HttpClient httpClient;
+    private final List<URI> nodes;
+    private final AtomicInteger nextNode;
+    private final JsonpMapper mapper;
+    private final HttpClientOptions transportOptions;
+
+    /**
+     * Creates a transport sending requests to a list of nodes.
+     *
+     * @param httpClient the http client. Its preferred version is {@link HttpClient.Version#HTTP_2} by default.
+     * @param nodes the nodes requests will be sent to, e.g. {@code https://localhost:9200}. May contain a path prefix.
+     * @param mapper the JSON mapper
+     * @param options the default options, may be {@code null}.
+     */
+    public HttpClientTransport(HttpClient httpClient, List<URI> nodes, JsonpMapper mapper, @Nullable TransportOptions options) {
+        this(httpClient, checkNodes(nodes), new AtomicInteger(), mapper, options);
+    }
+
+    public HttpClientTransport(HttpClient httpClient, URI node, JsonpMapper mapper) {
+        this(httpClient, Collections.singletonList(node), mapper, null);
+    }
+
+    private HttpClientTransport(
+        HttpClient httpClient, List<URI> nodes, AtomicInteger nextNode, JsonpMapper mapper, @Nullable TransportOptions options
+    ) {
+        this.httpClient = httpClient;
+        this.nodes = nodes;
+        this.nextNode = nextNode;
+        this.mapper = mapper;
+        this.transportOptions = options == null ? HttpClientOptions.initialOptions() : HttpClientOptions.of(options);
+    }
+
+    private static List<URI> checkNodes(List<URI> nodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("At least one node is required");
+        }
+        List<URI> result = new ArrayList<>(nodes.size());
+        for (URI node: nodes) {
+            // Remove trailing slashes, as request paths start with one
+            String str = node.toString();
+            while (str.endsWith("/")) {
+                str = str.substring(0, str.length() - 1);
+            }
+            result.add(URI.create(str));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns the underlying JDK http client used by this transport.
+     */
+    public HttpClient httpClient() {
+        return this.httpClient;
+    }
+
+    /**
+     * Copies this {@link #HttpClientTransport} with specific request options.
+     */
+    public HttpClientTransport withRequestOptions(@Nullable TransportOptions options) {
+        return new HttpClientTransport(this.httpClient, this.nodes, this.nextNode, this.mapper, options);
+    }
+
+    @Override
+    public JsonpMapper jsonpMapper() {
+        return mapper;
+    }
+
+    @Override
+    public TransportOptions options() {
+        return transportOptions;
+    }
+
+    /**
+     * Closes the http client if it can be closed (starting with Java 21).
+     */
+    @Override
+    public void close() throws IOException {
+        if (httpClient instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) httpClient).close();
+            } catch (IOException | RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    @Override
+    public <RequestT, ResponseT, ErrorT> ResponseT performRequest(
+        RequestT request,
+        Endpoint<RequestT, ResponseT, ErrorT> endpoint,
+        @Nullable TransportOptions options
+    ) throws IOException {
+
+        PreparedRequest prepared = prepareRequest(request, endpoint, options);
+
+        int start = nextNode.getAndIncrement();
+        ConnectException connectException = null;
+        for (int i = 0; i < nodes.size(); i++) {
+            HttpRequest httpRequest = prepared.toHttpRequest(nodes.get(Math.floorMod(start + i, nodes.size())));
+            HttpResponse<InputStream> httpResponse;
+            try {
+                httpResponse = httpClient.send(httpRequest, HttpResponse.BodyHandlers.ofInputStream());
+            } catch (ConnectException e) {
+                // Request wasn't sent, try the next node
+                connectException = e;
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                InterruptedIOException ioe = new InterruptedIOException("Request interrupted");
+                ioe.initCause(e);
+                throw ioe;
+            }
+
+            return getHighLevelResponse(httpResponse, httpResponse.body(), endpoint, prepared.onWarnings);
+        }
+
+        throw connectException;
+    }
+
+    @Override
+    public <RequestT, ResponseT, ErrorT> CompletableFuture<ResponseT> performRequestAsync(
+        RequestT request,
+        Endpoint<RequestT, ResponseT, ErrorT> endpoint,
+        @Nullable TransportOptions options
+    ) {
+        RequestFuture<ResponseT> future = new RequestFuture<>();
+
+        PreparedRequest prepared;
+        try {
+            prepared = prepareRequest(request, endpoint, options);
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        // Propagate required property checks to the thread that will decode the response
+        boolean disableRequiredChecks = ApiTypeHelper.requiredPropertiesCheckDisabled();
+
+        sendAsync(prepared, nextNode.getAndIncrement(), 0, future, httpResponse -> {
+            try (ApiTypeHelper.DisabledChecksHandle h =
+                     ApiTypeHelper.DANGEROUS_disableRequiredPropertiesCheck(disableRequiredChecks)) {
+
+                InputStream body = new ByteArrayInputStream(httpResponse.body());
+                ResponseT response = getHighLevelResponse(httpResponse, body, endpoint, prepared.onWarnings);
+                future.complete(response);
+
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+        });
+
+        return future;
+    }
+
+    private interface ResponseHandler {
+        void accept(HttpResponse<byte[]> response);
+    }
+
+    private void sendAsync(
+        PreparedRequest prepared, int start, int attempt, RequestFuture<?> future, ResponseHandler handler
+    ) {
+        if (future.isDone()) {
+            // Cancelled
+            return;
+        }
+
+        HttpRequest httpRequest = prepared.toHttpRequest(nodes.get(Math.floorMod(start + attempt, nodes.size())));
+        CompletableFuture<HttpResponse<byte[]>> exchange =
+            httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray());
+        future.exchange = exchange;
+
+        // Cancelled while the request was being sent
+        if (future.isDone()) {
+            exchange.cancel(true);
+            return;
+        }
+
+        exchange.whenComplete((httpResponse, ex) -> {
+            if (ex == null) {
+                handler.accept(httpResponse);
+                return;
+            }
+
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (cause instanceof ConnectException && attempt + 1 < nodes.size()) {
+                // Request wasn't sent, try the next node
+                sendAsync(prepared, start, attempt + 1, future, handler);
+            } else {
+                future.completeExceptionally(cause);
+            }
+        });
+    }
+
+    /**
+     * A request that has been encoded and can be sent to any node.
+     */
+    private static class PreparedRequest {
+        final String method;
+        final String pathAndQuery;
+        final List<Map.Entry<String, String>> headers;
+        @Nullable
+        final BodyOutputStream body;
+        @Nullable
+        final Function<List<String>, Boolean> onWarnings;
+        @Nullable
+        final Duration timeout;
+
+        PreparedRequest(
+            String method, String pathAndQuery, List<Map.Entry<String, String>> headers, @Nullable BodyOutputStream body,
+            @Nullable Function<List<String>, Boolean> onWarnings, @Nullable Duration timeout
+        ) {
+            this.method = method;
+            this.pathAndQuery = pathAndQuery;
+            this.headers = headers;
+            this.body = body;
+            this.onWarnings = onWarnings;
+            this.timeout = timeout;
+        }
+
+        HttpRequest toHttpRequest(URI node) {
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(node.toString() + pathAndQuery));
+            for (Map.Entry<String, String> header: headers) {
+                builder.header(header.getKey(), header.getValue());
+            }
+            if (timeout != null) {
+                builder.timeout(timeout);
+            }
+
+            if (body == null) {
+                builder.method(method, HttpRequest.BodyPublishers.noBody());
+            } else {
+                builder.header("Content-Type", JSON_CONTENT_TYPE);
+                builder.method(method, body.publisher());
+            }
+            return builder.build();
+        }
+    }
+
+    private <RequestT> PreparedRequest prepareRequest(
+        RequestT request,
+        Endpoint<RequestT, ?, ?> endpoint,
+        @Nullable TransportOptions options
+    ) {
+        HttpClientOptions httpOptions = options == null ? transportOptions : HttpClientOptions.of(options);
+
+        String method = endpoint.method(request);
+
+        StringBuilder pathAndQuery = new StringBuilder(endpoint.requestUrl(request));
+        char sep = '?';
+        for (Map.Entry<String, String> param: endpoint.queryParameters(request).entrySet()) {
+            appendParameter(pathAndQuery, sep, param);
+            sep = '&';
+        }
+        for (Map.Entry<String, String> param: httpOptions.queryParameters().entrySet()) {
+            appendParameter(pathAndQuery, sep, param);
+            sep = '&';
+        }
+
+        List<Map.Entry<String, String>> headers = new ArrayList<>(httpOptions.headers());
+        headers.addAll(endpoint.headers(request).entrySet());
+
+        BodyOutputStream body = null;
+        if (endpoint.hasRequestBody()) {
+            // Request has a body and must implement JsonpSerializable or NdJsonpSerializable
+            body = new BodyOutputStream();
+
+            if (request instanceof NdJsonpSerializable) {
+                writeNdJson((NdJsonpSerializable) request, body);
+            } else {
+                JsonGenerator generator = mapper.jsonProvider().createGenerator(body);
+                mapper.serialize(request, generator);
+                generator.close();
+            }
+        }
+
+        return new PreparedRequest(method, pathAndQuery.toString(), headers, body, httpOptions.onWarnings(), httpOptions.requestTimeout());
+    }
+
+    private static void appendParameter(StringBuilder sb, char sep, Map.Entry<String, String> param) {
+        sb.append(sep).append(URLEncoder.encode(param.getKey(), StandardCharsets.UTF_8));
+        if (param.getValue() != null) {
+            sb.append('=').append(URLEncoder.encode(param.getValue(), StandardCharsets.UTF_8));
+        }
+    }
+
+    /**
+     * Write an nd-json value by serializing each of its items on a separate line, recursing if its items themselves implement
+     * {@link NdJsonpSerializable} to flattening nested structures.
+     */
+    private void writeNdJson(NdJsonpSerializable value, ByteArrayOutputStream baos) {
+        Iterator<?> values = value._serializables();
+        while(values.hasNext()) {
+            Object item = values.next();
+            if (item instanceof NdJsonpSerializable && item != value) { // do not recurse on the item itself
+                writeNdJson((NdJsonpSerializable) item, baos);
+            } else {
+                JsonGenerator generator = mapper.jsonProvider().createGenerator(baos);
+                mapper.serialize(item, generator);
+                generator.close();
+                baos.write('\n');
+            }
+        }
+    }
+
+    private <ResponseT, ErrorT> ResponseT getHighLevelResponse(
+        HttpResponse<?> httpResponse,
+        InputStream body,
+        Endpoint<?, ResponseT, ErrorT> endpoint,
+        @Nullable Function<List<String>, Boolean> onWarnings
+    ) throws IOException {
+
+        try (InputStream content = body) {
+            int statusCode = httpResponse.statusCode();
+
+            if (statusCode == 200) {
+                checkProductHeader(httpResponse, endpoint);
+            }
+
+            checkWarnings(httpResponse, endpoint, onWarnings);
+
+            if (endpoint.isError(statusCode)) {
+                JsonpDeserializer<ErrorT> errorDeserializer = endpoint.errorDeserializer(statusCode);
+                if (errorDeserializer == null) {
+                    throw new TransportException("Request failed with status code '" + statusCode + "'", endpoint.id());
+                }
+
+                // We may have to replay it.
+                byte[] bytes = content.readAllBytes();
+                if (bytes.length == 0) {
+                    throw new TransportException(
+                        "Expecting a response body, but none was sent (status code '" + statusCode + "')", endpoint.id()
+                    );
+                }
+
+                try {
+                    try (JsonParser parser = mapper.jsonProvider().createParser(new ByteArrayInputStream(bytes))) {
+                        ErrorT error = errorDeserializer.deserialize(parser, mapper);
+                        // TODO: have the endpoint provide the exception constructor
+                        throw new ElasticsearchException(endpoint.id(), (ErrorResponse) error);
+                    }
+                } catch(MissingRequiredPropertyException errorEx) {
+                    // Could not decode exception, try the response type
+                    try {
+                        return decodeResponse(statusCode, new ByteArrayInputStream(bytes), endpoint);
+                    } catch(Exception respEx) {
+                        // No better luck: throw the original error decoding exception
+                        throw new TransportException(
+                            "Failed to decode error response (status code '" + statusCode + "')", endpoint.id(), errorEx
+                        );
+                    }
+                }
+            } else {
+                return decodeResponse(statusCode, content, endpoint);
+            }
+        }
+    }
+
+    private <ResponseT> ResponseT decodeResponse(
+        int statusCode, InputStream content, Endpoint<?, ResponseT, ?> endpoint
+    ) throws IOException {
+
+        if (endpoint instanceof BooleanEndpoint) {
+            BooleanEndpoint<?> bep = (BooleanEndpoint<?>) endpoint;
+
+            @SuppressWarnings("unchecked")
+            ResponseT response = (ResponseT) new BooleanResponse(bep.getResult(statusCode));
+            return response;
+
+        } else if (endpoint instanceof JsonEndpoint){
+            @SuppressWarnings("unchecked")
+            JsonEndpoint<?, ResponseT, ?> jsonEndpoint = (JsonEndpoint<?, ResponseT, ?>)endpoint;
+            // Successful response
+            ResponseT response = null;
+            JsonpDeserializer<ResponseT> responseParser = jsonEndpoint.responseDeserializer();
+            if (responseParser != null) {
+                // Expecting a body
+                try (JsonParser parser = mapper.jsonProvider().createParser(content)) {
+                    response = responseParser.deserialize(parser, mapper);
+                }
+            }
+            return response;
+        } else {
+            throw new TransportException("Unhandled endpoint type: '" + endpoint.getClass().getName() + "'", endpoint.id());
+        }
+    }
+
+    // Endpoints that (incorrectly) do not return the Elastic product header
+    private static final Set<String> endpointsMissingProductHeader = new HashSet<>(Arrays.asList(
+        "es/snapshot.create" // #74 / elastic/elasticsearch#82358
+    ));
+
+    private void checkProductHeader(HttpResponse<?> httpResponse, Endpoint<?, ?, ?> endpoint) throws IOException {
+        String header = httpResponse.headers().firstValue("X-Elastic-Product").orElse(null);
+        if (header == null) {
+            if (endpointsMissingProductHeader.contains(endpoint.id())) {
+                return;
+            }
+            throw new TransportException(
+                "Missing [X-Elastic-Product] header. Please check that you are connecting to an Elasticsearch "
+                    + "instance, and that any networking filters are preserving that header.",
+                endpoint.id()
+            );
+        }
+
+        if (!"Elasticsearch".equals(header)) {
+            throw new TransportException("Invalid value '" + header + "' for 'X-Elastic-Product' header.", endpoint.id());
+        }
+    }
+
+    private void checkWarnings(
+        HttpResponse<?> httpResponse,
+        Endpoint<?, ?, ?> endpoint,
+        @Nullable Function<List<String>, Boolean> onWarnings
+    ) throws IOException {
+        if (onWarnings == null) {
+            return;
+        }
+
+        List<String> warnings = httpResponse.headers().allValues("Warning");
+        if (!warnings.isEmpty() && Boolean.TRUE.equals(onWarnings.apply(warnings))) {
+            throw new TransportException("Request failed because of warnings: " + warnings, endpoint.id());
+        }
+    }
+}
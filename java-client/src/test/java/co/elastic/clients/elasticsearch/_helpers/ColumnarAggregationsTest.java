@@ -0,0 +1,159 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.elasticsearch._helpers;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.DateHistogramBucket;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.model.ModelTestCase;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpMappingException;
+import co.elastic.clients.transport.MockHttpServer;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+public class ColumnarAggregationsTest extends ModelTestCase {
+
+    private static String response(int buckets) {
+        StringBuilder sb = new StringBuilder("{\"took\":3,\"timed_out\":false,")
+            .append("\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},\"hits\":{\"hits\":[]},\"aggregations\":{")
+            .append("\"date_histogram#per_day\":{\"buckets\":[");
+        for (int i = 0; i < buckets; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"key_as_string\":\"day-").append(i).append("\",\"key\":").append(i * 86_400_000L)
+                .append(",\"doc_count\":").append(i * 10);
+            // "max" is missing in the first bucket and null in the second one
+            sb.append(",\"avg#avg_price\":{\"value\":").append(i + 0.5).append('}');
+            if (i == 1) {
+                sb.append(",\"max#max_price\":{\"value\":null}");
+            } else if (i > 1) {
+                sb.append(",\"max#max_price\":{\"value\":").append(i * 2).append(",\"value_as_string\":\"x\"}");
+            }
+            sb.append('}');
+        }
+        sb.append("]},")
+            .append("\"sterms#categories\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,\"buckets\":[")
+            .append("{\"key\":\"shoes\",\"doc_count\":5},{\"key\":\"boots\",\"doc_count\":2}]},")
+            .append("\"histogram#prices\":{\"buckets\":{\"10.0\":{\"key\":10.0,\"doc_count\":1},\"20.0\":{\"key\":20.0,\"doc_count\":4}}},")
+            .append("\"lterms#sizes\":{\"buckets\":[]},")
+            .append("\"avg#global_avg\":{\"value\":4.5}")
+            .append("}}");
+        return sb.toString();
+    }
+
+    @Test
+    public void testDecode() {
+        String json = response(100);
+        ColumnarAggregations aggs = fromJson(json, ColumnarAggregations._DESERIALIZER);
+
+        assertEquals(3, aggs.took());
+        assertFalse(aggs.timedOut());
+        assertEquals(4, aggs.buckets().size());
+
+        ColumnarAggregations.Buckets perDay = aggs.buckets("per_day");
+        assertEquals(Aggregate.Kind.DateHistogram, perDay.kind());
+        assertEquals(100, perDay.size());
+        assertNull(perDay.doubleKeys());
+        assertNull(perDay.stringKeys());
+        assertEquals(100, perDay.longKeys().length);
+        assertEquals(99 * 86_400_000L, perDay.longKeys()[99]);
+        assertEquals(990, perDay.docCounts()[99]);
+        assertEquals(99.5, perDay.metric("avg_price")[99]);
+        assertTrue(Double.isNaN(perDay.metric("max_price")[0]));
+        assertTrue(Double.isNaN(perDay.metric("max_price")[1]));
+        assertEquals(198, perDay.metric("max_price")[99]);
+        assertEquals(100, perDay.metric("max_price").length);
+
+        // Same values as the regular decoding
+        SearchResponse<JsonData> response = fromJson(json, SearchResponse.createSearchResponseDeserializer(JsonData._DESERIALIZER));
+        List<DateHistogramBucket> buckets = response.aggregations().get("per_day").dateHistogram().buckets().array();
+        for (int i = 0; i < buckets.size(); i++) {
+            DateHistogramBucket bucket = buckets.get(i);
+            assertEquals(bucket.key(), perDay.longKeys()[i]);
+            assertEquals(bucket.docCount(), perDay.docCounts()[i]);
+            assertEquals(bucket.aggregations().get("avg_price").avg().value(), perDay.metric("avg_price")[i]);
+        }
+
+        ColumnarAggregations.Buckets categories = aggs.buckets("categories");
+        assertEquals(Aggregate.Kind.Sterms, categories.kind());
+        assertArrayEquals(new String[]{"shoes", "boots"}, categories.stringKeys());
+        assertArrayEquals(new long[]{5, 2}, categories.docCounts());
+        assertTrue(categories.metrics().isEmpty());
+
+        ColumnarAggregations.Buckets prices = aggs.buckets("prices");
+        assertEquals(Aggregate.Kind.Histogram, prices.kind());
+        assertArrayEquals(new double[]{10.0, 20.0}, prices.doubleKeys());
+        assertArrayEquals(new long[]{1, 4}, prices.docCounts());
+
+        ColumnarAggregations.Buckets sizes = aggs.buckets("sizes");
+        assertEquals(0, sizes.size());
+        assertEquals(0, sizes.longKeys().length);
+
+        // Other aggregations are decoded as usual
+        assertNull(aggs.buckets("global_avg"));
+        assertEquals(4.5, aggs.aggregations().get("global_avg").avg().value());
+    }
+
+    @Test
+    public void testErrors() {
+        // Multi-value metric
+        JsonpMappingException e = assertThrows(JsonpMappingException.class, () -> fromJson(
+            "{\"aggregations\":{\"lterms#sizes\":{\"buckets\":[{\"key\":1,\"doc_count\":1,\"stats#price\":{\"min\":1,\"max\":2}}]}}}",
+            ColumnarAggregations._DESERIALIZER
+        ));
+        assertTrue(e.getMessage().contains("'price' is not a single-value metric"));
+        assertTrue(e.getMessage().contains("sizes"));
+
+        // Missing typed keys
+        e = assertThrows(JsonpMappingException.class, () -> fromJson(
+            "{\"aggregations\":{\"sizes\":{\"buckets\":[]}}}",
+            ColumnarAggregations._DESERIALIZER
+        ));
+        assertTrue(e.getMessage().contains("typed_keys"));
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        MockHttpServer httpServer = MockHttpServer.start(ex -> MockHttpServer.sendJson(ex, 200, response(3)));
+
+        try (RestClient restClient = httpServer.restClient()) {
+            RestClientTransport transport = new RestClientTransport(restClient, mapper);
+
+            ColumnarAggregations aggs = ColumnarAggregations.search(new ElasticsearchClient(transport), s -> s
+                .index("sales")
+                .size(0)
+                .aggregations("per_day", a -> a.dateHistogram(h -> h.field("date").fixedInterval(i -> i.time("1d"))))
+            );
+            assertEquals(3, aggs.buckets("per_day").size());
+
+            aggs = ColumnarAggregations.search(new ElasticsearchAsyncClient(transport), s -> s.index("sales")).get();
+            assertEquals(4, aggs.buckets("per_day").metric("max_price")[2]);
+        } finally {
+            httpServer.close();
+        }
+    }
+}
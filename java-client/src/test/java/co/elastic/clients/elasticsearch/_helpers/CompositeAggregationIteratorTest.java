@@ -0,0 +1,207 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.elasticsearch._helpers;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeAggregationSource;
+import co.elastic.clients.elasticsearch._types.aggregations.CompositeBucket;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.model.ModelTestCase;
+import co.elastic.clients.json.JsonpUtils;
+import co.elastic.clients.transport.MockHttpServer;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class CompositeAggregationIteratorTest extends ModelTestCase {
+
+    private static final int PAGES = 3;
+
+    private final SearchRequest request = SearchRequest.of(s -> s
+        .index("products")
+        .routing("r1")
+        .size(10)
+        .query(q -> q.term(t -> t.field("status").value("active")))
+        .aggregations("by_category", a -> a
+            .composite(c -> c
+                .size(2)
+                .sources(Collections.singletonList(
+                    Collections.singletonMap("category", CompositeAggregationSource.of(cs -> cs.terms(t -> t.field("category"))))
+                ))
+            )
+            .aggregations("avg_price", sub -> sub.avg(avg -> avg.field("price")))
+        )
+        .aggregations("other", a -> a.max(m -> m.field("price")))
+    );
+
+    @Test
+    public void testErrors() throws Exception {
+        try (RestClient restClient = RestClient.builder(new HttpHost("localhost", 9200)).build()) {
+            ElasticsearchAsyncClient client = new ElasticsearchAsyncClient(new RestClientTransport(restClient, mapper));
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () ->
+                CompositeAggregationIterator.of(client, request, "missing")
+            );
+            assertEquals("Search request has no aggregation named 'missing'", e.getMessage());
+
+            e = assertThrows(IllegalArgumentException.class, () -> CompositeAggregationIterator.of(client, request, "other"));
+            assertEquals("Aggregation 'other' is a 'max' aggregation, not a composite one", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testIterator() throws Exception {
+        // Query string and body of each request
+        ConcurrentLinkedQueue<String> queries = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<JsonObject> bodies = new ConcurrentLinkedQueue<>();
+
+        MockHttpServer httpServer = MockHttpServer.start(ex -> {
+            JsonObject body;
+            try (JsonReader reader = JsonpUtils.provider().createReader(ex.getRequestBody())) {
+                body = reader.readObject();
+            }
+            queries.add(ex.getRequestURI().getPath() + "?" + ex.getRequestURI().getQuery());
+            bodies.add(body);
+
+            if (body.getJsonObject("query").containsKey("match_none")) {
+                MockHttpServer.sendJson(ex, 400,
+                    "{\"error\":{\"type\":\"search_phase_execution_exception\",\"reason\":\"all shards failed\"},\"status\":400}"
+                );
+                return;
+            }
+
+            // Page number is the "after" key, or zero
+            JsonObject composite = body.getJsonObject("aggregations").getJsonObject("by_category").getJsonObject("composite");
+            int page = composite.containsKey("after") ? composite.getJsonObject("after").getInt("category") : 0;
+
+            StringBuilder response = new StringBuilder("{\"took\":1,\"timed_out\":false,")
+                .append("\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},\"hits\":{\"hits\":[]},")
+                .append("\"aggregations\":{\"composite#by_category\":{");
+            if (page < PAGES) {
+                response.append("\"after_key\":{\"category\":").append(page + 1).append("},");
+            }
+            response.append("\"buckets\":[");
+            if (page < PAGES) {
+                for (int i = 0; i < 2; i++) {
+                    if (i > 0) {
+                        response.append(',');
+                    }
+                    response.append("{\"key\":{\"category\":\"cat-").append(page).append('-').append(i)
+                        .append("\"},\"doc_count\":").append(i + 1).append(",\"avg#avg_price\":{\"value\":").append(page).append("}}");
+                }
+            }
+            response.append("]}}}");
+
+            MockHttpServer.sendJson(ex, 200, response.toString());
+        });
+
+        try (RestClient restClient = httpServer.restClient()) {
+            RestClientTransport transport = new RestClientTransport(restClient, mapper);
+
+            CompositeAggregationIterator iterator = CompositeAggregationIterator.of(
+                new ElasticsearchAsyncClient(transport), request, "by_category"
+            );
+
+            CompositeBucket first = iterator.next();
+            assertEquals("cat-0-0", first.key().get("category").stringValue());
+            assertEquals(0, first.aggregations().get("avg_price").avg().value());
+            assertEquals(1, iterator.pages());
+            assertEquals(1, iterator.afterKey().get("category").longValue());
+
+            // The second page is requested while the first one is consumed
+            long deadline = System.currentTimeMillis() + 5000;
+            while (bodies.size() < 2 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, bodies.size());
+            assertEquals(1, iterator.pages());
+
+            // Path and query parameters of the original request, and the body with size 0 and only the composite aggregation
+            JsonObject body = bodies.poll();
+            assertEquals("/products/_search?routing=r1&typed_keys=true", sortParams(queries.poll()));
+            assertEquals(0, body.getInt("size"));
+            assertEquals("active", body.getJsonObject("query").getJsonObject("term").getJsonObject("status").getString("value"));
+            assertFalse(body.getJsonObject("aggregations").containsKey("other"));
+            assertFalse(body.getJsonObject("aggregations").getJsonObject("by_category").getJsonObject("composite").containsKey("after"));
+            assertTrue(body.getJsonObject("aggregations").getJsonObject("by_category").getJsonObject("aggregations")
+                .containsKey("avg_price"));
+
+            int count = 1;
+            while (iterator.hasNext()) {
+                CompositeBucket bucket = iterator.next();
+                assertEquals("cat-" + (count / 2) + "-" + (count % 2), bucket.key().get("category").stringValue());
+                count++;
+            }
+            assertEquals(PAGES * 2, count);
+            // Last page is empty
+            assertEquals(PAGES + 1, iterator.pages());
+            // First request was polled above
+            assertEquals(PAGES, bodies.size());
+            assertEquals(PAGES, bodies.stream().skip(PAGES - 1).findFirst().get().getJsonObject("aggregations")
+                .getJsonObject("by_category").getJsonObject("composite").getJsonObject("after").getInt("category"));
+            bodies.clear();
+            queries.clear();
+
+            // Streams, with a sync client
+            try (Stream<CompositeBucket> stream = CompositeAggregationIterator.stream(
+                new ElasticsearchClient(transport), request, "by_category"
+            )) {
+                List<String> keys = stream.map(b -> b.key().get("category").stringValue()).collect(Collectors.toList());
+                assertEquals(PAGES * 2, keys.size());
+                assertEquals("cat-2-1", keys.get(keys.size() - 1));
+            }
+
+            // Errors
+            SearchRequest failing = SearchRequest.of(s -> s
+                .query(q -> q.matchNone(m -> m))
+                .aggregations("by_category", request.aggregations().get("by_category"))
+            );
+            CompositeAggregationIterator failingIterator = CompositeAggregationIterator.of(
+                new ElasticsearchAsyncClient(transport), failing, "by_category"
+            );
+            ElasticsearchException e = assertThrows(ElasticsearchException.class, failingIterator::hasNext);
+            assertEquals(400, e.status());
+
+            // Closing ends the iteration
+            CompositeAggregationIterator closed = CompositeAggregationIterator.of(
+                new ElasticsearchAsyncClient(transport), request, "by_category"
+            );
+            closed.close();
+            assertFalse(closed.hasNext());
+        } finally {
+            httpServer.close();
+        }
+    }
+
+    private static String sortParams(String url) {
+        int pos = url.indexOf('?');
+        return url.substring(0, pos + 1) + Stream.of(url.substring(pos + 1).split("&")).sorted().collect(Collectors.joining("&"));
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.elasticsearch._helpers;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch.core.GetResponse;
+import co.elastic.clients.elasticsearch.model.ModelTestCase;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpUtils;
+import co.elastic.clients.transport.MockHttpServer;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonValue;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DocumentLoaderTest extends ModelTestCase {
+
+    @Test
+    public void testBuilder() {
+        ElasticsearchAsyncClient client = new ElasticsearchAsyncClient(null);
+        assertThrows(IllegalArgumentException.class, () -> new DocumentLoader.Builder<JsonData>().documentClass(JsonData.class).build());
+        assertThrows(IllegalArgumentException.class, () -> new DocumentLoader.Builder<JsonData>().client(client).build());
+        assertThrows(IllegalArgumentException.class, () ->
+            new DocumentLoader.Builder<JsonData>().client(client).documentClass(JsonData.class).maxBatchSize(0).build()
+        );
+        assertThrows(IllegalArgumentException.class, () ->
+            new DocumentLoader.Builder<JsonData>().client(client).documentClass(JsonData.class).maxDelay(Duration.ofMillis(-1)).build()
+        );
+    }
+
+    @Test
+    public void testLoader() throws Exception {
+        // Documents requested by each mget request
+        ConcurrentLinkedQueue<List<String>> requests = new ConcurrentLinkedQueue<>();
+
+        MockHttpServer httpServer = new MockHttpServer().handle("/_mget", ex -> {
+            JsonObject request;
+            try (JsonReader reader = JsonpUtils.provider().createReader(ex.getRequestBody())) {
+                request = reader.readObject();
+            }
+
+            List<String> ids = new ArrayList<>();
+            StringBuilder response = new StringBuilder("{\"docs\":[");
+            for (JsonValue doc : request.getJsonArray("docs")) {
+                String index = doc.asJsonObject().getString("_index");
+                String id = doc.asJsonObject().getString("_id");
+                ids.add(index + "/" + id);
+
+                if (response.charAt(response.length() - 1) == '}') {
+                    response.append(',');
+                }
+                response.append("{\"_index\":\"").append(index).append("\",\"_id\":\"").append(id).append("\",");
+                if (id.equals("missing")) {
+                    response.append("\"found\":false}");
+                } else if (id.equals("broken")) {
+                    response.append("\"error\":{\"type\":\"routing_missing_exception\",\"reason\":\"routing is required\"}}");
+                } else {
+                    response.append("\"found\":true,\"_version\":1,\"_source\":{\"name\":\"").append(id).append("\"}}");
+                }
+            }
+            response.append("]}");
+            requests.add(ids);
+
+            MockHttpServer.sendJson(ex, 200, response.toString());
+        }).start();
+
+        try (RestClient restClient = httpServer.restClient()) {
+            ElasticsearchAsyncClient client = new ElasticsearchAsyncClient(new RestClientTransport(restClient, mapper));
+
+            DocumentLoader<JsonData> loader = new DocumentLoader.Builder<JsonData>()
+                .client(client)
+                .documentClass(JsonData.class)
+                .maxBatchSize(3)
+                .maxDelay(Duration.ofHours(1))
+                .cache(true)
+                .build();
+
+            // Duplicates are sent once, and a full batch is sent immediately
+            CompletableFuture<GetResponse<JsonData>> f1 = loader.get("idx", "1");
+            CompletableFuture<GetResponse<JsonData>> f1bis = loader.get("idx", "1");
+            CompletableFuture<GetResponse<JsonData>> fMissing = loader.get("idx", "missing");
+            assertFalse(f1.isDone());
+            CompletableFuture<GetResponse<JsonData>> fBroken = loader.get("other", "broken");
+
+            assertSame(f1, f1bis);
+            assertEquals("1", f1.get().source().toJson().asJsonObject().getString("name"));
+            assertEquals(Long.valueOf(1), f1.get().version());
+            assertFalse(fMissing.get().found());
+            ExecutionException ee = assertThrows(ExecutionException.class, fBroken::get);
+            assertEquals("routing_missing_exception", ((ElasticsearchException) ee.getCause()).error().type());
+            assertEquals(400, ((ElasticsearchException) ee.getCause()).status());
+            assertEquals(3, requests.poll().size());
+
+            // Successful lookups are cached, failures are not
+            CompletableFuture<GetResponse<JsonData>> f2 = loader.get("idx", "2");
+            assertSame(f1, loader.get("idx", "1"));
+            CompletableFuture<GetResponse<JsonData>> fBroken2 = loader.get("other", "broken");
+            assertNotSame(fBroken, fBroken2);
+            loader.flush();
+            assertEquals("2", f2.get().id());
+            assertThrows(ExecutionException.class, fBroken2::get);
+            List<String> ids = requests.poll();
+            assertEquals(2, ids.size());
+            assertEquals("idx/2", ids.get(0));
+            assertEquals("other/broken", ids.get(1));
+
+            // Forgotten documents are fetched again
+            loader.forget("idx", "1");
+            CompletableFuture<GetResponse<JsonData>> f1ter = loader.get("idx", "1");
+            assertNotSame(f1, f1ter);
+            loader.close();
+            assertEquals("1", f1ter.get().id());
+            assertEquals(1, requests.poll().size());
+            assertTrue(requests.isEmpty());
+
+            assertThrows(IllegalStateException.class, () -> loader.get("idx", "1"));
+
+            // Batches are sent from the executor when their time window expires
+            AtomicInteger executed = new AtomicInteger();
+            DocumentLoader<JsonData> timedLoader = new DocumentLoader.Builder<JsonData>()
+                .client(client)
+                .documentClass(JsonData.class)
+                .maxDelay(Duration.ofMillis(10))
+                .executor(task -> {
+                    executed.incrementAndGet();
+                    new Thread(task).start();
+                })
+                .build();
+
+            CompletableFuture<GetResponse<JsonData>> f3 = timedLoader.get("idx", "3");
+            CompletableFuture<GetResponse<JsonData>> f4 = timedLoader.get("idx", "4");
+            assertEquals("3", f3.get().id());
+            assertEquals("4", f4.get().id());
+            assertEquals(2, requests.poll().size());
+            assertEquals(1, executed.get());
+
+            // No cache
+            assertNotSame(f3, timedLoader.get("idx", "3"));
+            timedLoader.close();
+        } finally {
+            httpServer.close();
+        }
+    }
+}
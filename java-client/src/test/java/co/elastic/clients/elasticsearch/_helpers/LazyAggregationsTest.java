@@ -0,0 +1,99 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.elasticsearch._helpers;
+
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch.core.MsearchResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.model.ModelTestCase;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.JsonpMappingException;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Map;
+
+public class LazyAggregationsTest extends ModelTestCase {
+
+    private static final String RESPONSE = "{\"took\":1,\"timed_out\":false," +
+        "\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},\"hits\":{\"hits\":[]},\"aggregations\":{" +
+        "\"sterms#categories\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,\"buckets\":[" +
+        "{\"key\":\"shoes\",\"doc_count\":5,\"avg#avg_price\":{\"value\":12.5}},{\"key\":\"boots\",\"doc_count\":2}]}," +
+        // Invalid value, only detected when read
+        "\"max#broken\":{\"value\":\"not a number\"}," +
+        "\"avg#global_avg\":{\"value\":4.5}" +
+        "}}";
+
+    private final JsonpDeserializer<SearchResponse<JsonData>> deserializer =
+        SearchResponse.createSearchResponseDeserializer(JsonData._DESERIALIZER);
+
+    @Test
+    public void testLazyAggregations() {
+        JsonpMapper lazyMapper = LazyAggregations.enable(mapper);
+
+        // Also applies to deserializers created before the field switches are installed
+        SearchResponse<JsonData> response = fromJson(RESPONSE, deserializer, lazyMapper);
+        Map<String, Aggregate> aggs = response.aggregations();
+
+        assertEquals(3, aggs.size());
+        assertEquals(Arrays.asList("categories", "broken", "global_avg"), Arrays.asList(aggs.keySet().toArray()));
+        assertTrue(aggs.containsKey("broken"));
+        assertNull(aggs.get("missing"));
+
+        assertEquals(4.5, aggs.get("global_avg").avg().value());
+        assertSame(aggs.get("global_avg"), aggs.get("global_avg"));
+        Aggregate categories = aggs.get("categories");
+        assertEquals(12.5, categories.sterms().buckets().array().get(0).aggregations().get("avg_price").avg().value());
+
+        JsonpMappingException e = assertThrows(JsonpMappingException.class, () -> aggs.get("broken"));
+        assertTrue(e.getMessage().contains("broken"));
+        // Errors aren't cached
+        assertThrows(JsonpMappingException.class, () -> aggs.get("broken"));
+
+        // Same result as with eager deserialization
+        SearchResponse<JsonData> eagerResponse = fromJson(RESPONSE.replace("\"not a number\"", "1"), deserializer);
+        assertEquals(toJson(eagerResponse.aggregations().get("categories")), toJson(categories));
+
+        // Missing typed keys are detected when parsing
+        e = assertThrows(JsonpMappingException.class, () -> fromJson(
+            "{\"aggregations\":{\"categories\":{\"buckets\":[]}}}", SearchResponse.createSearchResponseDeserializer(JsonData._DESERIALIZER),
+            lazyMapper
+        ));
+        assertTrue(e.getMessage().contains("typed_keys"));
+
+        // Multi-search items
+        MsearchResponse<JsonData> msearch = fromJson("{\"took\":1,\"responses\":[" + RESPONSE + "]}",
+            MsearchResponse.createMsearchResponseDeserializer(JsonData._DESERIALIZER), lazyMapper);
+        assertEquals(4.5, msearch.responses().get(0).result().aggregations().get("global_avg").avg().value());
+    }
+
+    @Test
+    public void testNotEnabled() {
+        LazyAggregations.install();
+
+        // Without the mapper attribute, aggregations are deserialized with the response
+        JsonpMappingException e = assertThrows(JsonpMappingException.class, () ->
+            fromJson(RESPONSE, SearchResponse.createSearchResponseDeserializer(JsonData._DESERIALIZER))
+        );
+        assertTrue(e.getMessage().contains("not a number"));
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.elasticsearch._helpers;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch._types.ExpandWildcard;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.msearch.MultisearchBody;
+import co.elastic.clients.elasticsearch.core.msearch.MultisearchHeader;
+import co.elastic.clients.elasticsearch.model.ModelTestCase;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.transport.MockHttpServer;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+public class SearchBatcherTest extends ModelTestCase {
+
+    private static final String HIT = "{\"took\":1,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0}," +
+        "\"hits\":{\"hits\":[{\"_index\":\"%s\",\"_id\":\"1\"}]}%s}";
+
+    private static final String ERROR = "{\"error\":{\"type\":\"index_not_found_exception\",\"reason\":\"no such index\"},\"status\":404}";
+
+    @Test
+    public void testConversion() {
+        SearchRequest request = SearchRequest.of(s -> s
+            .index("foo", "bar")
+            .routing("r1")
+            .expandWildcards(ExpandWildcard.Open)
+            .query(q -> q.term(t -> t.field("name").value("baz")))
+            .size(5)
+            .trackTotalHits(t -> t.enabled(false))
+        );
+
+        assertTrue(SearchBatcher.isBatchable(request));
+        assertFalse(SearchBatcher.isBatchable(SearchRequest.of(s -> s.q("name:baz"))));
+        assertFalse(SearchBatcher.isBatchable(SearchRequest.of(s -> s.scroll(t -> t.time("1m")))));
+        assertFalse(SearchBatcher.isBatchable(SearchRequest.of(s -> s.slice(sl -> sl.id("0").max(2)))));
+
+        MultisearchHeader header = SearchBatcher.header(request);
+        assertEquals("{\"expand_wildcards\":[\"open\"],\"index\":[\"foo\",\"bar\"],\"routing\":\"r1\"}", toJson(header));
+
+        MultisearchBody body = SearchBatcher.body(request);
+        assertEquals("{\"query\":{\"term\":{\"name\":{\"value\":\"baz\"}}},\"size\":5,\"track_total_hits\":false}", toJson(body));
+
+        // Empty request
+        assertEquals("{}", toJson(SearchBatcher.header(SearchRequest.of(s -> s))));
+        assertEquals("{}", toJson(SearchBatcher.body(SearchRequest.of(s -> s))));
+    }
+
+    @Test
+    public void testBuilder() {
+        assertThrows(IllegalArgumentException.class, () -> new SearchBatcher.Builder().build());
+        ElasticsearchAsyncClient client = new ElasticsearchAsyncClient(null);
+        assertThrows(IllegalArgumentException.class, () -> new SearchBatcher.Builder().client(client).maxRequests(0).build());
+        assertThrows(IllegalArgumentException.class, () ->
+            new SearchBatcher.Builder().client(client).maxDelay(Duration.ofMillis(-1)).build()
+        );
+    }
+
+    @Test
+    public void testBatching() throws Exception {
+        ConcurrentLinkedQueue<String> paths = new ConcurrentLinkedQueue<>();
+
+        MockHttpServer httpServer = MockHttpServer.start(ex -> {
+            String path = ex.getRequestURI().getPath();
+            paths.add(path);
+
+            List<String> lines = new BufferedReader(new InputStreamReader(ex.getRequestBody(), StandardCharsets.UTF_8))
+                .lines().collect(Collectors.toList());
+
+            String response;
+            if (path.endsWith("/_msearch")) {
+                // Responses reflect the index of each search, and fail for the "missing" index
+                List<String> items = new ArrayList<>();
+                for (int i = 0; i < lines.size(); i += 2) {
+                    String index = index(lines.get(i));
+                    items.add(index.equals("missing") ? ERROR : String.format(HIT, index, ",\"status\":200"));
+                }
+                response = "{\"took\":1,\"responses\":[" + String.join(",", items) + "]}";
+            } else {
+                response = String.format(HIT, path.substring(1, path.indexOf("/_search")), "");
+            }
+
+            MockHttpServer.sendJson(ex, 200, response);
+        });
+
+        try (RestClient restClient = httpServer.restClient()) {
+            ElasticsearchAsyncClient client = new ElasticsearchAsyncClient(new RestClientTransport(restClient, mapper));
+
+            SearchBatcher batcher = new SearchBatcher.Builder()
+                .client(client)
+                .maxRequests(3)
+                .maxDelay(Duration.ofHours(1))
+                .build();
+
+            // A full batch is sent immediately
+            CompletableFuture<SearchResponse<JsonData>> f1 = batcher.search(s -> s.index("idx1"), JsonData.class);
+            CompletableFuture<SearchResponse<JsonData>> f2 = batcher.search(s -> s.index("missing"), JsonData.class);
+            assertFalse(f1.isDone());
+            CompletableFuture<SearchResponse<JsonData>> f3 = batcher.search(s -> s.index("idx3"), JsonData.class);
+
+            assertEquals("idx1", f1.get().hits().hits().get(0).index());
+            assertEquals("idx3", f3.get().hits().hits().get(0).index());
+            ExecutionException ee = assertThrows(ExecutionException.class, f2::get);
+            ElasticsearchException ese = (ElasticsearchException) ee.getCause();
+            assertEquals(404, ese.status());
+            assertEquals("index_not_found_exception", ese.error().type());
+            assertEquals("/_msearch", paths.poll());
+
+            // Searches that can't be batched are sent immediately
+            assertEquals("idx4", batcher.search(s -> s.index("idx4").q("foo"), JsonData.class).get().hits().hits().get(0).index());
+            assertEquals("/idx4/_search", paths.poll());
+
+            // A batch with a single search is sent as a search
+            CompletableFuture<SearchResponse<JsonData>> f5 = batcher.search(s -> s.index("idx5"), JsonData.class);
+            batcher.flush();
+            assertEquals("idx5", f5.get().hits().hits().get(0).index());
+            assertEquals("/idx5/_search", paths.poll());
+
+            // Batches are grouped by document class, and sent on close
+            CompletableFuture<SearchResponse<JsonData>> f6 = batcher.search(s -> s.index("idx6"), JsonData.class);
+            CompletableFuture<SearchResponse<Object>> f7 = batcher.search(s -> s.index("idx7"), Object.class);
+            CompletableFuture<SearchResponse<JsonData>> f8 = batcher.search(s -> s.index("idx8"), JsonData.class);
+            batcher.close();
+            assertEquals("idx6", f6.get().hits().hits().get(0).index());
+            assertEquals("idx7", f7.get().hits().hits().get(0).index());
+            assertEquals("idx8", f8.get().hits().hits().get(0).index());
+            assertEquals(2, paths.size());
+            assertTrue(paths.contains("/_msearch"));
+            assertTrue(paths.contains("/idx7/_search"));
+            paths.clear();
+
+            assertThrows(IllegalStateException.class, () -> batcher.search(s -> s.index("idx9"), JsonData.class));
+
+            // Batches are sent from the executor when their time window expires
+            AtomicInteger executed = new AtomicInteger();
+            SearchBatcher timedBatcher = new SearchBatcher.Builder()
+                .client(client)
+                .maxDelay(Duration.ofMillis(10))
+                .executor(task -> {
+                    executed.incrementAndGet();
+                    new Thread(task).start();
+                })
+                .build();
+
+            CompletableFuture<SearchResponse<JsonData>> f10 = timedBatcher.search(s -> s.index("idx10"), JsonData.class);
+            CompletableFuture<SearchResponse<JsonData>> f11 = timedBatcher.search(s -> s.index("idx11"), JsonData.class);
+            assertEquals("idx10", f10.get().hits().hits().get(0).index());
+            assertEquals("idx11", f11.get().hits().hits().get(0).index());
+            assertEquals("/_msearch", paths.poll());
+            assertTrue(paths.isEmpty());
+            assertEquals(1, executed.get());
+        } finally {
+            httpServer.close();
+        }
+    }
+
+    private static String index(String header) {
+        int start = header.indexOf("[\"") + 2;
+        return header.substring(start, header.indexOf("\"", start));
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.clients.elasticsearch._helpers;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.SortOrder;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.model.ModelTestCase;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.transport.MockHttpServer;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static co.elastic.clients.elasticsearch._helpers.SearchRequestTemplate.param;
+
+public class SearchRequestTemplateTest extends ModelTestCase {
+
+    private SearchRequest request(Object category, Object maxPrice, String sortField) {
+        return SearchRequest.of(s -> s
+            .index("products")
+            .query(q -> q.bool(b -> b
+                .filter(f -> f.term(t -> t.field("category").value(category.toString())))
+                .filter(f -> f.range(r -> r.field("price").lte(JsonData.of(maxPrice))))
+                .should(sh -> sh.term(t -> t.field("tags").value(category.toString())))
+            ))
+            .sort(so -> so.field(f -> f.field(sortField).order(SortOrder.Asc)))
+        );
+    }
+
+    @Test
+    public void testCompile() {
+        SearchRequestTemplate template = SearchRequestTemplate.compile(
+            request(param("category"), param("maxPrice"), param("sortField")), mapper
+        );
+
+        assertEquals(Arrays.asList("category", "maxPrice", "sortField"), template.parameters());
+
+        // Same JSON as the request built with these values
+        String body = new String(template.body("shoes", 50, "price"), StandardCharsets.UTF_8);
+        assertEquals(toJson(request("shoes", 50, "price")), body);
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("category", "shoes");
+        values.put("maxPrice", 50);
+        values.put("sortField", "price");
+        assertEquals(body, new String(template.body(template.values(values)), StandardCharsets.UTF_8));
+
+        // Strings are escaped
+        String category = "a\"b\\cé\n😀";
+        SearchRequest parsed = fromJson(new String(template.body(category, 1.5, "price"), StandardCharsets.UTF_8), SearchRequest.class);
+        assertEquals(category, parsed.query().bool().filter().get(0).term().value().stringValue());
+        assertEquals(1.5, parsed.query().bool().filter().get(1).range().lte().to(Double.class));
+
+        // Unpaired surrogates are replaced, like String.getBytes() does
+        byte[] unpaired = template.body("a\uD800b\uDC00", 1, "price");
+        assertEquals(toJson(request("a?b?", 1, "price")), new String(unpaired, StandardCharsets.UTF_8));
+        assertEquals("\"a?b?\"", new String("\"a\uD800b\uDC00\"".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testErrors() {
+        assertThrows(IllegalArgumentException.class, () -> param("not valid"));
+
+        SearchRequestTemplate template = SearchRequestTemplate.compile(
+            request(param("category"), param("maxPrice"), param("sortField")), mapper
+        );
+
+        // Wrong number of values
+        assertThrows(IllegalArgumentException.class, () -> template.body("shoes", 50));
+
+        // Property names must be strings
+        assertThrows(IllegalArgumentException.class, () -> template.body("shoes", 50, 42));
+
+        // Non-finite numbers aren't valid JSON
+        assertThrows(IllegalArgumentException.class, () -> template.body("shoes", Double.NaN, "price"));
+
+        Map<String, Object> values = new HashMap<>();
+        values.put("category", "shoes");
+        values.put("maxPrice", 50);
+        assertThrows(IllegalArgumentException.class, () -> template.values(values));
+
+        values.put("sortField", "price");
+        values.put("foo", "bar");
+        assertThrows(IllegalArgumentException.class, () -> template.values(values));
+    }
+
+    @Test
+    public void testSearch() throws Exception {
+        Map<String, String> received = new ConcurrentHashMap<>();
+
+        MockHttpServer httpServer = MockHttpServer.start(ex -> {
+            received.put("path", ex.getRequestURI().getPath());
+            received.put("body", new String(MockHttpServer.readAll(ex.getRequestBody()), StandardCharsets.UTF_8));
+
+            MockHttpServer.sendJson(ex, 200, "{\"took\":1,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0}," +
+                "\"hits\":{\"hits\":[{\"_index\":\"products\",\"_id\":\"1\",\"_source\":{\"name\":\"foo\"}}]}}");
+        });
+
+        try (RestClient restClient = httpServer.restClient()) {
+            RestClientTransport transport = new RestClientTransport(restClient, mapper);
+
+            SearchRequestTemplate template = SearchRequestTemplate.compile(
+                request(param("category"), param("maxPrice"), param("sortField")), mapper
+            );
+
+            SearchResponse<JsonData> response = template.search(new ElasticsearchClient(transport), JsonData.class, "shoes", 50, "price");
+            assertEquals("foo", response.hits().hits().get(0).source().toJson().asJsonObject().getString("name"));
+            assertEquals("/products/_search", received.get("path"));
+            assertEquals(toJson(request("shoes", 50, "price")), received.get("body"));
+
+            response = template.search(new ElasticsearchAsyncClient(transport), JsonData.class, "boots", 100, "name").get();
+            assertEquals("1", response.hits().hits().get(0).id());
+            assertEquals(toJson(request("boots", 100, "name")), received.get("body"));
+        } finally {
+            httpServer.close();
+        }
+    }}
@@ -0,0 +1,186 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.elasticsearch._helpers;
+
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch._types.aggregations.DateHistogramBucket;
+import co.elastic.clients.elasticsearch._types.aggregations.StringTermsBucket;
+import co.elastic.clients.elasticsearch.core.BulkResponse;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.elasticsearch.core.bulk.BulkResponseItem;
+import co.elastic.clients.elasticsearch.core.search.Hit;
+import co.elastic.clients.elasticsearch.model.ModelTestCase;
+import co.elastic.clients.json.JsonData;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.ObjectDeserializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class SpecializedDeserializersTest extends ModelTestCase {
+
+    // Has all properties handled by the field switches
+    private static final String SEARCH_RESPONSE = "{\"took\":3,\"timed_out\":false," +
+        "\"_shards\":{\"total\":2,\"successful\":2,\"skipped\":1,\"failed\":0},\"max_score\":2.5," +
+        "\"num_reduce_phases\":2,\"terminated_early\":true,\"pit_id\":\"pit\",\"_scroll_id\":\"scroll\"," +
+        "\"hits\":{\"total\":{\"value\":2,\"relation\":\"gte\"},\"max_score\":1.5,\"hits\":[" +
+        "{\"_index\":\"products\",\"_id\":\"1\",\"_score\":1.5,\"_shard\":\"[products][0]\",\"_node\":\"n1\"," +
+        "\"_routing\":\"r\",\"_seq_no\":5,\"_primary_term\":1,\"_version\":3,\"matched_queries\":[\"q1\"]," +
+        "\"_source\":{\"name\":\"foo\"},\"sort\":[12]}]}," +
+        "\"aggregations\":{" +
+        "\"sterms#tags\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,\"buckets\":[" +
+        "{\"key\":\"red\",\"doc_count\":3,\"doc_count_error\":1,\"avg#price\":{\"value\":2.0,\"value_as_string\":\"2\"}," +
+        "\"stats#rating\":{\"count\":3,\"min\":1.0,\"max\":4.5,\"avg\":2.5,\"sum\":7.5}}]}," +
+        "\"lterms#years\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,\"buckets\":[" +
+        "{\"key\":2022,\"key_as_string\":\"2022\",\"doc_count\":2,\"doc_count_error\":0}]}," +
+        "\"dterms#ratios\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,\"buckets\":[" +
+        "{\"key\":0.5,\"key_as_string\":\"0.5\",\"doc_count\":1,\"doc_count_error\":0}]}," +
+        "\"date_histogram#created\":{\"buckets\":[{\"key_as_string\":\"2022-01-01\",\"key\":1640995200000,\"doc_count\":2}]}," +
+        "\"histogram#prices\":{\"buckets\":[{\"key\":10.0,\"key_as_string\":\"10\",\"doc_count\":4}]}," +
+        "\"sum#total\":{\"value\":7.5,\"value_as_string\":\"7.5\"}," +
+        "\"min#lowest\":{\"value\":1.0,\"value_as_string\":\"1\"}," +
+        "\"max#highest\":{\"value\":4.5,\"value_as_string\":\"4.5\"}," +
+        "\"value_count#count\":{\"value\":3.0,\"value_as_string\":\"3\"}" +
+        "}}";
+
+    private static final String BULK_RESPONSE = "{\"took\":30,\"errors\":true,\"items\":[" +
+        "{\"index\":{\"_index\":\"test\",\"_id\":\"1\",\"_version\":1,\"result\":\"created\",\"forced_refresh\":true," +
+        "\"_shards\":{\"total\":2,\"successful\":1,\"failed\":0},\"_seq_no\":0,\"_primary_term\":1,\"status\":201}}," +
+        "{\"update\":{\"_index\":\"test\",\"_id\":\"2\",\"status\":404," +
+        "\"error\":{\"type\":\"document_missing_exception\",\"reason\":\"[2]: document missing\"}}}]}";
+
+    private static final JsonpDeserializer<SearchResponse<JsonData>> SEARCH_RESPONSE_DESERIALIZER =
+        SearchResponse.createSearchResponseDeserializer(JsonData._DESERIALIZER);
+
+    @AfterEach
+    public void uninstall() {
+        SpecializedDeserializers.uninstall();
+    }
+
+    @Test
+    public void testParity() {
+        // Serialized output of the generic path
+        String search = toJson(fromJson(SEARCH_RESPONSE, SEARCH_RESPONSE_DESERIALIZER));
+        String bulk = toJson(fromJson(BULK_RESPONSE, BulkResponse.class));
+
+        SpecializedDeserializers.install();
+        assertEquals(search, toJson(fromJson(SEARCH_RESPONSE, SEARCH_RESPONSE_DESERIALIZER)));
+        assertEquals(bulk, toJson(fromJson(BULK_RESPONSE, BulkResponse.class)));
+
+        SpecializedDeserializers.uninstall();
+        assertEquals(search, toJson(fromJson(SEARCH_RESPONSE, SEARCH_RESPONSE_DESERIALIZER)));
+    }
+
+    @Test
+    public void testSwitchIsUsed() {
+        // Registered after the specialized deserializers, so it only sees the fields they don't handle
+        Set<String> fields = ConcurrentHashMap.newKeySet();
+        ObjectDeserializer.FieldSwitch<Object> probe = (name, builder, parser, mapper) -> {
+            fields.add(name);
+            return false;
+        };
+
+        SpecializedDeserializers.install();
+        ObjectDeserializer.registerFieldSwitch(Hit.Builder.class, probe);
+        try {
+            fromJson(SEARCH_RESPONSE, SEARCH_RESPONSE_DESERIALIZER);
+            assertFalse(fields.contains("_index"));
+            assertTrue(fields.contains("_source"));
+
+            SpecializedDeserializers.uninstall();
+            fromJson(SEARCH_RESPONSE, SEARCH_RESPONSE_DESERIALIZER);
+            assertTrue(fields.contains("_index"));
+        } finally {
+            assertTrue(ObjectDeserializer.unregisterFieldSwitch(Hit.Builder.class, probe));
+        }
+    }
+
+    @Test
+    public void testSearchResponse() {
+        SpecializedDeserializers.install();
+        SpecializedDeserializers.install();
+
+        String json = "{\"took\":3,\"timed_out\":false," +
+            "\"_shards\":{\"total\":2,\"successful\":2,\"skipped\":0,\"failed\":0}," +
+            "\"hits\":{\"total\":{\"value\":2,\"relation\":\"eq\"},\"max_score\":null,\"hits\":[" +
+            "{\"_index\":\"products\",\"_id\":\"1\",\"_score\":null,\"_routing\":\"r\",\"_seq_no\":5,\"_primary_term\":1," +
+            "\"_source\":{\"name\":\"foo\"},\"matched_queries\":[\"q1\"],\"sort\":[12]}," +
+            "{\"_index\":\"products\",\"_id\":\"2\",\"_score\":1.5,\"_source\":{\"name\":\"bar\"}}]}," +
+            "\"aggregations\":{" +
+            "\"sterms#tags\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,\"buckets\":[" +
+            "{\"key\":\"red\",\"doc_count\":3,\"avg#price\":{\"value\":null},\"stats#rating\":" +
+            "{\"count\":3,\"min\":1.0,\"max\":4.5,\"avg\":2.5,\"sum\":7.5}}]}," +
+            "\"date_histogram#created\":{\"buckets\":[{\"key_as_string\":\"2022-01-01\",\"key\":1640995200000,\"doc_count\":2}]}" +
+            "}}";
+
+        SearchResponse<JsonData> response = fromJson(json, SearchResponse.createSearchResponseDeserializer(JsonData._DESERIALIZER));
+
+        assertEquals(2, response.shards().total().intValue());
+
+        Hit<JsonData> hit = response.hits().hits().get(0);
+        assertEquals("products", hit.index());
+        assertEquals("1", hit.id());
+        assertTrue(Double.isNaN(hit.score()));
+        assertEquals("r", hit.routing());
+        assertEquals(5L, hit.seqNo());
+        assertEquals(1L, hit.primaryTerm());
+        assertEquals("q1", hit.matchedQueries().get(0));
+        assertEquals(12L, hit.sort().get(0).longValue());
+        assertEquals("foo", hit.source().toJson().asJsonObject().getString("name"));
+        assertEquals(1.5, response.hits().hits().get(1).score(), 0.0);
+
+        StringTermsBucket bucket = response.aggregations().get("tags").sterms().buckets().array().get(0);
+        assertEquals("red", bucket.key().stringValue());
+        assertEquals(3, bucket.docCount());
+        Aggregate avg = bucket.aggregations().get("price");
+        assertEquals(0.0, avg.avg().value(), 0.0);
+        assertEquals(4.5, bucket.aggregations().get("rating").stats().max(), 0.0);
+
+        DateHistogramBucket dhBucket = response.aggregations().get("created").dateHistogram().buckets().array().get(0);
+        assertEquals("2022-01-01", dhBucket.keyAsString());
+        assertEquals(1640995200000L, dhBucket.key());
+    }
+
+    @Test
+    public void testBulkResponse() {
+        SpecializedDeserializers.install();
+
+        String json = "{\"took\":30,\"errors\":true,\"items\":[" +
+            "{\"index\":{\"_index\":\"test\",\"_id\":\"1\",\"_version\":1,\"result\":\"created\"," +
+            "\"_shards\":{\"total\":2,\"successful\":1,\"failed\":0},\"_seq_no\":0,\"_primary_term\":1,\"status\":201}}," +
+            "{\"update\":{\"_index\":\"test\",\"_id\":\"2\",\"status\":404," +
+            "\"error\":{\"type\":\"document_missing_exception\",\"reason\":\"[2]: document missing\"}}}]}";
+
+        BulkResponse response = fromJson(json, BulkResponse.class);
+
+        BulkResponseItem item = response.items().get(0);
+        assertEquals("1", item.id());
+        assertEquals(1L, item.version());
+        assertEquals("created", item.result());
+        assertEquals(1, item.shards().successful().intValue());
+        assertEquals(201, item.status());
+
+        item = response.items().get(1);
+        assertEquals(404, item.status());
+        assertEquals("document_missing_exception", item.error().type());
+    }
+}
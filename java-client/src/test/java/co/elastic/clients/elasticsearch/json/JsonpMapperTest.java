@@ -19,12 +19,17 @@
 
 package co.elastic.clients.elasticsearch.json;
 
+import co.elastic.clients.elasticsearch._types.query_dsl.Query;
+import co.elastic.clients.json.JsonpDeserializer;
 import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.JsonpMapperBase;
 import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import co.elastic.clients.json.jsonb.JsonbJsonpMapper;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import jakarta.json.JsonException;
 import jakarta.json.stream.JsonGenerator;
 import jakarta.json.stream.JsonParser;
 import org.junit.jupiter.api.Assertions;
@@ -69,6 +74,31 @@ public class JsonpMapperTest extends Assertions {
         testDeserialize(mapper, json);
     }
 
+    @Test
+    public void testJacksonConfigurationChanges() {
+        JacksonJsonpMapper mapper = new JacksonJsonpMapper();
+        String unknownField = "{\"intValue\":1,\"unknown\":true}";
+
+        assertThrows(JsonException.class, () ->
+            mapper.deserialize(mapper.jsonProvider().createParser(new StringReader(unknownField)), SomeClass.class)
+        );
+
+        // Changes to the object mapper apply to classes that were already decoded
+        mapper.objectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        SomeClass value = mapper.deserialize(mapper.jsonProvider().createParser(new StringReader(unknownField)), SomeClass.class);
+        assertEquals(1, value.getIntValue());
+    }
+
+    @Test
+    public void testFindDeserializer() {
+        JsonpDeserializer<Query> deserializer = JsonpMapperBase.findDeserializer(Query.class);
+        assertSame(Query._DESERIALIZER, deserializer);
+        assertSame(deserializer, JsonpMapperBase.findDeserializer(Query.class));
+
+        assertNotNull(JsonpMapperBase.findDeserializer(Void.class));
+        assertNull(JsonpMapperBase.findDeserializer(SomeClass.class));
+    }
+
     private void testSerialize(JsonpMapper mapper, String expected) {
 
         SomeClass something = new SomeClass();
@@ -19,6 +19,8 @@
 
 package co.elastic.clients.elasticsearch.json.jackson;
 
+import co.elastic.clients.json.StreamingJsonParser;
+import co.elastic.clients.json.UnexpectedJsonEventException;
 import co.elastic.clients.json.jackson.JacksonJsonProvider;
 import jakarta.json.stream.JsonParser;
 import jakarta.json.stream.JsonParser.Event;
@@ -95,4 +97,29 @@ public class JacksonJsonpParserTest extends Assertions {
             // expected
         }
     }
+
+    @Test
+    public void testNextKey() {
+
+        JacksonJsonProvider provider = new JacksonJsonProvider();
+        StreamingJsonParser parser = (StreamingJsonParser) provider.createParser(new StringReader(json));
+
+        assertEquals(Event.START_OBJECT, parser.next());
+        assertEquals("foo", parser.nextKey());
+        assertEquals(Event.VALUE_STRING, parser.next());
+
+        // Key already fetched by hasNext()
+        assertTrue(parser.hasNext());
+        assertEquals("bar", parser.nextKey());
+
+        assertEquals(Event.START_OBJECT, parser.next());
+        assertEquals("baz", parser.nextKey());
+        assertEquals(Event.VALUE_NUMBER, parser.next());
+        assertNull(parser.nextKey());
+
+        assertEquals("quux", parser.nextKey());
+
+        // Not a key
+        assertThrows(UnexpectedJsonEventException.class, parser::nextKey);
+    }
 }
@@ -22,9 +22,14 @@ package co.elastic.clients.elasticsearch.model;
 import co.elastic.clients.elasticsearch._types.Bytes;
 import co.elastic.clients.elasticsearch._types.Refresh;
 import co.elastic.clients.elasticsearch._types.mapping.GeoOrientation;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.JsonpMappingException;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
+import java.util.List;
 
 public class EnumTest extends ModelTestCase {
 
@@ -44,6 +49,30 @@ public class EnumTest extends ModelTestCase {
         });
     }
 
+    @Test
+    public void testTextBufferLookup() {
+        // Jackson parsers provide their text buffer, where values are not at offset zero
+        JsonpMapper mapper = new JacksonJsonpMapper();
+
+        List<GeoOrientation> values = fromJson(
+            "[\"left\", \"RIGHT\", \"ccw\", \"counterclockwise\"]",
+            JsonpDeserializer.arrayDeserializer(GeoOrientation._DESERIALIZER),
+            mapper
+        );
+        assertEquals(Arrays.asList(GeoOrientation.Left, GeoOrientation.Right, GeoOrientation.Right, GeoOrientation.Right), values);
+
+        // Same length as existing values, and longer than all of them
+        for (String json: Arrays.asList("\"lefT\"", "\"counterclockwise_\"", "\"\"")) {
+            JsonpMappingException e = assertThrows(JsonpMappingException.class, () ->
+                fromJson(json, GeoOrientation._DESERIALIZER, mapper)
+            );
+            assertTrue(e.getMessage().contains("Invalid enum " + json.replace('"', '\'')));
+        }
+
+        assertEquals(Refresh.WaitFor, fromJson("\"wait_for\"", Refresh.class, mapper));
+        assertEquals(Refresh.True, fromJson("true", Refresh.class, mapper));
+    }
+
     @Test
     public void testBooleanEnum() {
         // Quoted value
@@ -26,12 +26,21 @@ import co.elastic.clients.elasticsearch._types.query_dsl.Query;
 import co.elastic.clients.elasticsearch._types.query_dsl.SimpleQueryStringFlag;
 import co.elastic.clients.elasticsearch._types.query_dsl.SimpleQueryStringFlags;
 import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.json.JsonpDeserializer;
+import co.elastic.clients.json.JsonpMapper;
+import co.elastic.clients.json.UnionDeserializer;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.json.jsonb.JsonbJsonpMapper;
 import jakarta.json.Json;
 import jakarta.json.JsonObject;
 import jakarta.json.stream.JsonParser;
 import org.junit.jupiter.api.Test;
 
 import java.io.StringReader;
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 
 public class UnionTests extends ModelTestCase {
 
@@ -65,6 +74,34 @@ public class UnionTests extends ModelTestCase {
         }
     }
 
+    @Test
+    public void testObjectLookahead() {
+        // Common properties read before the discriminating one are replayed, including nested structures
+        String json = "[{\"params\":{\"a\":[1,{\"b\":2}]},\"id\":\"script_id\"},{\"source\":\"a script\"}]";
+
+        for (JsonpMapper mapper: Arrays.asList(new JacksonJsonpMapper(), new JsonbJsonpMapper())) {
+            List<Script> scripts = fromJson(json, JsonpDeserializer.arrayDeserializer(Script._DESERIALIZER), mapper);
+
+            assertEquals("script_id", scripts.get(0).stored().id());
+            assertEquals("[1,{\"b\":2}]", scripts.get(0).stored().params().get("a").toJson(mapper).toString());
+            assertEquals("a script", scripts.get(1).inline().source());
+        }
+    }
+
+    @Test
+    public void testAmbiguousNumbers() {
+        JsonpDeserializer<Map.Entry<String, Object>> deserializer =
+            new UnionDeserializer.Builder<Map.Entry<String, Object>, String, Object>(AbstractMap.SimpleImmutableEntry::new, true)
+                .addMember("double", JsonpDeserializer.doubleDeserializer())
+                .addMember("int", JsonpDeserializer.integerDeserializer())
+                .addMember("long", JsonpDeserializer.longDeserializer())
+                .build();
+
+        assertEquals("int", fromJson("1", deserializer).getKey());
+        assertEquals("long", fromJson("10000000000", deserializer).getKey());
+        assertEquals("double", fromJson("1.5", deserializer).getKey());
+    }
+
     @Test
     public void testSimpleQueryStringFlag() {
         // Ambiguous union on strings
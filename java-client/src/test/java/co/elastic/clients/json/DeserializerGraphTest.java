@@ -0,0 +1,81 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.json;
+
+import jakarta.json.stream.JsonParser;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class DeserializerGraphTest extends Assertions {
+
+    public static class Foo {
+        public Object value;
+    }
+
+    @Test
+    public void testInitialize() {
+        AtomicInteger created = new AtomicInteger();
+        AtomicReference<JsonpDeserializer<Foo>> self = new AtomicReference<>();
+
+        LazyDeserializer<String> leaf = new LazyDeserializer<>(() -> {
+            created.incrementAndGet();
+            return JsonpDeserializer.stringDeserializer();
+        });
+
+        // Captured in a lambda
+        JsonpDeserializer<String> custom = JsonpDeserializer.of(
+            EnumSet.of(JsonParser.Event.VALUE_STRING), (parser, mapper, event) -> leaf.deserialize(parser, mapper, event)
+        );
+
+        LazyDeserializer<List<Map<String, String>>> container = new LazyDeserializer<>(() -> {
+            created.incrementAndGet();
+            return JsonpDeserializer.arrayDeserializer(JsonpDeserializer.stringMapDeserializer(custom));
+        });
+
+        LazyDeserializer<Foo> root = new LazyDeserializer<>(() -> {
+            created.incrementAndGet();
+            ObjectDeserializer<Foo> op = new ObjectDeserializer<>(Foo::new);
+            op.add((foo, v) -> foo.value = v, container, "container");
+            // Cycle
+            op.add((foo, v) -> foo.value = v, self.get(), "self");
+            return op;
+        });
+        self.set(root);
+
+        Set<LazyDeserializer<?>> types = DeserializerGraph.initialize(root);
+
+        assertEquals(3, created.get());
+        assertEquals(3, types.size());
+        assertTrue(types.contains(root));
+        assertTrue(types.contains(container));
+        assertTrue(types.contains(leaf));
+
+        // Already initialized
+        DeserializerGraph.initialize(root);
+        assertEquals(3, created.get());
+    }
+}
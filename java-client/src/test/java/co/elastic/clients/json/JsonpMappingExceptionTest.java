@@ -109,4 +109,44 @@ public class JsonpMappingExceptionTest extends ModelTestCase {
         // Check look ahead position (see JsonpUtils.lookAheadFieldValue)
         assertTrue(msg.contains("(in object at line no="));
     }
+
+    @Test
+    public void testNoStackTraces() {
+        String json = "{\"properties\":{\"foo-bar\":{\"type\":\"text\",\"baz\":false}}}";
+
+        JsonpMappingException e = assertThrows(JsonpMappingException.class, () -> fromJson(json, TypeMapping.class));
+        assertTrue(e.getStackTrace().length > 0);
+
+        JsonpMappingException.captureStackTraces(false);
+        try {
+            e = assertThrows(JsonpMappingException.class, () -> fromJson(json, TypeMapping.class));
+        } finally {
+            JsonpMappingException.captureStackTraces(true);
+        }
+
+        assertEquals(0, e.getStackTrace().length);
+        // Path and message are still complete
+        assertEquals("properties['foo-bar'].baz", e.path());
+        assertTrue(e.getMessage().contains("Unknown field 'baz'"));
+    }
+
+    @Test
+    public void testProbing() {
+        JsonpMappingException e = assertThrows(JsonpMappingException.class, () -> JsonpMappingException.probe(() -> {
+            throw new JsonpMappingException("probe failed", null);
+        }));
+        assertEquals(0, e.getStackTrace().length);
+
+        e = new JsonpMappingException("not probing", null);
+        assertTrue(e.getStackTrace().length > 0);
+    }
+
+    @Test
+    public void testMessageFromCause() {
+        JsonpMappingException e = new JsonpMappingException(new NumberFormatException("abc"), null)
+            .prepend(null, "foo")
+            .prepend(null, "bar");
+        assertEquals("bar.foo", e.path());
+        assertTrue(e.getMessage().startsWith("Error deserializing: java.lang.NumberFormatException: abc (JSON path: bar.foo)"));
+    }
 }
@@ -47,4 +47,102 @@ public class ObjectBuilderDeserializerTest extends ModelTestCase {
         builder.build();
     }
 
+    @Test
+    public void testFieldSwitch() {
+        ObjectDeserializer.registerFieldSwitch(Item.Builder.class, (name, builder, parser, mapper) -> {
+            if (name.equals("name")) {
+                builder.name = "switch:" + JsonpDeserializer.stringDeserializer().deserialize(parser, mapper);
+                return true;
+            }
+            return false;
+        });
+
+        JsonpDeserializer<Item> deserializer = ObjectBuilderDeserializer.createForObject(Item.Builder::new, op -> {
+            op.add((b, v) -> b.name = v, JsonpDeserializer.stringDeserializer(), "name");
+            op.add((b, v) -> b.count = v, JsonpDeserializer.integerDeserializer(), "count");
+        });
+
+        // Fields not handled by the switch go through the generic path
+        Item item = fromJson("{\"count\":1,\"name\":\"foo\"}", deserializer);
+        assertEquals("switch:foo", item.name);
+        assertEquals(1, item.count);
+
+        // Unknown fields are still reported
+        JsonpMappingException e = assertThrows(JsonpMappingException.class, () ->
+            fromJson("{\"name\":\"foo\",\"bar\":1}", deserializer, SimpleJsonpMapper.INSTANCE_REJECT_UNKNOWN_FIELDS)
+        );
+        assertEquals("bar", e.path());
+    }
+
+    @Test
+    public void testFieldSwitchRegistration() {
+        JsonpDeserializer<Other> deserializer = ObjectBuilderDeserializer.createForObject(Other.Builder::new, op -> {
+            op.add((b, v) -> b.name = v, JsonpDeserializer.stringDeserializer(), "name");
+            op.add((b, v) -> b.label = v, JsonpDeserializer.stringDeserializer(), "label");
+        });
+        assertEquals("foo", fromJson("{\"name\":\"foo\"}", deserializer).name);
+
+        // Applies to deserializers that were already used
+        ObjectDeserializer.registerFieldSwitch(Other.Builder.class, (name, builder, parser, mapper) -> {
+            if (name.equals("name")) {
+                builder.name = "first:" + JsonpDeserializer.stringDeserializer().deserialize(parser, mapper);
+                return true;
+            }
+            return false;
+        });
+        assertEquals("first:foo", fromJson("{\"name\":\"foo\"}", deserializer).name);
+
+        // Switches registered for the same class are combined, in registration order
+        ObjectDeserializer.registerFieldSwitch(Other.Builder.class, (name, builder, parser, mapper) -> {
+            if (name.equals("name") || name.equals("label")) {
+                String value = "second:" + JsonpDeserializer.stringDeserializer().deserialize(parser, mapper);
+                if (name.equals("name")) {
+                    builder.name = value;
+                } else {
+                    builder.label = value;
+                }
+                return true;
+            }
+            return false;
+        });
+        Other other = fromJson("{\"name\":\"foo\",\"label\":\"bar\"}", deserializer);
+        assertEquals("first:foo", other.name);
+        assertEquals("second:bar", other.label);
+    }
+
+    public static class Other {
+        String name;
+        String label;
+
+        public static class Builder implements co.elastic.clients.util.ObjectBuilder<Other> {
+            String name;
+            String label;
+
+            @Override
+            public Other build() {
+                Other other = new Other();
+                other.name = name;
+                other.label = label;
+                return other;
+            }
+        }
+    }
+
+    public static class Item {
+        String name;
+        int count;
+
+        public static class Builder implements co.elastic.clients.util.ObjectBuilder<Item> {
+            String name;
+            int count;
+
+            @Override
+            public Item build() {
+                Item item = new Item();
+                item.name = name;
+                item.count = count;
+                return item;
+            }
+        }
+    }
 }
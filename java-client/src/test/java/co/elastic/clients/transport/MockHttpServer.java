@@ -0,0 +1,147 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+import org.elasticsearch.client.RestClient;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executor;
+
+/**
+ * A local HTTP server that responds like an Elasticsearch node, for tests that don't need a real cluster.
+ */
+public class MockHttpServer implements AutoCloseable {
+
+    /**
+     * The response of the {@code info} API.
+     */
+    public static final String INFO = "{\"cluster_name\":\"foo\",\"cluster_uuid\":\"bar\",\"name\":\"node\",\"tagline\":\"You Know, "
+        + "for Search\",\"version\":{\"build_date\":\"2022-05-18T00:00:00Z\",\"build_flavor\":\"default\",\"build_hash\":\"abc\","
+        + "\"build_snapshot\":false,\"build_type\":\"docker\",\"lucene_version\":\"9.2.0\",\"minimum_index_compatibility_version\":"
+        + "\"7.0.0\",\"minimum_wire_compatibility_version\":\"7.17.0\",\"number\":\"8.3.0\"}}";
+
+    private final HttpServer httpServer;
+
+    /**
+     * Creates a server on the loopback address. It must be started once its handlers are set.
+     */
+    public MockHttpServer() throws IOException {
+        this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    }
+
+    /**
+     * Creates and starts a server that handles all requests with {@code handler}.
+     */
+    public static MockHttpServer start(HttpHandler handler) throws IOException {
+        return new MockHttpServer().handle("/", handler).start();
+    }
+
+    public MockHttpServer handle(String path, HttpHandler handler) {
+        httpServer.createContext(path, handler);
+        return this;
+    }
+
+    /**
+     * Sets the executor of request handlers. Requests are handled one at a time by default.
+     */
+    public MockHttpServer executor(Executor executor) {
+        httpServer.setExecutor(executor);
+        return this;
+    }
+
+    public MockHttpServer start() {
+        httpServer.start();
+        return this;
+    }
+
+    public URI uri() {
+        InetSocketAddress address = httpServer.getAddress();
+        return URI.create("http://" + address.getHostString() + ":" + address.getPort() + "/");
+    }
+
+    /**
+     * A new low level client for this server, that should be closed by the caller.
+     */
+    public RestClient restClient() {
+        InetSocketAddress address = httpServer.getAddress();
+        return RestClient.builder(new HttpHost(address.getHostString(), address.getPort(), "http")).build();
+    }
+
+    /**
+     * A new low level client for this server that prefixes request paths with {@code pathPrefix}, to select a handler.
+     */
+    public RestClient restClient(String pathPrefix) {
+        InetSocketAddress address = httpServer.getAddress();
+        return RestClient.builder(new HttpHost(address.getHostString(), address.getPort(), "http"))
+            .setPathPrefix(pathPrefix)
+            .build();
+    }
+
+    @Override
+    public void close() {
+        httpServer.stop(0);
+    }
+
+    //----- Handler utilities
+
+    /**
+     * Sends a JSON response with the Elasticsearch product header.
+     */
+    public static void sendJson(HttpExchange ex, int status, String body) throws IOException {
+        send(ex, status, "application/json", body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends a response with the Elasticsearch product header. A {@code null} body sends a response without content.
+     */
+    public static void send(HttpExchange ex, int status, String contentType, @Nullable byte[] body) throws IOException {
+        ex.getResponseHeaders().add("X-Elastic-Product", "Elasticsearch");
+        ex.getResponseHeaders().add("Content-Type", contentType);
+        ex.sendResponseHeaders(status, body == null ? -1 : body.length);
+        if (body != null) {
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        ex.close();
+    }
+
+    public static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int len;
+        while ((len = in.read(buffer)) > 0) {
+            out.write(buffer, 0, len);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package co.elastic.clients.transport;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class RequestBodyCacheTest extends Assertions {
+
+    @Test
+    public void testMemoize() {
+        RequestBodyCache cache = new RequestBodyCache();
+        AtomicInteger encoded = new AtomicInteger();
+        Supplier<byte[]> encoder = () -> {
+            encoded.incrementAndGet();
+            return "{}".getBytes(StandardCharsets.UTF_8);
+        };
+
+        Object request = new Object();
+
+        // Not memoized: encoded every time
+        cache.body(request, "application/json", encoder);
+        cache.body(request, "application/json", encoder);
+        assertEquals(2, encoded.get());
+
+        assertSame(request, cache.memoize(request));
+        assertTrue(cache.isMemoized(request));
+        assertFalse(cache.isMemoized(new Object()));
+
+        byte[] body = cache.body(request, "application/json", encoder);
+        assertSame(body, cache.body(request, "application/json", encoder));
+        assertEquals(3, encoded.get());
+
+        // Encoded again for another content type
+        cache.body(request, "application/smile", encoder);
+        assertEquals(4, encoded.get());
+
+        cache.forget(request);
+        assertFalse(cache.isMemoized(request));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testCollectedRequests() throws Exception {
+        RequestBodyCache cache = new RequestBodyCache();
+        cache.memoize(new Object());
+        assertEquals(1, cache.size());
+
+        for (int i = 0; i < 50 && cache.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(0, cache.size());
+    }
+}
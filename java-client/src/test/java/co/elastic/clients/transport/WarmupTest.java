@@ -0,0 +1,64 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport;
+
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.aggregations.Aggregate;
+import co.elastic.clients.elasticsearch.core.BulkRequest;
+import co.elastic.clients.elasticsearch.indices.ElasticsearchIndicesClient;
+import co.elastic.clients.json.SimpleJsonpMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class WarmupTest extends Assertions {
+
+    @Test
+    public void testEndpoint() {
+        int count = new Warmup.Builder()
+            .endpoint(BulkRequest._ENDPOINT)
+            .decodePasses(1)
+            .build()
+            .run(SimpleJsonpMapper.INSTANCE);
+
+        // BulkResponse, BulkResponseItem, ErrorCause, ShardStatistics, etc.
+        assertTrue(count > 5, "count = " + count);
+    }
+
+    @Test
+    public void testNamespaces() {
+        int aggregations = new Warmup.Builder()
+            .deserializer(Aggregate._TYPED_KEYS_DESERIALIZER)
+            .build()
+            .run(SimpleJsonpMapper.INSTANCE);
+
+        // All aggregation types and their buckets
+        assertTrue(aggregations > 100, "count = " + aggregations);
+
+        int count = new Warmup.Builder()
+            .namespace(ElasticsearchClient.class)
+            .namespace(ElasticsearchIndicesClient.class)
+            .decodePasses(2)
+            .build()
+            .run(SimpleJsonpMapper.INSTANCE);
+
+        // Search responses include aggregations
+        assertTrue(count > aggregations, "count = " + count);
+    }
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport.http_client;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch.core.InfoResponse;
+import co.elastic.clients.json.jsonb.JsonbJsonpMapper;
+import co.elastic.clients.transport.MockHttpServer;
+import co.elastic.clients.transport.TransportException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class HttpClientTransportTest extends Assertions {
+
+    private static final String ERROR = "{\"error\":{\"type\":\"index_not_found_exception\",\"reason\":\"no such index [foo]\"},"
+        + "\"status\":404}";
+
+    private MockHttpServer httpServer;
+    private final Map<String, String> lastHeaders = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    public void setup() throws IOException {
+        httpServer = MockHttpServer.start(ex -> {
+            ex.getRequestHeaders().forEach((k, v) -> lastHeaders.put(k.toLowerCase(), v.get(0)));
+            lastHeaders.put("query", String.valueOf(ex.getRequestURI().getRawQuery()));
+
+            String path = ex.getRequestURI().getPath();
+            if (path.equals("/")) {
+                MockHttpServer.sendJson(ex, 200, MockHttpServer.INFO);
+            } else if (ex.getRequestMethod().equals("HEAD")) {
+                MockHttpServer.send(ex, path.equals("/existing") ? 200 : 404, "application/json", null);
+            } else {
+                MockHttpServer.sendJson(ex, 404, ERROR);
+            }
+        });
+    }
+
+    @AfterEach
+    public void tearDown() {
+        httpServer.close();
+    }
+
+    private HttpClientTransport transport() {
+        return new HttpClientTransport(HttpClient.newHttpClient(), httpServer.uri(), new JsonbJsonpMapper());
+    }
+
+    @Test
+    public void testBlockingRequest() throws Exception {
+        ElasticsearchClient client = new ElasticsearchClient(transport());
+
+        InfoResponse info = client.info();
+        assertEquals("foo", info.clusterName());
+        assertEquals("8.3.0", info.version().number());
+
+        assertTrue(lastHeaders.get("user-agent").startsWith("elastic-java/"));
+        assertTrue(lastHeaders.get("x-elastic-client-meta").contains("hl=2"));
+        assertEquals(HttpClientTransport.JSON_CONTENT_TYPE, lastHeaders.get("accept"));
+    }
+
+    @Test
+    public void testAsyncRequest() throws Exception {
+        ElasticsearchAsyncClient client = new ElasticsearchAsyncClient(transport());
+
+        InfoResponse info = client.info().get();
+        assertEquals("foo", info.clusterName());
+    }
+
+    @Test
+    public void testBooleanResponse() throws Exception {
+        ElasticsearchClient client = new ElasticsearchClient(transport());
+
+        assertTrue(client.indices().exists(b -> b.index("existing")).value());
+        assertFalse(client.indices().exists(b -> b.index("missing")).value());
+    }
+
+    @Test
+    public void testErrorResponse() {
+        ElasticsearchClient client = new ElasticsearchClient(transport());
+
+        ElasticsearchException ex = assertThrows(ElasticsearchException.class, () -> client.get(b -> b.index("foo").id("1"), Void.class));
+        assertEquals(404, ex.status());
+        assertEquals("index_not_found_exception", ex.error().type());
+    }
+
+    @Test
+    public void testOptions() throws Exception {
+        ElasticsearchClient client = new ElasticsearchClient(transport())
+            .withTransportOptions(b -> b
+                .addHeader("X-Foo", "Bar")
+                .addHeader("User-Agent", "MegaClient/1.2.3")
+                .setParameter("format", "pretty")
+            );
+
+        client.info();
+        assertEquals("Bar", lastHeaders.get("x-foo"));
+        assertEquals("MegaClient/1.2.3", lastHeaders.get("user-agent"));
+        assertEquals("format=pretty", lastHeaders.get("query"));
+    }
+
+    @Test
+    public void testMissingProductHeader() throws Exception {
+        httpServer.handle("/no-product", ex -> {
+            ex.sendResponseHeaders(200, -1);
+            ex.close();
+        });
+
+        URI uri = httpServer.uri().resolve("/no-product");
+        ElasticsearchClient client = new ElasticsearchClient(
+            new HttpClientTransport(HttpClient.newHttpClient(), uri, new JsonbJsonpMapper())
+        );
+
+        TransportException ex = assertThrows(TransportException.class, client::ping);
+        assertTrue(ex.getMessage().contains("Missing [X-Elastic-Product] header"));
+    }
+
+    @Test
+    public void testFailover() throws Exception {
+        // Find a port that nobody listens to
+        URI deadNode;
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            deadNode = URI.create("http://" + socket.getInetAddress().getHostAddress() + ":" + socket.getLocalPort());
+        }
+
+        HttpClientTransport transport = new HttpClientTransport(
+            HttpClient.newHttpClient(), Arrays.asList(deadNode, httpServer.uri()), new JsonbJsonpMapper(), null
+        );
+
+        ElasticsearchClient client = new ElasticsearchClient(transport);
+        ElasticsearchAsyncClient asyncClient = new ElasticsearchAsyncClient(transport);
+
+        // Round-robin will start on each node in turn, and the dead one is skipped
+        for (int i = 0; i < 4; i++) {
+            assertEquals("foo", client.info().clusterName());
+            assertEquals("foo", asyncClient.info().get().clusterName());
+        }
+    }
+}
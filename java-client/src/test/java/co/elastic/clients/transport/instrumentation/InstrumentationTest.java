@@ -0,0 +1,296 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport.instrumentation;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch._types.ElasticsearchException;
+import co.elastic.clients.elasticsearch.core.InfoResponse;
+import co.elastic.clients.json.jsonb.JsonbJsonpMapper;
+import co.elastic.clients.transport.Endpoint;
+import co.elastic.clients.transport.MockHttpServer;
+import co.elastic.clients.transport.TransportException;
+import co.elastic.clients.transport.TransportOptions;
+import co.elastic.clients.transport.rest_client.RestClientOptions;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+
+public class InstrumentationTest extends Assertions {
+
+    private static final String NOT_FOUND = "{\"error\":{\"type\":\"index_not_found_exception\",\"reason\":\"no such index\"},"
+        + "\"status\":404}";
+
+    private static MockHttpServer httpServer;
+    private static final List<String> traceparents = new CopyOnWriteArrayList<>();
+
+    @BeforeAll
+    public static void setup() throws Exception {
+        httpServer = MockHttpServer.start(ex -> {
+            traceparents.add(String.valueOf(ex.getRequestHeaders().getFirst("traceparent")));
+            boolean found = ex.getRequestURI().getPath().equals("/");
+            MockHttpServer.sendJson(ex, found ? 200 : 404, found ? MockHttpServer.INFO : NOT_FOUND);
+        });
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        httpServer.close();
+    }
+
+    @Test
+    public void testDefaultIsNoop() throws Exception {
+        try (RestClient restClient = restClient()) {
+            RestClientTransport transport = new RestClientTransport(restClient, new JsonbJsonpMapper());
+            assertSame(NoopInstrumentation.INSTANCE, transport.instrumentation());
+        }
+    }
+
+    @Test
+    public void testSpans() throws Exception {
+        RecordingInstrumentation instrumentation = new RecordingInstrumentation();
+        try (RestClient restClient = restClient()) {
+            RestClientTransport transport = new RestClientTransport(restClient, new JsonbJsonpMapper())
+                .withInstrumentation(instrumentation);
+
+            traceparents.clear();
+            new ElasticsearchClient(transport).info();
+            new ElasticsearchAsyncClient(transport).info().get();
+
+            assertEquals(2, instrumentation.traces.size());
+            for (RecordingContext trace: instrumentation.traces) {
+                assertEquals("es/info", trace.endpoint);
+                assertEquals(1, trace.ends.get());
+                assertNull(trace.exception);
+                assertEquals("es/info", trace.attributes.get(Instrumentation.ENDPOINT_ID));
+                assertNull(trace.attributes.get(Instrumentation.INDEX));
+                assertEquals("[ENCODE, SEND, DECODE]", trace.phases().toString());
+                for (RecordingSpan span: trace.spans) {
+                    assertTrue(span.ended);
+                }
+
+                RecordingSpan send = trace.spans.get(1);
+                assertEquals(200L, send.attributes.get(Instrumentation.STATUS_CODE));
+                assertEquals((long) MockHttpServer.INFO.length(), send.attributes.get(Instrumentation.RESPONSE_BODY_SIZE));
+                assertEquals(0L, trace.spans.get(0).attributes.get(Instrumentation.REQUEST_BODY_SIZE));
+            }
+
+            assertEquals(2, traceparents.size());
+            assertEquals(instrumentation.traces.get(0).traceparent, traceparents.get(0));
+            assertEquals(instrumentation.traces.get(1).traceparent, traceparents.get(1));
+        }
+    }
+
+    @Test
+    public void testFailures() throws Exception {
+        RecordingInstrumentation instrumentation = new RecordingInstrumentation();
+        try (RestClient restClient = restClient()) {
+            RestClientTransport transport = new RestClientTransport(restClient, new JsonbJsonpMapper())
+                .withInstrumentation(instrumentation);
+
+            assertThrows(ElasticsearchException.class,
+                () -> new ElasticsearchClient(transport).indices().get(g -> g.index("missing"))
+            );
+            ExecutionException ee = assertThrows(ExecutionException.class,
+                () -> new ElasticsearchAsyncClient(transport).indices().get(g -> g.index("missing")).get()
+            );
+            assertTrue(ee.getCause() instanceof ElasticsearchException);
+
+            assertEquals(2, instrumentation.traces.size());
+            for (RecordingContext trace: instrumentation.traces) {
+                assertEquals(1, trace.ends.get());
+                assertTrue(trace.exception instanceof ElasticsearchException);
+                assertEquals("missing", trace.attributes.get(Instrumentation.INDEX));
+                assertEquals("[ENCODE, SEND, DECODE]", trace.phases().toString());
+                assertEquals(404L, trace.spans.get(1).attributes.get(Instrumentation.STATUS_CODE));
+            }
+        }
+    }
+
+    @Test
+    public void testLateResponse() throws Exception {
+        RecordingInstrumentation instrumentation = new RecordingInstrumentation();
+        AtomicReference<CompletableFuture<?>> request = new AtomicReference<>();
+
+        // Hold the response until the request has expired, as if the expiry raced with the response
+        instrumentation.onResponse = () -> {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((request.get() == null || !request.get().isDone()) && System.nanoTime() < deadline) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+        };
+
+        try (RestClient restClient = restClient()) {
+            RestClientTransport transport = new RestClientTransport(restClient, new JsonbJsonpMapper())
+                .withInstrumentation(instrumentation);
+            TransportOptions options = new RestClientOptions.Builder(RequestOptions.DEFAULT.toBuilder())
+                .requestTimeout(Duration.ofMillis(100))
+                .build();
+
+            CompletableFuture<InfoResponse> future = new ElasticsearchAsyncClient(transport, options).info();
+            request.set(future);
+            ExecutionException ee = assertThrows(ExecutionException.class, future::get);
+            assertTrue(ee.getCause() instanceof TransportException);
+
+            // The response listener owns the trace once it has received the response, and ends it after decoding
+            RecordingContext trace = instrumentation.traces.get(0);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (!trace.ended && System.nanoTime() < deadline) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+            }
+            assertEquals("[ENCODE, SEND, DECODE]", trace.phases().toString());
+            assertEquals(1, trace.ends.get());
+            assertFalse(trace.spanAfterEnd);
+            for (RecordingSpan span: trace.spans) {
+                assertTrue(span.ended);
+            }
+        }
+    }
+
+    private static RestClient restClient() {
+        return httpServer.restClient();
+    }
+
+    private static class RecordingInstrumentation implements Instrumentation {
+        final List<RecordingContext> traces = new CopyOnWriteArrayList<>();
+        // Called when the status code of a response is recorded
+        volatile Runnable onResponse = () -> {};
+
+        @Override
+        public <RequestT> Context newContext(RequestT request, Endpoint<RequestT, ?, ?> endpoint) {
+            RecordingContext trace = new RecordingContext(endpoint.id(), "00-" + traces.size() + "-01", this);
+            traces.add(trace);
+            return trace;
+        }
+    }
+
+    private static class RecordingContext implements Instrumentation.Context {
+        final String endpoint;
+        final String traceparent;
+        final RecordingInstrumentation instrumentation;
+        final Map<String, String> attributes = new ConcurrentHashMap<>();
+        final List<RecordingSpan> spans = new CopyOnWriteArrayList<>();
+        final AtomicInteger ends = new AtomicInteger();
+        volatile Throwable exception;
+        volatile boolean ended;
+        volatile boolean spanAfterEnd;
+
+        RecordingContext(String endpoint, String traceparent, RecordingInstrumentation instrumentation) {
+            this.endpoint = endpoint;
+            this.traceparent = traceparent;
+            this.instrumentation = instrumentation;
+        }
+
+        List<Instrumentation.Phase> phases() {
+            List<Instrumentation.Phase> result = new ArrayList<>();
+            for (RecordingSpan span: spans) {
+                result.add(span.phase);
+            }
+            return Collections.unmodifiableList(result);
+        }
+
+        @Override
+        public boolean isRecording() {
+            return true;
+        }
+
+        @Override
+        public Instrumentation.Span startSpan(Instrumentation.Phase phase) {
+            // Not asserted here, as this may run in an http client thread
+            if (ended) {
+                spanAfterEnd = true;
+            }
+            RecordingSpan span = new RecordingSpan(phase, instrumentation);
+            spans.add(span);
+            return span;
+        }
+
+        @Override
+        public void setAttribute(String key, String value) {
+            attributes.put(key, value);
+        }
+
+        @Override
+        public void injectHeaders(BiConsumer<String, String> headers) {
+            headers.accept("traceparent", traceparent);
+        }
+
+        @Override
+        public void recordException(Throwable throwable) {
+            exception = throwable;
+        }
+
+        @Override
+        public void end() {
+            ends.incrementAndGet();
+            ended = true;
+        }
+    }
+
+    private static class RecordingSpan implements Instrumentation.Span {
+        final Instrumentation.Phase phase;
+        final RecordingInstrumentation instrumentation;
+        final Map<String, Object> attributes = new ConcurrentHashMap<>();
+        volatile boolean ended;
+
+        RecordingSpan(Instrumentation.Phase phase, RecordingInstrumentation instrumentation) {
+            this.phase = phase;
+            this.instrumentation = instrumentation;
+        }
+
+        @Override
+        public void setAttribute(String key, String value) {
+            attributes.put(key, value);
+        }
+
+        @Override
+        public void setAttribute(String key, long value) {
+            attributes.put(key, value);
+            if (key.equals(Instrumentation.STATUS_CODE)) {
+                instrumentation.onResponse.run();
+            }
+        }
+
+        @Override
+        public void end() {
+            assertFalse(ended);
+            ended = true;
+        }
+    }
+}
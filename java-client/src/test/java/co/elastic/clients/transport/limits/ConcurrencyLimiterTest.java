@@ -0,0 +1,185 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport.limits;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.json.jsonb.JsonbJsonpMapper;
+import co.elastic.clients.transport.MockHttpServer;
+import co.elastic.clients.transport.TransportException;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class ConcurrencyLimiterTest extends Assertions {
+
+    private static AimdLimit fixedLimit(int limit) {
+        return new AimdLimit.Builder().initialLimit(limit).minLimit(limit).maxLimit(limit).build();
+    }
+
+    @Test
+    public void testQueueing() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter.Builder()
+            .limit(fixedLimit(2))
+            .build();
+
+        CompletableFuture<ConcurrencyLimiter.Permit> p1 = limiter.acquire("test");
+        CompletableFuture<ConcurrencyLimiter.Permit> p2 = limiter.acquire("test");
+        CompletableFuture<ConcurrencyLimiter.Permit> p3 = limiter.acquire("test");
+
+        assertTrue(p1.isDone());
+        assertTrue(p2.isDone());
+        assertFalse(p3.isDone());
+        assertEquals(2, limiter.inFlight());
+        assertEquals(1, limiter.queued());
+
+        // Releasing a permit grants it to the queued request
+        p1.get().onSuccess();
+        assertTrue(p3.isDone());
+        assertEquals(2, limiter.inFlight());
+        assertEquals(0, limiter.queued());
+
+        // Releasing twice has no effect
+        p1.get().onSuccess();
+        assertEquals(2, limiter.inFlight());
+
+        p2.get().onIgnore();
+        p3.get().onDropped();
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    public void testBoundedQueue() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter.Builder()
+            .limit(fixedLimit(1))
+            .maxQueueSize(1)
+            .maxQueueWait(Duration.ofMillis(50))
+            .build();
+
+        CompletableFuture<ConcurrencyLimiter.Permit> p1 = limiter.acquire("test");
+        CompletableFuture<ConcurrencyLimiter.Permit> p2 = limiter.acquire("test");
+        CompletableFuture<ConcurrencyLimiter.Permit> p3 = limiter.acquire("test");
+
+        assertTrue(p1.isDone());
+
+        // Queue is full
+        ExecutionException ee = assertThrows(ExecutionException.class, p3::get);
+        assertTrue(ee.getCause() instanceof TransportException);
+        assertTrue(ee.getCause().getMessage().startsWith("[test] Concurrency limit reached"));
+
+        // Waited too long
+        ee = assertThrows(ExecutionException.class, () -> p2.get(1, TimeUnit.SECONDS));
+        assertTrue(ee.getCause() instanceof TransportException);
+        assertEquals(0, limiter.queued());
+
+        // Cancelled requests leave the queue
+        CompletableFuture<ConcurrencyLimiter.Permit> p4 = limiter.acquire("test");
+        assertEquals(1, limiter.queued());
+        p4.cancel(false);
+        assertEquals(0, limiter.queued());
+
+        p1.get().onSuccess();
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    public void testAimdLimit() {
+        AimdLimit limit = new AimdLimit.Builder().initialLimit(10).timeout(Duration.ofSeconds(1)).build();
+        long rtt = TimeUnit.MILLISECONDS.toNanos(10);
+
+        // Limit not used: no growth
+        limit.onSample(rtt, 1, false);
+        assertEquals(10, limit.limit());
+
+        limit.onSample(rtt, 10, false);
+        assertEquals(11, limit.limit());
+
+        limit.onSample(rtt, 10, true);
+        assertEquals(9, limit.limit());
+
+        // Timeouts are considered as drops
+        limit.onSample(TimeUnit.SECONDS.toNanos(2), 10, false);
+        assertEquals(8, limit.limit());
+    }
+
+    @Test
+    public void testVegasLimit() {
+        VegasLimit limit = new VegasLimit.Builder().initialLimit(10).build();
+        long rtt = TimeUnit.MILLISECONDS.toNanos(10);
+
+        // First sample sets the no-load latency
+        limit.onSample(rtt, 10, false);
+        assertEquals(10, limit.limit());
+
+        // Same latency: no queueing, grow
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(rtt, limit.limit(), false);
+        }
+        int grown = limit.limit();
+        assertTrue(grown > 10);
+
+        // Latency doubles: requests are queued server-side, shrink
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(rtt * 2, limit.limit(), false);
+        }
+        assertTrue(limit.limit() < grown);
+
+        int current = limit.limit();
+        limit.onSample(rtt, current, true);
+        assertTrue(limit.limit() < current);
+    }
+
+    @Test
+    public void testRejectionsLowerTheLimit() throws Exception {
+        try (MockHttpServer httpServer = MockHttpServer.start(ex -> MockHttpServer.sendJson(ex, 429, "{}"));
+             RestClient restClient = httpServer.restClient()) {
+
+            ConcurrencyLimiter limiter = new ConcurrencyLimiter.Builder()
+                .limit(new AimdLimit.Builder().initialLimit(10).build())
+                .build();
+
+            ElasticsearchAsyncClient client = new ElasticsearchAsyncClient(
+                new RestClientTransport(restClient, new JsonbJsonpMapper()).withConcurrencyLimiter(limiter)
+            );
+
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(client.info());
+            }
+
+            for (CompletableFuture<?> future: futures) {
+                ExecutionException ee = assertThrows(ExecutionException.class, future::get);
+                assertTrue(ee.getCause() instanceof ResponseException);
+            }
+
+            assertEquals(0, limiter.inFlight());
+            assertEquals(0, limiter.queued());
+            assertTrue(limiter.limit() < 10);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport.limits;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.json.jsonb.JsonbJsonpMapper;
+import co.elastic.clients.transport.MockHttpServer;
+import co.elastic.clients.transport.TransportException;
+import co.elastic.clients.transport.rest_client.RestClientTransport;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+public class InFlightBytesBudgetTest extends Assertions {
+
+    @Test
+    public void testReservations() throws Exception {
+        InFlightBytesBudget budget = new InFlightBytesBudget.Builder()
+            .maxBytes(1000)
+            .defaultResponseBytes(100)
+            .build();
+
+        CompletableFuture<InFlightBytesBudget.Reservation> r1 = budget.reserve("test", 500);
+        assertTrue(r1.isDone());
+        assertEquals(600, r1.get().bytes());
+        assertEquals(600, budget.reservedBytes());
+
+        // Doesn't fit: queued
+        CompletableFuture<InFlightBytesBudget.Reservation> r2 = budget.reserve("test", 500);
+        assertFalse(r2.isDone());
+
+        // Fits, but doesn't overtake the queue
+        CompletableFuture<InFlightBytesBudget.Reservation> r3 = budget.reserve("test", 0);
+        assertFalse(r3.isDone());
+        assertEquals(2, budget.queued());
+
+        r1.get().release(200);
+        assertTrue(r2.isDone());
+        assertTrue(r3.isDone());
+        assertEquals(700, budget.reservedBytes());
+
+        // Response size estimate follows actual responses
+        assertEquals(125, budget.estimateResponseBytes("test"));
+        assertEquals(100, budget.estimateResponseBytes("other"));
+
+        // Releasing twice has no effect
+        r1.get().release(200);
+        assertEquals(700, budget.reservedBytes());
+
+        r2.get().release(-1);
+        r3.get().release(-1);
+        assertEquals(0, budget.reservedBytes());
+
+        // Larger than the budget: admitted when nothing else is in flight
+        CompletableFuture<InFlightBytesBudget.Reservation> r4 = budget.reserve("test", 5000);
+        assertTrue(r4.isDone());
+        r4.get().release(-1);
+    }
+
+    @Test
+    public void testFailFast() throws Exception {
+        InFlightBytesBudget budget = new InFlightBytesBudget.Builder()
+            .maxBytes(1000)
+            .maxQueueWait(Duration.ZERO)
+            .build();
+
+        CompletableFuture<InFlightBytesBudget.Reservation> r1 = budget.reserve("test", 1000);
+        CompletableFuture<InFlightBytesBudget.Reservation> r2 = budget.reserve("test", 1000);
+
+        assertTrue(r1.isDone());
+        ExecutionException ee = assertThrows(ExecutionException.class, r2::get);
+        assertTrue(ee.getCause() instanceof TransportException);
+        assertTrue(ee.getCause().getMessage().startsWith("[test] In-flight bytes budget exhausted"));
+
+        r1.get().release(-1);
+        assertEquals(0, budget.reservedBytes());
+    }
+
+    @Test
+    public void testCancelledHeadOfQueue() throws Exception {
+        InFlightBytesBudget budget = new InFlightBytesBudget.Builder()
+            .maxBytes(1000)
+            .defaultResponseBytes(0)
+            .build();
+
+        CompletableFuture<InFlightBytesBudget.Reservation> r1 = budget.reserve("test", 600);
+        CompletableFuture<InFlightBytesBudget.Reservation> r2 = budget.reserve("test", 600);
+        CompletableFuture<InFlightBytesBudget.Reservation> r3 = budget.reserve("test", 100);
+        assertFalse(r3.isDone());
+
+        // The next request in the queue now fits
+        r2.cancel(false);
+        assertTrue(r3.isDone());
+        assertEquals(700, budget.reservedBytes());
+
+        r1.get().release(-1);
+        r3.get().release(-1);
+        assertEquals(0, budget.reservedBytes());
+    }
+
+    @Test
+    public void testTransport() throws Exception {
+        try (MockHttpServer httpServer = MockHttpServer.start(ex -> MockHttpServer.sendJson(ex, 200, MockHttpServer.INFO));
+             RestClient restClient = httpServer.restClient()) {
+
+            InFlightBytesBudget budget = new InFlightBytesBudget.Builder().maxBytes(1_000_000).build();
+            RestClientTransport transport = new RestClientTransport(restClient, new JsonbJsonpMapper())
+                .withInFlightBytesBudget(budget);
+
+            new ElasticsearchClient(transport).info();
+            assertEquals(0, budget.reservedBytes());
+            assertTrue(budget.estimateResponseBytes("es/info") < 64 * 1024);
+
+            new ElasticsearchAsyncClient(transport).info().get();
+            assertEquals(0, budget.reservedBytes());
+        }
+    }
+}
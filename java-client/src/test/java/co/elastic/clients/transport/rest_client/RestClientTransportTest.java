@@ -0,0 +1,432 @@
+/*
+ * Licensed to Elasticsearch B.V. under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch B.V. licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package co.elastic.clients.transport.rest_client;
+
+import co.elastic.clients.elasticsearch.ElasticsearchAsyncClient;
+import co.elastic.clients.elasticsearch.ElasticsearchClient;
+import co.elastic.clients.elasticsearch.core.SearchRequest;
+import co.elastic.clients.elasticsearch.core.SearchResponse;
+import co.elastic.clients.json.jackson.JacksonJsonProvider;
+import co.elastic.clients.json.jackson.JacksonJsonpMapper;
+import co.elastic.clients.json.jsonb.JsonbJsonpMapper;
+import co.elastic.clients.transport.MockHttpServer;
+import co.elastic.clients.transport.RequestBodyCache;
+import co.elastic.clients.transport.TransportException;
+import co.elastic.clients.transport.TransportOptions;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.json.bind.spi.JsonbProvider;
+import jakarta.json.stream.JsonGenerator;
+import jakarta.json.stream.JsonParser;
+import org.elasticsearch.client.RequestOptions;
+import org.elasticsearch.client.ResponseException;
+import org.elasticsearch.client.RestClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class RestClientTransportTest extends Assertions {
+
+    private MockHttpServer httpServer;
+    private RestClient restClient;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        httpServer = MockHttpServer.start(ex -> {
+            if (ex.getRequestURI().getPath().startsWith("/slow")) {
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    // Ignore
+                }
+            }
+            if (ex.getRequestURI().getPath().startsWith("/teapot")) {
+                ex.sendResponseHeaders(418, -1);
+                ex.close();
+                return;
+            }
+
+            MockHttpServer.sendJson(ex, 200, MockHttpServer.INFO);
+        });
+        restClient = httpServer.restClient();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        httpServer.close();
+        restClient.close();
+    }
+
+    @Test
+    public void testBlockingModes() throws Exception {
+        RestClientTransport transport = new RestClientTransport(restClient, new JsonbJsonpMapper());
+        assertEquals(RestClientTransport.BlockingMode.REST_CLIENT, transport.blockingMode());
+
+        for (RestClientTransport.BlockingMode mode: RestClientTransport.BlockingMode.values()) {
+            RestClientTransport modeTransport = transport.withBlockingMode(mode);
+            assertEquals(mode, modeTransport.blockingMode());
+
+            // Mode is preserved when changing options
+            TransportOptions options = modeTransport.options().with(b -> b.addHeader("X-Foo", "bar"));
+            assertEquals(mode, modeTransport.withRequestOptions(options).blockingMode());
+
+            ElasticsearchClient client = new ElasticsearchClient(modeTransport);
+            assertEquals("foo", client.info().clusterName());
+        }
+    }
+
+    @Test
+    public void testNonPinningFailure() throws Exception {
+        try (RestClient teapotClient = httpServer.restClient("/teapot")) {
+            ElasticsearchClient client = new ElasticsearchClient(
+                new RestClientTransport(teapotClient, new JsonbJsonpMapper())
+                    .withBlockingMode(RestClientTransport.BlockingMode.NON_PINNING)
+            );
+
+            // Same exception as with the RestClient's blocking method
+            ResponseException ex = assertThrows(ResponseException.class, client::info);
+            assertEquals(418, ex.getResponse().getStatusLine().getStatusCode());
+        }
+    }
+
+    @Test
+    public void testNonPinningInterrupt() throws Exception {
+        try (RestClient slowClient = httpServer.restClient("/slow")) {
+            ElasticsearchClient client = new ElasticsearchClient(
+                new RestClientTransport(slowClient, new JsonbJsonpMapper())
+                    .withBlockingMode(RestClientTransport.BlockingMode.NON_PINNING)
+            );
+
+            // Interrupted threads fail fast and keep their interrupted status
+            Thread.currentThread().interrupt();
+            try {
+                assertThrows(InterruptedIOException.class, client::info);
+                assertTrue(Thread.currentThread().isInterrupted());
+            } finally {
+                Thread.interrupted();
+            }
+        }
+    }
+
+    @Test
+    public void testRequestTimeout() throws Exception {
+        Map<String, String> searchRequest = new ConcurrentHashMap<>();
+        CountDownLatch cancelled = new CountDownLatch(1);
+
+        MockHttpServer server = new MockHttpServer().executor(Executors.newCachedThreadPool()).handle("/", ex -> {
+            String path = ex.getRequestURI().getPath();
+            String body;
+            if (path.equals("/_tasks")) {
+                searchRequest.put("tasksQuery", ex.getRequestURI().getQuery());
+                searchRequest.put("tasksAuth", String.valueOf(ex.getRequestHeaders().getFirst("Authorization")));
+                body = "{\"nodes\":{\"n1\":{\"tasks\":{\"n1:42\":{\"node\":\"n1\",\"id\":42,\"type\":\"transport\"," +
+                    "\"action\":\"indices:data/read/search\",\"start_time_in_millis\":0,\"running_time_in_nanos\":0," +
+                    "\"cancellable\":true,\"headers\":{\"X-Opaque-Id\":\"" + searchRequest.get("opaqueId") + "\"}}}}}}";
+            } else if (path.equals("/_tasks/n1:42/_cancel")) {
+                cancelled.countDown();
+                body = "{}";
+            } else {
+                searchRequest.put("opaqueId", ex.getRequestHeaders().getFirst("X-Opaque-Id"));
+                searchRequest.put("query", ex.getRequestURI().getQuery());
+                try {
+                    Thread.sleep(2000);
+                } catch (InterruptedException e) {
+                    // Ignore
+                }
+                body = "{}";
+            }
+
+            MockHttpServer.sendJson(ex, 200, body);
+        }).start();
+
+        try (RestClient client = server.restClient()) {
+            RestClientTransport transport = new RestClientTransport(client, new JsonbJsonpMapper());
+            RestClientOptions.Builder options = new RestClientOptions.Builder(RequestOptions.DEFAULT.toBuilder());
+            options.addHeader("Authorization", "ApiKey request-key").requestTimeout(Duration.ofMillis(100));
+            ElasticsearchClient esClient = new ElasticsearchClient(transport, options.build());
+
+            TransportException ex = assertThrows(TransportException.class, () -> esClient.search(s -> s.index("foo"), Void.class));
+            assertEquals("[es/search] Request timed out after 100ms", ex.getMessage());
+
+            // Continuations don't run on the scheduler thread, which is shared by all timers
+            ElasticsearchAsyncClient asyncClient = new ElasticsearchAsyncClient(transport, options.build());
+            String continuationThread = asyncClient.search(s -> s.index("foo"), Void.class)
+                .handle((r, e) -> Thread.currentThread().getName())
+                .get();
+            assertNotEquals("elasticsearch-java-scheduler", continuationThread);
+
+            // Task cancellation, with the request's options and only for search tasks
+            assertNotNull(searchRequest.get("opaqueId"));
+            assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+            assertEquals("ApiKey request-key", searchRequest.get("tasksAuth"));
+            assertTrue(searchRequest.get("tasksQuery").contains("actions=indices:data/read/search*"));
+
+            // The search timeout is only sent if requested
+            assertFalse(searchRequest.get("query").contains("timeout="));
+            ElasticsearchClient serverTimeoutClient = new ElasticsearchClient(transport, options.searchServerTimeout(true).build());
+            assertThrows(TransportException.class, () -> serverTimeoutClient.search(s -> s.index("foo"), Void.class));
+            assertTrue(searchRequest.get("query").contains("timeout=100ms"));
+        } finally {
+            server.close();
+        }
+    }
+
+    @Test
+    public void testBinaryFormat() throws Exception {
+        Map<String, String> received = new ConcurrentHashMap<>();
+        httpServer.handle("/binary", ex -> {
+            received.put("contentType", String.valueOf(ex.getRequestHeaders().getFirst("Content-Type")));
+            received.put("accept", String.valueOf(ex.getRequestHeaders().getFirst("Accept")));
+            received.put("body", new String(MockHttpServer.readAll(ex.getRequestBody()), StandardCharsets.ISO_8859_1));
+
+            String path = ex.getRequestURI().getPath();
+            String body = MockHttpServer.INFO;
+            if (path.endsWith("/_bulk")) {
+                body = "{\"took\":1,\"errors\":false,\"items\":[]}";
+            } else if (path.endsWith("/foo")) {
+                body = "{\"index\":\"foo\",\"acknowledged\":true,\"shards_acknowledged\":true}";
+            }
+
+            // The bulk response is sent as JSON, as a proxy could do
+            boolean bulk = path.endsWith("/_bulk");
+            MockHttpServer.send(ex, 200, bulk ? "application/json" : received.get("accept"), body.getBytes(StandardCharsets.UTF_8));
+        });
+
+        // Counts parsers and generators to check which bodies use the binary format. It writes JSON so that bodies can be
+        // inspected: the actual SMILE and CBOR encodings are tested in testSmileAndCbor
+        CountingProvider provider = new CountingProvider();
+        AtomicInteger parsers = provider.parsers;
+        AtomicInteger generators = provider.generators;
+
+        try (RestClient binaryClient = httpServer.restClient("/binary")) {
+            RestClientTransport transport = new RestClientTransport(binaryClient, new JacksonJsonpMapper());
+            assertNull(transport.binaryFormat());
+
+            ElasticsearchClient smileClient = new ElasticsearchClient(transport.withBinaryFormat(BinaryFormat.smile(provider)));
+
+            // Response is parsed according to its content type
+            assertEquals("foo", smileClient.info().clusterName());
+            assertTrue(received.get("accept").contains("smile"));
+            assertEquals(1, parsers.get());
+
+            // Bulk items are followed by the SMILE separator
+            smileClient.bulk(b -> b
+                .operations(o -> o.delete(d -> d.index("foo").id("1")))
+                .operations(o -> o.delete(d -> d.index("foo").id("2")))
+            );
+            assertTrue(received.get("contentType").contains("smile"));
+            assertEquals(2, received.get("body").chars().filter(c -> c == 0xFF).count());
+            assertFalse(received.get("body").contains("\n"));
+            assertEquals(2, generators.get());
+            assertEquals(1, parsers.get());
+
+            // CBOR bulk requests are sent as JSON
+            ElasticsearchClient cborClient = new ElasticsearchClient(transport.withBinaryFormat(BinaryFormat.cbor(provider)));
+            cborClient.bulk(b -> b.operations(o -> o.delete(d -> d.index("foo").id("1"))));
+            assertTrue(received.get("contentType").contains("json"));
+            assertTrue(received.get("accept").contains("cbor"));
+            assertTrue(received.get("body").endsWith("\n"));
+            assertEquals(2, generators.get());
+
+            // Other requests are encoded in the binary format
+            cborClient.indices().create(c -> c.index("foo").settings(st -> st.numberOfShards("1")));
+            assertTrue(received.get("contentType").contains("cbor"));
+            assertEquals(3, generators.get());
+            assertEquals(2, parsers.get());
+        }
+    }
+
+    public static class Doc {
+        public String name;
+        public double price;
+    }
+
+    @Test
+    public void testSmileAndCbor() throws Exception {
+        ObjectMapper json = new ObjectMapper();
+        ObjectMapper smile = new ObjectMapper(new SmileFactory());
+        ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+        Map<String, Object> received = new ConcurrentHashMap<>();
+        httpServer.handle("/dataformat", ex -> {
+            String path = ex.getRequestURI().getPath();
+            String contentType = String.valueOf(ex.getRequestHeaders().getFirst("Content-Type"));
+            String accept = String.valueOf(ex.getRequestHeaders().getFirst("Accept"));
+            received.put("contentType", contentType);
+
+            // Decode the request body with the actual format
+            byte[] requestBody = MockHttpServer.readAll(ex.getRequestBody());
+            ObjectMapper requestFormat = contentType.contains("smile") ? smile : contentType.contains("cbor") ? cbor : json;
+            if (path.endsWith("/_bulk")) {
+                byte separator = requestFormat == smile ? (byte) 0xFF : (byte) '\n';
+                List<JsonNode> items = new ArrayList<>();
+                int start = 0;
+                for (int i = 0; i < requestBody.length; i++) {
+                    if (requestBody[i] == separator) {
+                        items.add(requestFormat.readTree(Arrays.copyOfRange(requestBody, start, i)));
+                        start = i + 1;
+                    }
+                }
+                assertEquals(requestBody.length, start);
+                received.put("items", items);
+            } else if (requestBody.length > 0) {
+                received.put("body", requestFormat.readTree(requestBody));
+            }
+
+            String body = MockHttpServer.INFO;
+            if (path.endsWith("/_bulk")) {
+                body = "{\"took\":1,\"errors\":false,\"items\":[]}";
+            } else if (path.endsWith("/_search")) {
+                body = "{\"took\":1,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0}," +
+                    "\"hits\":{\"hits\":[{\"_index\":\"foo\",\"_id\":\"1\",\"_source\":{\"name\":\"shoes\",\"price\":1.5}}]}}";
+            } else if (path.endsWith("/foo")) {
+                body = "{\"index\":\"foo\",\"acknowledged\":true,\"shards_acknowledged\":true}";
+            }
+
+            // Encode the response in the accepted format
+            ObjectMapper responseFormat = accept.contains("smile") ? smile : accept.contains("cbor") ? cbor : json;
+            MockHttpServer.send(ex, 200, accept, responseFormat.writeValueAsBytes(json.readTree(body)));
+        });
+
+        Doc doc = new Doc();
+        doc.name = "shoes";
+        doc.price = 1.5;
+
+        try (RestClient binaryClient = httpServer.restClient("/dataformat")) {
+            RestClientTransport transport = new RestClientTransport(binaryClient, new JacksonJsonpMapper());
+
+            ElasticsearchClient smileClient = new ElasticsearchClient(
+                transport.withBinaryFormat(BinaryFormat.smile(new JacksonJsonProvider(new SmileFactory())))
+            );
+
+            assertEquals("foo", smileClient.info().clusterName());
+
+            // Documents are decoded from SMILE
+            SearchResponse<Doc> searchResponse = smileClient.search(s -> s.index("foo"), Doc.class);
+            assertTrue(String.valueOf(received.get("contentType")).contains("smile"));
+            assertEquals("shoes", searchResponse.hits().hits().get(0).source().name);
+            assertEquals(1.5, searchResponse.hits().hits().get(0).source().price);
+
+            // Each bulk item is a SMILE document followed by the separator
+            smileClient.bulk(b -> b
+                .operations(o -> o.index(i -> i.index("foo").id("1").document(doc)))
+                .operations(o -> o.delete(d -> d.index("foo").id("2")))
+            );
+            assertTrue(String.valueOf(received.get("contentType")).contains("smile"));
+            @SuppressWarnings("unchecked")
+            List<JsonNode> items = (List<JsonNode>) received.get("items");
+            assertEquals(3, items.size());
+            assertEquals("1", items.get(0).get("index").get("_id").asText());
+            assertEquals("shoes", items.get(1).get("name").asText());
+            assertEquals(1.5, items.get(1).get("price").asDouble());
+            assertEquals("2", items.get(2).get("delete").get("_id").asText());
+
+            ElasticsearchClient cborClient = new ElasticsearchClient(
+                transport.withBinaryFormat(BinaryFormat.cbor(new JacksonJsonProvider(new CBORFactory())))
+            );
+
+            // Request and response bodies are encoded in CBOR
+            assertTrue(cborClient.indices().create(c -> c.index("foo").settings(st -> st.numberOfShards("1"))).acknowledged());
+            assertTrue(String.valueOf(received.get("contentType")).contains("cbor"));
+            assertEquals("1", ((JsonNode) received.get("body")).get("settings").get("number_of_shards").asText());
+
+            // CBOR bulk requests are sent as JSON
+            received.remove("items");
+            cborClient.bulk(b -> b.operations(o -> o.index(i -> i.index("foo").id("1").document(doc))));
+            assertTrue(String.valueOf(received.get("contentType")).contains("json"));
+            @SuppressWarnings("unchecked")
+            List<JsonNode> jsonItems = (List<JsonNode>) received.get("items");
+            assertEquals(2, jsonItems.size());
+            assertEquals("shoes", jsonItems.get(1).get("name").asText());
+        }
+    }
+
+    @Test
+    public void testRequestBodyCache() throws Exception {
+        Map<String, String> received = new ConcurrentHashMap<>();
+        httpServer.handle("/cached", ex -> {
+            received.put("body", new String(MockHttpServer.readAll(ex.getRequestBody()), StandardCharsets.UTF_8));
+            MockHttpServer.sendJson(ex, 200,
+                "{\"took\":1,\"timed_out\":false,\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},\"hits\":{\"hits\":[]}}"
+            );
+        });
+
+        CountingProvider provider = new CountingProvider();
+        RequestBodyCache cache = new RequestBodyCache();
+
+        try (RestClient cachedClient = httpServer.restClient("/cached")) {
+            RestClientTransport transport = new RestClientTransport(cachedClient, new JsonbJsonpMapper(provider, JsonbProvider.provider()))
+                .withRequestBodyCache(cache);
+            assertSame(cache, transport.requestBodyCache());
+            ElasticsearchClient client = new ElasticsearchClient(transport);
+
+            SearchRequest healthCheck = cache.memoize(SearchRequest.of(s -> s.index("foo").size(0)));
+            client.search(healthCheck, Void.class);
+            client.search(healthCheck, Void.class);
+            assertEquals("{\"size\":0}", received.get("body"));
+            assertEquals(1, provider.generators.get());
+
+            // Not memoized
+            client.search(s -> s.index("foo").size(1), Void.class);
+            client.search(s -> s.index("foo").size(1), Void.class);
+            assertEquals("{\"size\":1}", received.get("body"));
+            assertEquals(3, provider.generators.get());
+        }
+    }
+
+    /**
+     * A JSON provider that counts its parsers and generators.
+     */
+    private static class CountingProvider extends JacksonJsonProvider {
+        final AtomicInteger parsers = new AtomicInteger();
+        final AtomicInteger generators = new AtomicInteger();
+
+        @Override
+        public JsonParser createParser(InputStream in) {
+            parsers.incrementAndGet();
+            return super.createParser(in);
+        }
+
+        @Override
+        public JsonGenerator createGenerator(OutputStream out) {
+            generators.incrementAndGet();
+            return super.createGenerator(out);
+        }
+    }
+}